@@ -0,0 +1,394 @@
+package ir.annotation.waiter.discovery;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Annotation processor that discovers components and procedures at build time and generates static catalogs of them.
+ * <p>
+ * For every non abstract application, a component discovery that lists components declared as its fields is generated; and
+ * for all procedures annotated with {@code Discoverable}, one procedure discovery that instantiates them is generated. Both
+ * are registered as {@link java.util.ServiceLoader} providers, so the application starts without runtime reflection.
+ * </p>
+ * <p>
+ * Types are referred to by their names, so this processor does not depend on the application it processes.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@SupportedAnnotationTypes("*")
+public class DiscoveryProcessor extends AbstractProcessor {
+    /**
+     * Name of the application type that components are declared on.
+     */
+    private static final String APPLICATION = "ir.annotation.waiter.core.application.Application";
+
+    /**
+     * Name of the component type that types of application fields must directly extend to be discovered.
+     */
+    private static final String COMPONENT = "ir.annotation.waiter.core.application.Component";
+
+    /**
+     * Name of the component definition type that generated component discoveries instantiate.
+     */
+    private static final String COMPONENT_DEFINITION = "ir.annotation.waiter.core.application.ComponentDefinition";
+
+    /**
+     * Name of the service interface that generated component discoveries implement.
+     */
+    private static final String COMPONENT_DISCOVERY = "ir.annotation.waiter.core.application.ComponentDiscovery";
+
+    /**
+     * Name of the annotation that declares dependencies of a component.
+     */
+    private static final String DEPENDS_ON = "ir.annotation.waiter.core.application.annotation.DependsOn";
+
+    /**
+     * Name of the annotation that declares start order of a component.
+     */
+    private static final String START_ORDER = "ir.annotation.waiter.core.application.annotation.StartOrder";
+
+    /**
+     * Name of the annotation that declares stop order of a component.
+     */
+    private static final String STOP_ORDER = "ir.annotation.waiter.core.application.annotation.StopOrder";
+
+    /**
+     * Name of the procedure type that discoverable procedures must extend.
+     */
+    private static final String ABSTRACT_PROCEDURE = "ir.annotation.waiter.core.procedure.AbstractProcedure";
+
+    /**
+     * Name of the service interface that the generated procedure discovery implements.
+     */
+    private static final String PROCEDURE_DISCOVERY = "ir.annotation.waiter.core.procedure.ProcedureDiscovery";
+
+    /**
+     * Name of the annotation that marks procedures to be discovered.
+     */
+    private static final String DISCOVERABLE = "ir.annotation.waiter.core.procedure.annotation.Discoverable";
+
+    /**
+     * Generated providers, keyed by their service interface names; registered after the last round.
+     */
+    private final Map<String, Set<String>> providers = new TreeMap<>();
+
+    /**
+     * Whether the procedure discovery is already generated.
+     */
+    private boolean proceduresGenerated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeProviders();
+            return false;
+        }
+
+        var types = ElementFilter.typesIn(roundEnv.getRootElements());
+        for (TypeElement type : types) {
+            if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT) && isSubclassOf(type, APPLICATION))
+                generateComponentDiscovery(type);
+        }
+
+        var procedures = types.stream()
+                .filter(type -> annotationOf(type, DISCOVERABLE) != null)
+                .sorted(Comparator.comparing(type -> type.getQualifiedName().toString()))
+                .collect(Collectors.toList());
+        if (!procedures.isEmpty() && !proceduresGenerated) {
+            generateProcedureDiscovery(procedures);
+            proceduresGenerated = true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Generates the component discovery of provided application.
+     * <p>
+     * Each definition assigns created components to their declaring fields through a variable handle, since the fields may be
+     * private to the application.
+     * </p>
+     *
+     * @param application The application type.
+     */
+    private void generateComponentDiscovery(TypeElement application) {
+        var definitions = new ArrayList<String>();
+        for (VariableElement field : ElementFilter.fieldsIn(application.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC) || field.asType().getKind() != TypeKind.DECLARED)
+                continue;
+
+            var type = (TypeElement) ((DeclaredType) field.asType()).asElement();
+            if (!COMPONENT.equals(superclassName(type)))
+                continue;
+
+            var dependencies = new ArrayList<String>();
+            dependencies.addAll(classValues(annotationOf(type, DEPENDS_ON)));
+            dependencies.addAll(classValues(annotationOf(field, DEPENDS_ON)));
+
+            definitions.add(String.format("new %s(\"%s\", %s.class, %s::new, injector(\"%s\", %s.class), java.util.List.of(%s), %s, %s)",
+                    COMPONENT_DEFINITION, field.getSimpleName(), type.getQualifiedName(), type.getQualifiedName(), field.getSimpleName(), type.getQualifiedName(),
+                    dependencies.stream().map(name -> name + ".class").collect(Collectors.joining(", ")),
+                    intValue(annotationOf(field, START_ORDER)), intValue(annotationOf(field, STOP_ORDER))));
+        }
+
+        var packageName = processingEnv.getElementUtils().getPackageOf(application).getQualifiedName().toString();
+        var simpleName = application.getSimpleName() + "ComponentDiscovery";
+        var source = new StringBuilder()
+                .append("    @Override\n")
+                .append("    public Class<? extends ir.annotation.waiter.core.application.Application> getApplication() {\n")
+                .append("        return ").append(application.getQualifiedName()).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<").append(COMPONENT_DEFINITION).append("> getComponents() {\n")
+                .append("        return java.util.List.of(\n")
+                .append(definitions.stream().map(definition -> "                " + definition).collect(Collectors.joining(",\n")))
+                .append("\n        );\n")
+                .append("    }\n\n")
+                .append("    private static java.util.function.BiConsumer<").append(APPLICATION).append(", ").append(COMPONENT).append("> injector(String name, Class<?> type) {\n")
+                .append("        try {\n")
+                .append("            var field = java.lang.invoke.MethodHandles.privateLookupIn(").append(application.getQualifiedName()).append(".class, java.lang.invoke.MethodHandles.lookup())\n")
+                .append("                    .findVarHandle(").append(application.getQualifiedName()).append(".class, name, type);\n")
+                .append("            return (application, component) -> field.set(application, component);\n")
+                .append("        } catch (ReflectiveOperationException e) {\n")
+                .append("            throw new IllegalStateException(e);\n")
+                .append("        }\n")
+                .append("    }\n");
+
+        writeSource(packageName, simpleName, COMPONENT_DISCOVERY, source.toString(), application);
+    }
+
+    /**
+     * Generates the procedure discovery of provided procedures.
+     * <p>
+     * Constructor parameters of a procedure must be other discoverable procedures; they are instantiated first and passed in.
+     * </p>
+     *
+     * @param procedures The procedure types, sorted by name.
+     */
+    private void generateProcedureDiscovery(List<TypeElement> procedures) {
+        var byName = new LinkedHashMap<String, TypeElement>();
+        procedures.forEach(procedure -> byName.put(procedure.getQualifiedName().toString(), procedure));
+
+        var constructors = new HashMap<String, List<String>>();
+        for (TypeElement procedure : procedures) {
+            var constructor = publicConstructor(procedure);
+            if (constructor == null || !isSubclassOf(procedure, ABSTRACT_PROCEDURE) || procedure.getModifiers().contains(Modifier.ABSTRACT)
+                    || !procedure.getModifiers().contains(Modifier.PUBLIC)) {
+                error(procedure, "discoverable procedure must be a public non abstract procedure with exactly one public constructor");
+                return;
+            }
+
+            var parameters = new ArrayList<String>();
+            for (VariableElement parameter : constructor.getParameters()) {
+                var name = parameter.asType().getKind() == TypeKind.DECLARED ? ((TypeElement) ((DeclaredType) parameter.asType()).asElement()).getQualifiedName().toString() : "";
+                if (!byName.containsKey(name)) {
+                    error(parameter, "constructor parameter of discoverable procedure must be a discoverable procedure");
+                    return;
+                }
+                parameters.add(name);
+            }
+            constructors.put(procedure.getQualifiedName().toString(), parameters);
+        }
+
+        var variables = new LinkedHashMap<String, String>();
+        for (String name : byName.keySet()) {
+            if (!instantiationOrder(name, constructors, variables, new HashSet<>())) {
+                error(byName.get(name), "dependency cycle detected between discoverable procedures");
+                return;
+            }
+        }
+
+        var source = new StringBuilder()
+                .append("    @Override\n")
+                .append("    public java.util.List<").append(ABSTRACT_PROCEDURE).append("<?, ?>> getProcedures() throws Exception {\n");
+        variables.forEach((name, variable) -> source
+                .append("        var ").append(variable).append(" = new ").append(name).append("(")
+                .append(constructors.get(name).stream().map(variables::get).collect(Collectors.joining(", ")))
+                .append(");\n"));
+        source.append("\n        return java.util.List.of(").append(String.join(", ", variables.values())).append(");\n")
+                .append("    }\n");
+
+        var first = procedures.get(0);
+        var packageName = processingEnv.getElementUtils().getPackageOf(first).getQualifiedName().toString();
+        writeSource(packageName, "GeneratedProcedureDiscovery", PROCEDURE_DISCOVERY, source.toString(), procedures.toArray(Element[]::new));
+    }
+
+    /**
+     * Adds provided procedure and, before it, its constructor dependencies to instantiation order.
+     *
+     * @param name         The procedure name.
+     * @param constructors Constructor parameter types, keyed by procedure names.
+     * @param variables    Variable names in instantiation order, keyed by procedure names.
+     * @param visiting     Procedures that are being ordered on current path, used to detect cycles.
+     * @return {@code false} if a dependency cycle is detected.
+     */
+    private boolean instantiationOrder(String name, Map<String, List<String>> constructors, Map<String, String> variables, Set<String> visiting) {
+        if (variables.containsKey(name))
+            return true;
+        if (!visiting.add(name))
+            return false;
+
+        for (String parameter : constructors.get(name)) {
+            if (!instantiationOrder(parameter, constructors, variables, visiting))
+                return false;
+        }
+
+        visiting.remove(name);
+        variables.put(name, "procedure" + variables.size());
+        return true;
+    }
+
+    /**
+     * Writes a generated provider class and remembers it for service registration.
+     *
+     * @param packageName      The package of generated class.
+     * @param simpleName       The simple name of generated class.
+     * @param serviceName      The implemented service interface.
+     * @param body             The class body.
+     * @param originatingTypes The types that generated class is derived from.
+     */
+    private void writeSource(String packageName, String simpleName, String serviceName, String body, Element... originatingTypes) {
+        var qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (var writer = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, originatingTypes).openWriter())) {
+            if (!packageName.isEmpty())
+                writer.println("package " + packageName + ";\n");
+            writer.println("@javax.annotation.processing.Generated(\"" + DiscoveryProcessor.class.getName() + "\")");
+            writer.println("public final class " + simpleName + " implements " + serviceName + " {\n");
+            writer.print(body);
+            writer.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "generating " + qualifiedName + " failed with message " + e.getMessage());
+            return;
+        }
+
+        providers.computeIfAbsent(serviceName, key -> new TreeSet<>()).add(qualifiedName);
+    }
+
+    /**
+     * Registers generated providers as {@link java.util.ServiceLoader} service implementations.
+     */
+    private void writeProviders() {
+        providers.forEach((serviceName, implementations) -> {
+            try (var writer = new PrintWriter(processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + serviceName).openWriter())) {
+                implementations.forEach(writer::println);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "registering " + serviceName + " providers failed with message " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Returns back the only public constructor of provided type.
+     *
+     * @param type The type.
+     * @return The public constructor, or {@code null} if there is none or more than one.
+     */
+    private ExecutableElement publicConstructor(TypeElement type) {
+        var constructors = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .filter(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC))
+                .collect(Collectors.toList());
+
+        return constructors.size() == 1 ? constructors.get(0) : null;
+    }
+
+    /**
+     * Checks whether provided type extends, directly or not, a class with provided name.
+     *
+     * @param type          The type.
+     * @param qualifiedName The name of super class.
+     * @return {@code true} if provided type is a subclass.
+     */
+    private boolean isSubclassOf(TypeElement type, String qualifiedName) {
+        for (var current = type; current != null; current = superclassOf(current)) {
+            if (qualifiedName.equals(superclassName(current)))
+                return true;
+        }
+
+        return false;
+    }
+
+    private String superclassName(TypeElement type) {
+        var superclass = superclassOf(type);
+        return superclass == null ? null : superclass.getQualifiedName().toString();
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        var superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private AnnotationMirror annotationOf(Element element, String qualifiedName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(qualifiedName))
+                return mirror;
+        }
+
+        return null;
+    }
+
+    private AnnotationValue valueOf(AnnotationMirror mirror) {
+        for (var entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value"))
+                return entry.getValue();
+        }
+
+        return null;
+    }
+
+    private String intValue(AnnotationMirror mirror) {
+        var value = mirror == null ? null : valueOf(mirror);
+        return value == null ? "null" : value.getValue().toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> classValues(AnnotationMirror mirror) {
+        var value = mirror == null ? null : valueOf(mirror);
+        if (value == null)
+            return List.of();
+
+        var values = value.getValue() instanceof List ? (List<? extends AnnotationValue>) value.getValue() : List.of(value);
+        return values.stream()
+                .map(element -> (TypeMirror) element.getValue())
+                .map(type -> ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString())
+                .collect(Collectors.toList());
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
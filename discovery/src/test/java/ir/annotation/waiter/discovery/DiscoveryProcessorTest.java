@@ -0,0 +1,116 @@
+package ir.annotation.waiter.discovery;
+
+import ir.annotation.waiter.core.application.Application;
+import ir.annotation.waiter.core.application.ComponentDefinition;
+import ir.annotation.waiter.core.application.ComponentDiscovery;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DiscoveryProcessorTest {
+    private static final String COMPONENT = "package fixture;\n" +
+            "\n" +
+            "public class Cache extends ir.annotation.waiter.core.application.Component<Cache> {\n" +
+            "    public Cache() { super(\"cache\"); }\n" +
+            "    protected Cache setup(java.util.Properties properties) { return this; }\n" +
+            "    protected void start() {}\n" +
+            "    protected void stop() {}\n" +
+            "}\n";
+
+    private static final String DEPENDENT = "package fixture;\n" +
+            "\n" +
+            "@ir.annotation.waiter.core.application.annotation.DependsOn(Cache.class)\n" +
+            "public class Store extends ir.annotation.waiter.core.application.Component<Store> {\n" +
+            "    public Store() { super(\"store\"); }\n" +
+            "    protected Store setup(java.util.Properties properties) { return this; }\n" +
+            "    protected void start() {}\n" +
+            "    protected void stop() {}\n" +
+            "}\n";
+
+    private static final String APPLICATION = "package fixture;\n" +
+            "\n" +
+            "public final class App extends ir.annotation.waiter.core.application.Application {\n" +
+            "    private Cache cache;\n" +
+            "\n" +
+            "    @ir.annotation.waiter.core.application.annotation.StopOrder(2)\n" +
+            "    private Store store;\n" +
+            "\n" +
+            "    private static Cache ignored;\n" +
+            "}\n";
+
+    private static Path sources;
+    private static Path classes;
+
+    @BeforeClass
+    public static void compileFixture() throws IOException {
+        sources = Files.createTempDirectory("discovery-sources");
+        classes = Files.createTempDirectory("discovery-classes");
+
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        var options = List.of("-d", classes.toString(), "-s", sources.toString(), "-classpath", System.getProperty("java.class.path"));
+        var task = compiler.getTask(null, null, diagnostics, options, null,
+                List.of(source("fixture.Cache", COMPONENT), source("fixture.Store", DEPENDENT), source("fixture.App", APPLICATION)));
+        task.setProcessors(List.of(new DiscoveryProcessor()));
+
+        assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+    }
+
+    @Test
+    public void testComponentDiscoveryIsGeneratedForApplication() throws IOException {
+        var generated = Files.readString(sources.resolve("fixture/AppComponentDiscovery.java"));
+
+        assertTrue(generated.contains("return fixture.App.class;"));
+        assertTrue(generated.contains("new ir.annotation.waiter.core.application.ComponentDefinition(\"cache\", fixture.Cache.class, fixture.Cache::new, injector(\"cache\", fixture.Cache.class), java.util.List.of(), null, null)"));
+        assertTrue(generated.contains("new ir.annotation.waiter.core.application.ComponentDefinition(\"store\", fixture.Store.class, fixture.Store::new, injector(\"store\", fixture.Store.class), java.util.List.of(fixture.Cache.class), null, 2)"));
+        assertFalse(generated.contains("\"ignored\""));
+    }
+
+    @Test
+    public void testGeneratedDiscoveryIsRegisteredAsServiceProvider() throws IOException {
+        var services = Files.readString(classes.resolve("META-INF/services/" + ComponentDiscovery.class.getName()));
+
+        assertEquals("fixture.AppComponentDiscovery", services.trim());
+    }
+
+    @Test
+    public void testGeneratedDefinitionsInjectComponentsIntoPrivateFields() throws Exception {
+        try (var loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader())) {
+            var discovery = (ComponentDiscovery) loader.loadClass("fixture.AppComponentDiscovery").getConstructor().newInstance();
+            var applicationType = loader.loadClass("fixture.App");
+            var application = (Application) applicationType.getDeclaredConstructor().newInstance();
+
+            assertEquals(2, discovery.getComponents().size());
+            for (ComponentDefinition definition : discovery.getComponents()) {
+                var component = definition.getFactory().get();
+                definition.getInjector().accept(application, component);
+
+                var field = applicationType.getDeclaredField(definition.getName());
+                field.setAccessible(true);
+                assertSame(component, field.get(application));
+            }
+        }
+    }
+
+    private static JavaFileObject source(String name, String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
@@ -0,0 +1,291 @@
+package ir.annotation.waiter.benchmark;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import ir.annotation.waiter.server.codec.FieldReader;
+import ir.annotation.waiter.server.codec.FieldWriter;
+import ir.annotation.waiter.server.codec.MapDecoder;
+import ir.annotation.waiter.server.codec.MapEncoder;
+import ir.annotation.waiter.server.util.MessageWriter;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.core.buffer.ArrayBufferInput;
+import org.msgpack.value.Value;
+import org.msgpack.value.ValueFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.Locale;
+
+import static ir.annotation.waiter.procedure.PublicPrivateKeyPairGenerator.GenerateKeyPairRequest;
+import static ir.annotation.waiter.procedure.RandomNumberGenerator.GenerateRandomNumberRequest;
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+
+/**
+ * Compares codecs generated by {@link MapDecoder} and {@link MapEncoder} with a reflective mapping over message pack's value
+ * trees, the way a generic binder without generated code maps messages to procedure request and response types.
+ * <p>
+ * Both sides create requests by the same factories, sharing one source of randomness, so only mapping is measured. Reports
+ * the best time and allocated bytes per operation of measured rounds. Run it by {@code gradle codecBenchmark}.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class CodecBenchmark {
+    /**
+     * Source of randomness shared by created requests.
+     */
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * Allocator of encoded messages.
+     */
+    private static final ByteBufAllocator allocator = new UnpooledByteBufAllocator(false);
+
+    /**
+     * Number of warm-up and measured rounds.
+     */
+    private static final int WARM_UP_ROUNDS = 5, MEASURED_ROUNDS = 5;
+
+    /**
+     * Consumes results, so operations are not eliminated by JIT.
+     */
+    private static volatile int sink;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional number of operations per round.
+     * @throws Exception If an operation failed.
+     */
+    public static void main(String[] args) throws Exception {
+        var operations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        var input = new ArrayBufferInput(new byte[0]);
+        var unpacker = MessagePack.newDefaultUnpacker(input);
+
+        var randomNumberArguments = pack(map(string("from"), integer(1), string("to"), integer(6)));
+        var randomNumberDecoder = MapDecoder.builder(GenerateRandomNumberRequest.class)
+                .field("from", FieldReader.INT)
+                .field("to", FieldReader.INT)
+                .build(MethodHandles.lookup(), "randomNumberRequest");
+        var randomNumberMapping = new ReflectiveMapping(CodecBenchmark.class.getDeclaredMethod("randomNumberRequest", int.class, int.class), "from", "to");
+        compare("decode generate_random_number arguments", operations,
+                () -> randomNumberDecoder.decode(reset(unpacker, input, randomNumberArguments)),
+                () -> randomNumberMapping.decode(randomNumberArguments));
+
+        var keyPairArguments = pack(map(string("algo"), string("RSA"), string("size"), integer(2048)));
+        var keyPairDecoder = MapDecoder.builder(GenerateKeyPairRequest.class)
+                .field("algo", FieldReader.enumeration(GenerateKeyPairRequest.Algorithm.class))
+                .field("size", FieldReader.INT.map(GenerateKeyPairRequest.KeySize.class, size -> GenerateKeyPairRequest.KeySize.valueOf("_" + size)))
+                .build(MethodHandles.lookup(), "keyPairRequest");
+        var keyPairMapping = new ReflectiveMapping(CodecBenchmark.class.getDeclaredMethod("keyPairRequest", GenerateKeyPairRequest.Algorithm.class, GenerateKeyPairRequest.KeySize.class), "algo", "size");
+        compare("decode generate_public_private_key_pair arguments", operations,
+                () -> keyPairDecoder.decode(reset(unpacker, input, keyPairArguments)),
+                () -> keyPairMapping.decode(keyPairArguments));
+
+        var keyPair = KeyPairGenerator.getInstance("EC").generateKeyPair();
+        var keyPairEncoder = MapEncoder.builder(KeyPair.class)
+                .field("publ", "getPublic", FieldWriter.KEY)
+                .field("priv", "getPrivate", FieldWriter.KEY)
+                .build();
+        var getters = new Method[]{KeyPair.class.getMethod("getPublic"), KeyPair.class.getMethod("getPrivate")};
+        compare("encode generate_public_private_key_pair result", operations,
+                () -> {
+                    try (var writer = new MessageWriter(allocator)) {
+                        keyPairEncoder.encode(keyPair, writer);
+                        var buffer = writer.finish();
+                        var size = buffer.readableBytes();
+                        buffer.release();
+                        return size;
+                    }
+                },
+                () -> {
+                    var fields = new Value[getters.length * 2];
+                    fields[0] = string("publ");
+                    fields[1] = bytes(((Key) getters[0].invoke(keyPair)).getEncoded());
+                    fields[2] = string("priv");
+                    fields[3] = bytes(((Key) getters[1].invoke(keyPair)).getEncoded());
+                    var bytes = pack(map(fields));
+                    var buffer = allocator.buffer(bytes.length).writeBytes(bytes);
+                    var size = buffer.readableBytes();
+                    buffer.release();
+                    return size;
+                });
+    }
+
+    /**
+     * Measures generated and reflective operations and prints their results.
+     *
+     * @param name       Name of compared operations.
+     * @param operations Number of operations per round.
+     * @param generated  Operation of generated codec.
+     * @param reflective Operation of reflective mapping.
+     * @throws Exception If an operation failed.
+     */
+    private static void compare(String name, int operations, Operation generated, Operation reflective) throws Exception {
+        var generatedResult = measure(operations, generated);
+        var reflectiveResult = measure(operations, reflective);
+        System.out.println(name);
+        System.out.printf(Locale.ROOT, "  generated  %8.1f ns/op %8.0f B/op%n", generatedResult[0], generatedResult[1]);
+        System.out.printf(Locale.ROOT, "  reflective %8.1f ns/op %8.0f B/op%n", reflectiveResult[0], reflectiveResult[1]);
+    }
+
+    /**
+     * Runs warm-up rounds and measured rounds of an operation.
+     *
+     * @param operations Number of operations per round.
+     * @param operation  The operation.
+     * @return Best time in nanoseconds and allocated bytes per operation of measured rounds.
+     * @throws Exception If operation failed.
+     */
+    private static double[] measure(int operations, Operation operation) throws Exception {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var thread = Thread.currentThread().getId();
+        var best = new double[]{Double.MAX_VALUE, Double.MAX_VALUE};
+
+        for (int round = 0; round < WARM_UP_ROUNDS + MEASURED_ROUNDS; round++) {
+            var allocated = threads.getThreadAllocatedBytes(thread);
+            var startTime = System.nanoTime();
+            for (int i = 0; i < operations; i++)
+                sink += operation.run().hashCode();
+            var time = (double) (System.nanoTime() - startTime) / operations;
+            var bytes = (double) (threads.getThreadAllocatedBytes(thread) - allocated) / operations;
+
+            if (round >= WARM_UP_ROUNDS) {
+                best[0] = Math.min(best[0], time);
+                best[1] = Math.min(best[1], bytes);
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Creates a request of random number generator procedure.
+     *
+     * @param from The lower bound.
+     * @param to   The upper bound.
+     * @return Newly created request.
+     */
+    private static GenerateRandomNumberRequest randomNumberRequest(int from, int to) {
+        return new GenerateRandomNumberRequest(random, from, to);
+    }
+
+    /**
+     * Creates a request of public private key pair generator procedure.
+     *
+     * @param algorithm The algorithm.
+     * @param keySize   The key size.
+     * @return Newly created request.
+     */
+    private static GenerateKeyPairRequest keyPairRequest(GenerateKeyPairRequest.Algorithm algorithm, GenerateKeyPairRequest.KeySize keySize) {
+        return new GenerateKeyPairRequest(random, algorithm, keySize);
+    }
+
+    /**
+     * Resets provided unpacker to read provided bytes, the way channels reuse their arguments unpacker.
+     *
+     * @param unpacker The unpacker.
+     * @param input    Input of the unpacker.
+     * @param bytes    Packed bytes.
+     * @return The unpacker.
+     * @throws Exception If unpacker could not be reset.
+     */
+    private static MessageUnpacker reset(MessageUnpacker unpacker, ArrayBufferInput input, byte[] bytes) throws Exception {
+        input.reset(bytes);
+        unpacker.reset(input);
+        return unpacker;
+    }
+
+    /**
+     * Packs provided value.
+     *
+     * @param value The value.
+     * @return Packed value.
+     * @throws Exception If packing failed.
+     */
+    private static byte[] pack(Value value) throws Exception {
+        try (var packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packValue(value);
+            return packer.toByteArray();
+        }
+    }
+
+    /**
+     * A benchmarked operation.
+     *
+     * @author Alireza Pourtaghi
+     */
+    @FunctionalInterface
+    private interface Operation {
+
+        /**
+         * Runs the operation once.
+         *
+         * @return Result of the operation.
+         * @throws Exception If operation failed.
+         */
+        Object run() throws Exception;
+    }
+
+    /**
+     * Reflective mapping of value trees to factory parameters, converted by their declared types.
+     *
+     * @author Alireza Pourtaghi
+     */
+    private static final class ReflectiveMapping {
+        /**
+         * The factory of mapped instances.
+         */
+        private final Method factory;
+
+        /**
+         * Keys of fields, in order of factory parameters.
+         */
+        private final Value[] keys;
+
+        /**
+         * Constructor to create an instance of this mapping.
+         *
+         * @param factory The factory of mapped instances.
+         * @param names   Names of fields, in order of factory parameters.
+         */
+        private ReflectiveMapping(Method factory, String... names) {
+            this.factory = factory;
+            this.factory.setAccessible(true);
+            this.keys = new Value[names.length];
+            for (int i = 0; i < names.length; i++)
+                keys[i] = ValueFactory.newString(names[i]);
+        }
+
+        /**
+         * Unpacks a value tree and maps it to an instance.
+         *
+         * @param bytes Packed map.
+         * @return Mapped instance.
+         * @throws Exception If unpacking or mapping failed.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object decode(byte[] bytes) throws Exception {
+            var fields = MessagePack.newDefaultUnpacker(bytes).unpackValue().asMapValue().map();
+            var types = factory.getParameterTypes();
+            var arguments = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                var value = fields.get(keys[i]);
+                if (types[i] == int.class)
+                    arguments[i] = value.asIntegerValue().toInt();
+                else if (types[i].isEnum())
+                    arguments[i] = Enum.valueOf((Class) types[i], value.isIntegerValue() ? "_" + value.asIntegerValue().toInt() : value.asStringValue().asString());
+                else
+                    arguments[i] = value.asStringValue().asString();
+            }
+
+            return factory.invoke(null, arguments);
+        }
+    }
+}
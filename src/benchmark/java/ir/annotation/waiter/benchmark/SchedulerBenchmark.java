@@ -0,0 +1,120 @@
+package ir.annotation.waiter.benchmark;
+
+import ir.annotation.waiter.metrics.Histogram;
+import ir.annotation.waiter.processor.PriorityScheduler;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority;
+
+/**
+ * Compares queueing latency of high priority calls on {@link PriorityScheduler} with a FIFO thread pool of the same size,
+ * under a mixed workload.
+ * <p>
+ * Calls arrive open loop with exponential inter-arrival times: a fifth are short high priority calls and the rest are long low
+ * priority calls, at about 90% utilisation of the workers. Calls park for their service time instead of spinning, so results
+ * depend on the queueing discipline rather than on the number of cores. Latency is measured from submission to completion.
+ * Run it by {@code gradle schedulerBenchmark}.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class SchedulerBenchmark {
+    /**
+     * Number of worker threads of both executors.
+     */
+    private static final int WORKERS = 4;
+
+    /**
+     * Service times of high and low priority calls in nanoseconds.
+     */
+    private static final long HIGH_SERVICE_TIME = TimeUnit.MICROSECONDS.toNanos(100), LOW_SERVICE_TIME = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /**
+     * Ratio of high priority calls.
+     */
+    private static final double HIGH_RATIO = 0.2;
+
+    /**
+     * Target utilisation of workers.
+     */
+    private static final double UTILISATION = 0.9;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional number of calls per executor.
+     * @throws InterruptedException If interrupted while waiting for calls.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        var calls = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+
+        var fifo = Executors.newFixedThreadPool(WORKERS);
+        measure("fifo thread pool", fifo, fifo, calls);
+        fifo.shutdown();
+
+        var scheduler = new PriorityScheduler(WORKERS, 100);
+        scheduler.start();
+        measure("priority scheduler", scheduler.executor(Priority.HIGH), scheduler.executor(Priority.LOW), calls);
+        scheduler.shutdown();
+    }
+
+    /**
+     * Submits calls of the mixed workload and prints latency percentiles of each priority.
+     *
+     * @param name  Name of the executor.
+     * @param high  Executor of high priority calls.
+     * @param low   Executor of low priority calls.
+     * @param calls Number of calls.
+     * @throws InterruptedException If interrupted while waiting for calls.
+     */
+    private static void measure(String name, ExecutorService high, ExecutorService low, int calls) throws InterruptedException {
+        var random = new SplittableRandom(42);
+        var meanServiceTime = HIGH_RATIO * HIGH_SERVICE_TIME + (1 - HIGH_RATIO) * LOW_SERVICE_TIME;
+        var meanInterArrivalTime = meanServiceTime / (WORKERS * UTILISATION);
+        var highLatency = new Histogram(TimeUnit.SECONDS.toNanos(10));
+        var lowLatency = new Histogram(TimeUnit.SECONDS.toNanos(10));
+        var done = new CountDownLatch(calls);
+
+        var arrivalTime = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            arrivalTime += (long) (-Math.log(1 - random.nextDouble()) * meanInterArrivalTime);
+            while (System.nanoTime() < arrivalTime)
+                LockSupport.parkNanos(arrivalTime - System.nanoTime());
+
+            var isHigh = random.nextDouble() < HIGH_RATIO;
+            var serviceTime = isHigh ? HIGH_SERVICE_TIME : LOW_SERVICE_TIME;
+            var latency = isHigh ? highLatency : lowLatency;
+            var submitTime = System.nanoTime();
+            (isHigh ? high : low).execute(() -> {
+                var end = System.nanoTime() + serviceTime;
+                while (System.nanoTime() < end)
+                    LockSupport.parkNanos(end - System.nanoTime());
+
+                latency.record(System.nanoTime() - submitTime);
+                done.countDown();
+            });
+        }
+        done.await();
+
+        System.out.println(name);
+        report("high priority", highLatency.snapshot());
+        report("low priority", lowLatency.snapshot());
+    }
+
+    /**
+     * Prints latency percentiles.
+     *
+     * @param name     Name of the priority.
+     * @param snapshot Latency snapshot.
+     */
+    private static void report(String name, Histogram.Snapshot snapshot) {
+        System.out.printf(Locale.ROOT, "  %-14s p50 %7.2f ms, p99 %7.2f ms%n", name, snapshot.getValueAtPercentile(50) / 1e6, snapshot.getValueAtPercentile(99) / 1e6);
+    }
+}
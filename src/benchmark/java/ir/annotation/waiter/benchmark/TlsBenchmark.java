@@ -0,0 +1,179 @@
+package ir.annotation.waiter.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import ir.annotation.waiter.server.TlsContextFactory;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.Properties;
+
+import static io.netty.handler.ssl.ApplicationProtocolConfig.*;
+
+/**
+ * Measures handshake rate and record throughput of server side TLS context built by {@link TlsContextFactory}.
+ * <p>
+ * Client and server handlers run in embedded channels of one thread that hand records to each other, so network is not
+ * measured. Full handshakes use client engines without peer address, which never resume; resumed handshakes reuse the
+ * session of a previous handshake with the same peer address, from server's session cache or a session ticket. Reports the
+ * best rate of measured rounds. Run it by {@code gradle tlsBenchmark}, optionally passing certificate and private key files.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class TlsBenchmark {
+    /**
+     * Number of warm-up and measured rounds.
+     */
+    private static final int WARM_UP_ROUNDS = 3, MEASURED_ROUNDS = 5;
+
+    /**
+     * Size of written messages in bytes, as large as a TLS record.
+     */
+    private static final int MESSAGE_SIZE = 16 * 1024;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional certificate chain and private key files, and TLS protocol version.
+     * @throws Exception If a handshake failed.
+     */
+    public static void main(String[] args) throws Exception {
+        var certificate = args.length > 1 ? args[0] : "src/test/resources/tls/certificate.pem";
+        var privateKey = args.length > 1 ? args[1] : "src/test/resources/tls/private-key.pem";
+        var protocol = args.length > 2 ? args[2] : "TLSv1.3";
+
+        var properties = new Properties();
+        properties.setProperty("server.tls.enabled", "true");
+        properties.setProperty("server.tls.certificate", certificate);
+        properties.setProperty("server.tls.private-key", privateKey);
+        properties.setProperty("server.tls.protocols", protocol);
+        var server = TlsContextFactory.create(properties).orElseThrow();
+        var client = SslContextBuilder.forClient()
+                .sslProvider(SslProvider.JDK)
+                .protocols(protocol)
+                .trustManager(new File(certificate))
+                .applicationProtocolConfig(new ApplicationProtocolConfig(Protocol.ALPN, SelectorFailureBehavior.NO_ADVERTISE, SelectedListenerFailureBehavior.ACCEPT, "waiter/1"))
+                .build();
+
+        System.out.println(protocol + " with " + server.cipherSuites().get(0) + " first in cipher suites");
+        report("full handshakes", "handshakes/s", measure(200, () -> close(handshake(server, client, false))));
+        close(handshake(server, client, true));
+        report("resumed handshakes", "handshakes/s", measure(1000, () -> close(handshake(server, client, true))));
+
+        var channels = handshake(server, client, false);
+        var message = Unpooled.unreleasableBuffer(Unpooled.directBuffer(MESSAGE_SIZE).writeZero(MESSAGE_SIZE));
+        var messages = 4096;
+        var rate = measure(messages, () -> {
+            channels[0].writeOutbound(message.duplicate());
+            transfer(channels[0], channels[1]);
+            for (ByteBuf received; (received = channels[1].readInbound()) != null; )
+                received.release();
+        });
+        report("client to server records", "MiB/s", rate * MESSAGE_SIZE / (1024 * 1024));
+        close(channels);
+    }
+
+    /**
+     * Runs warm-up rounds and measured rounds of an operation.
+     *
+     * @param operations Number of operations per round.
+     * @param operation  The operation.
+     * @return Best rate of operations per second of measured rounds.
+     * @throws Exception If operation failed.
+     */
+    private static double measure(int operations, Operation operation) throws Exception {
+        var best = 0.0;
+        for (int round = 0; round < WARM_UP_ROUNDS + MEASURED_ROUNDS; round++) {
+            var startTime = System.nanoTime();
+            for (int i = 0; i < operations; i++)
+                operation.run();
+            var rate = operations * 1e9 / (System.nanoTime() - startTime);
+
+            if (round >= WARM_UP_ROUNDS)
+                best = Math.max(best, rate);
+        }
+
+        return best;
+    }
+
+    /**
+     * Prints a measured rate.
+     *
+     * @param name The name of measured operation.
+     * @param unit The unit of rate.
+     * @param rate The rate.
+     */
+    private static void report(String name, String unit, double rate) {
+        System.out.printf(Locale.ROOT, "  %-26s %10.1f %s%n", name, rate, unit);
+    }
+
+    /**
+     * Connects a client channel to a server channel and completes their handshake, including session tickets sent afterwards.
+     *
+     * @param server  The server side context.
+     * @param client  The client side context.
+     * @param resumed Whether client can resume a session of previous handshakes.
+     * @return Client and server channels.
+     */
+    private static EmbeddedChannel[] handshake(SslContext server, SslContext client, boolean resumed) {
+        var serverChannel = new EmbeddedChannel();
+        var serverHandler = server.newHandler(serverChannel.alloc());
+        serverChannel.pipeline().addLast(serverHandler);
+        var clientChannel = new EmbeddedChannel();
+        var clientHandler = resumed ? client.newHandler(clientChannel.alloc(), "localhost", 9000) : client.newHandler(clientChannel.alloc());
+        clientChannel.pipeline().addLast(clientHandler);
+
+        while (transfer(clientChannel, serverChannel) | transfer(serverChannel, clientChannel))
+            ;
+        if (!clientHandler.handshakeFuture().isSuccess() || !serverHandler.handshakeFuture().isSuccess())
+            throw new IllegalStateException("handshake failed", clientHandler.handshakeFuture().cause());
+
+        return new EmbeddedChannel[]{clientChannel, serverChannel};
+    }
+
+    /**
+     * Hands outbound records of a channel to another channel.
+     *
+     * @param from The channel that wrote records.
+     * @param to   The channel that reads records.
+     * @return Whether any record was handed.
+     */
+    private static boolean transfer(EmbeddedChannel from, EmbeddedChannel to) {
+        var transferred = false;
+        for (ByteBuf buffer; (buffer = from.readOutbound()) != null; transferred = true)
+            to.writeInbound(buffer);
+        return transferred;
+    }
+
+    /**
+     * Closes connected channels without waiting for close notifications.
+     *
+     * @param channels Client and server channels.
+     */
+    private static void close(EmbeddedChannel[] channels) {
+        for (var channel : channels)
+            channel.finishAndReleaseAll();
+    }
+
+    /**
+     * A benchmarked operation.
+     *
+     * @author Alireza Pourtaghi
+     */
+    @FunctionalInterface
+    private interface Operation {
+
+        /**
+         * Runs the operation once.
+         *
+         * @throws Exception If operation failed.
+         */
+        void run() throws Exception;
+    }
+}
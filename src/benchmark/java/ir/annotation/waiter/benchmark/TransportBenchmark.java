@@ -0,0 +1,271 @@
+package ir.annotation.waiter.benchmark;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import ir.annotation.waiter.Main;
+import ir.annotation.waiter.metrics.Histogram;
+import org.msgpack.core.MessageInsufficientBufferException;
+import org.msgpack.core.MessagePack;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+
+/**
+ * Compares latency and throughput of calls over loopback TCP with calls over the unix domain socket listener.
+ * <p>
+ * Boots the application with both listeners and calls {@code generate_SHA256_hash} with the same arguments, so calls are
+ * served from the result cache and mostly transport is measured. Latency is measured one call at a time; throughput with a
+ * window of calls in flight, as large as default in-flight budget of a channel. Client uses epoll transport, so the benchmark
+ * runs on Linux only. Run it by {@code gradle transportBenchmark}.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class TransportBenchmark {
+    /**
+     * Number of warm-up and measured rounds.
+     */
+    private static final int WARM_UP_ROUNDS = 3, MEASURED_ROUNDS = 5;
+
+    /**
+     * Number of calls in flight while measuring throughput.
+     */
+    private static final int WINDOW = 16;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional number of calls per round and TCP port of the application.
+     * @throws Exception If application did not start or a call failed.
+     */
+    public static void main(String[] args) throws Exception {
+        if (!Epoll.isAvailable())
+            throw new IllegalStateException("transport benchmark requires epoll native transport");
+
+        var calls = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        var port = args.length > 1 ? Integer.parseInt(args[1]) : 9000;
+        var directory = Files.createTempDirectory("waiter-benchmark");
+        var socketPath = directory.resolve("waiter.sock").toString();
+        var properties = directory.resolve("benchmark.properties");
+        Files.writeString(properties, String.join("\n",
+                "server.port=" + port,
+                "server.unix-socket-path=" + socketPath,
+                "application.properties-watch=false",
+                "tracing.sample-rate=0"
+        ));
+        Main.main(new String[]{"--properties", properties.toString()});
+
+        var request = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(pack(map(string("proc"), string("generate_SHA256_hash"), string("args"), bytes(new byte[64]))), pack(bytes(new byte[]{'\r', '\n', '\r', '\n'}))));
+        var group = new EpollEventLoopGroup(1);
+        try {
+            measure("loopback tcp", new Bootstrap().group(group).channel(EpollSocketChannel.class), new InetSocketAddress("127.0.0.1", port), request, calls);
+            measure("unix domain socket", new Bootstrap().group(group).channel(EpollDomainSocketChannel.class), new DomainSocketAddress(socketPath), request, calls);
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Measures latency and throughput of calls over a connection and prints their results.
+     *
+     * @param name      Name of the transport.
+     * @param bootstrap Bootstrap of the transport.
+     * @param address   Address of the listener.
+     * @param request   The packed request.
+     * @param calls     Number of calls per round.
+     * @throws Exception If a call failed.
+     */
+    private static void measure(String name, Bootstrap bootstrap, SocketAddress address, ByteBuf request, int calls) throws Exception {
+        var caller = new Caller(request);
+        var channel = bootstrap.handler(caller).connect(address).sync().channel();
+        try {
+            var latency = new Histogram(TimeUnit.SECONDS.toNanos(1));
+            var throughput = 0.0;
+            for (int round = 0; round < WARM_UP_ROUNDS + MEASURED_ROUNDS; round++) {
+                var roundLatency = round >= WARM_UP_ROUNDS ? latency : new Histogram(TimeUnit.SECONDS.toNanos(1));
+                caller.call(channel, calls, 1, roundLatency).get();
+
+                var startTime = System.nanoTime();
+                caller.call(channel, calls, WINDOW, null).get();
+                if (round >= WARM_UP_ROUNDS)
+                    throughput = Math.max(throughput, calls * 1e9 / (System.nanoTime() - startTime));
+            }
+
+            var snapshot = latency.snapshot();
+            System.out.println(name);
+            System.out.printf(Locale.ROOT, "  latency    p50 %6.1f us, p99 %6.1f us%n", snapshot.getValueAtPercentile(50) / 1e3, snapshot.getValueAtPercentile(99) / 1e3);
+            System.out.printf(Locale.ROOT, "  throughput %10.0f calls/s with %d in flight%n", throughput, WINDOW);
+        } finally {
+            channel.close().sync();
+        }
+    }
+
+    /**
+     * Packs provided value.
+     *
+     * @param value The value.
+     * @return Packed value.
+     * @throws IOException If packing failed.
+     */
+    private static byte[] pack(Value value) throws IOException {
+        try (var packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packValue(value);
+            return packer.toByteArray();
+        }
+    }
+
+    /**
+     * Client handler that splits received bytes into responses and keeps a window of calls in flight, on its event loop.
+     *
+     * @author Alireza Pourtaghi
+     */
+    private static final class Caller extends ByteToMessageDecoder {
+        /**
+         * The packed request.
+         */
+        private final ByteBuf request;
+
+        /**
+         * Copy of received bytes that responses are read from.
+         */
+        private byte[] scratch = new byte[4096];
+
+        /**
+         * Number of calls to send and to receive responses of, in current run.
+         */
+        private int unsent, unreceived;
+
+        /**
+         * Send times of calls in flight, used when latency is recorded.
+         */
+        private final long[] sendTimes = new long[WINDOW];
+
+        /**
+         * Number of sent and received calls of current run, indexing send times.
+         */
+        private int sent, received;
+
+        /**
+         * Histogram that latencies are recorded on, {@code null} if they are not recorded.
+         */
+        private Histogram latency;
+
+        /**
+         * Future of current run.
+         */
+        private CompletableFuture<Void> done;
+
+        /**
+         * Constructor to create an instance of this handler.
+         *
+         * @param request The packed request.
+         */
+        private Caller(ByteBuf request) {
+            this.request = request;
+        }
+
+        /**
+         * Makes provided number of calls, keeping a window of them in flight.
+         *
+         * @param channel The connected channel.
+         * @param calls   Number of calls.
+         * @param window  Number of calls in flight.
+         * @param latency Histogram that latencies are recorded on, {@code null} if they are not recorded.
+         * @return Future that is completed when all responses are received.
+         */
+        private CompletableFuture<Void> call(Channel channel, int calls, int window, Histogram latency) {
+            var done = new CompletableFuture<Void>();
+            channel.eventLoop().execute(() -> {
+                this.done = done;
+                this.latency = latency;
+                this.unsent = calls;
+                this.unreceived = calls;
+                this.sent = 0;
+                this.received = 0;
+                for (int i = 0; i < window; i++)
+                    send(channel);
+                channel.flush();
+            });
+            return done;
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws IOException {
+            var length = in.readableBytes();
+            if (scratch.length < length)
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            in.getBytes(in.readerIndex(), scratch, 0, length);
+
+            try (var unpacker = MessagePack.newDefaultUnpacker(scratch, 0, length)) {
+                var consumed = 0L;
+                try {
+                    while (unpacker.hasNext()) {
+                        unpacker.skipValue();
+                        consumed = unpacker.getTotalReadBytes();
+                        receive(ctx.channel());
+                    }
+                } catch (MessageInsufficientBufferException e) {
+                    // Rest of the response is not received yet.
+                }
+                in.skipBytes((int) consumed);
+            }
+            ctx.flush();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (done != null)
+                done.completeExceptionally(cause);
+            ctx.close();
+        }
+
+        /**
+         * Sends a call if any is left.
+         *
+         * @param channel The channel.
+         */
+        private void send(Channel channel) {
+            if (unsent == 0)
+                return;
+
+            unsent--;
+            sendTimes[sent++ % WINDOW] = System.nanoTime();
+            channel.write(request.duplicate());
+        }
+
+        /**
+         * Records a received response and sends next call.
+         *
+         * @param channel The channel.
+         */
+        private void receive(Channel channel) {
+            if (latency != null)
+                latency.record(System.nanoTime() - sendTimes[received % WINDOW]);
+            received++;
+            if (--unreceived == 0)
+                done.complete(null);
+            else
+                send(channel);
+        }
+    }
+}
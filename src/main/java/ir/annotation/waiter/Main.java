@@ -1,7 +1,11 @@
 package ir.annotation.waiter;
 
 import ir.annotation.waiter.core.application.Application;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.metrics.MetricsEndpoint;
+import ir.annotation.waiter.processor.Processor;
 import ir.annotation.waiter.server.Server;
+import ir.annotation.waiter.tracing.Tracer;
 
 /**
  * Main application class that includes main method.
@@ -10,7 +14,27 @@ import ir.annotation.waiter.server.Server;
  */
 public final class Main extends Application {
     /**
-     * {@link Server} component.
+     * {@link Metrics} component.
+     */
+    private Metrics metrics;
+
+    /**
+     * {@link MetricsEndpoint} component, depends on {@link Metrics} component.
+     */
+    private MetricsEndpoint metricsEndpoint;
+
+    /**
+     * {@link Tracer} component.
+     */
+    private Tracer tracer;
+
+    /**
+     * {@link Processor} component.
+     */
+    private Processor processor;
+
+    /**
+     * {@link Server} component, depends on {@link Processor}, {@link Metrics} and {@link Tracer} components.
      */
     private Server server;
 
@@ -1,21 +1,51 @@
 package ir.annotation.waiter.core.application;
 
+import ir.annotation.waiter.core.application.annotation.DependsOn;
 import ir.annotation.waiter.core.application.annotation.StartOrder;
 import ir.annotation.waiter.core.application.annotation.StopOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * An abstraction that is useful for being used on a class that is the entry point of an application running.
+ * <p>
+ * Components declared as fields are discovered at build time and started as a dependency graph; independent components start concurrently on a bounded
+ * pool, and components stop in reverse order of their dependencies.
+ * </p>
+ * <p>
+ * If the application is started with a properties file, the file is watched and changed properties are pushed to running
+ * components that implement {@link Reconfigurable}.
+ * </p>
  *
  * @author Alireza Pourtaghi
  */
@@ -24,8 +54,26 @@ public abstract class Application implements ContextAware {
 
     /**
      * Application specific properties. The default properties are empty.
+     * <p>
+     * Reloading replaces the reference instead of mutating loaded properties, so readers see either old or new properties as a whole.
+     * </p>
+     */
+    private volatile Properties properties = new Properties();
+
+    /**
+     * Set up components, each mapped to the components it depends on. Filled once components are set up, before any of them starts.
+     */
+    private final Map<Component, Set<Component>> dependencies = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * Started components that are annotated with {@link StopOrder}, mapped to their order.
+     */
+    private final Map<Component, Integer> stopOrders = new ConcurrentHashMap<>();
+
+    /**
+     * Watch service of properties file, {@code null} if properties file is not watched.
      */
-    private final Properties properties = new Properties();
+    private volatile WatchService propertiesWatchService;
 
     /**
      * Method that is called to start application.
@@ -34,10 +82,17 @@ public abstract class Application implements ContextAware {
      */
     protected void start(String[] args) {
         logger.info("starting application components ...");
+        var startTime = System.nanoTime();
         loadProperties(args);
         addShutdownHook();
-        startComponents();
-        logger.info("application components started successfully");
+        try {
+            startComponents();
+        } catch (Exception e) {
+            logger.error("starting application components failed with message {}", e.getMessage());
+            System.exit(-1);
+        }
+        logger.info("application components started successfully in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        watchProperties(args);
     }
 
     /**
@@ -45,6 +100,7 @@ public abstract class Application implements ContextAware {
      */
     protected void stop() {
         logger.info("stopping application components ...");
+        unwatchProperties();
         stopComponents();
         logger.info("application components stopped successfully");
     }
@@ -59,156 +115,489 @@ public abstract class Application implements ContextAware {
      */
     protected void loadProperties(String[] args) {
         try {
-            try (var resourceReader = ClassLoader.getSystemClassLoader().getResourceAsStream("application.properties")) {
-                if (resourceReader != null) {
-                    getProperties().load(resourceReader);
-                }
+            properties = readProperties(args);
+        } catch (Exception e) {
+            logger.error("loading application properties failed with message {}", e.getMessage());
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Reads application properties from application.properties file located on resources folder, overwritten by the file
+     * provided with --properties flag.
+     *
+     * @param args The arguments passed on application startup including options and flags.
+     * @return Newly read properties.
+     * @throws IOException If reading a properties file failed.
+     */
+    private Properties readProperties(String[] args) throws IOException {
+        var properties = new Properties();
+        try (var resourceReader = ClassLoader.getSystemClassLoader().getResourceAsStream("application.properties")) {
+            if (resourceReader != null) {
+                properties.load(resourceReader);
             }
+        }
+
+        if (args.length == 2 && args[0].equals("--properties")) {
+            logger.info("loading application properties from {} ...", args[1]);
+            try (var fileReader = new FileInputStream(Paths.get(args[1]).toFile())) {
+                properties.load(fileReader);
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Watches the properties file provided with --properties flag, if application.properties-watch property is enabled.
+     * <p>
+     * Changes are reloaded on a daemon thread after application.properties-watch-delay milliseconds, so a burst of file
+     * system events is applied once.
+     * </p>
+     *
+     * @param args The arguments passed on application startup including options and flags.
+     */
+    private void watchProperties(String[] args) {
+        if (args.length != 2 || !args[0].equals("--properties") || !Boolean.parseBoolean(getProperties().getOrDefault("application.properties-watch", "true").toString()))
+            return;
+
+        var file = Paths.get(args[1]).toAbsolutePath();
+        var delay = Long.parseLong(getProperties().getOrDefault("application.properties-watch-delay", "500").toString());
+        try {
+            var watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            propertiesWatchService = watchService;
 
-            if (args.length == 2 && args[0].equals("--properties")) {
-                logger.info("loading application properties from {} ...", args[1]);
-                try (var fileReader = new FileInputStream(Paths.get(args[1]).toFile())) {
-                    getProperties().load(fileReader);
+            var watcher = new Thread(() -> watch(watchService, file, delay, args), "properties-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            logger.info("watching {} for changes", file);
+        } catch (IOException e) {
+            logger.error("watching application properties failed with message {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Main loop of properties watcher thread, until the watch service is closed.
+     *
+     * @param watchService The watch service that properties file directory is registered on.
+     * @param file         The watched properties file.
+     * @param delay        Time in milliseconds to wait for more changes before reloading.
+     * @param args         The arguments passed on application startup including options and flags.
+     */
+    private void watch(WatchService watchService, Path file, long delay, String[] args) {
+        try {
+            while (true) {
+                var key = watchService.take();
+                var changed = key.pollEvents().stream().anyMatch(event -> file.getFileName().equals(event.context()));
+                key.reset();
+                if (!changed)
+                    continue;
+
+                Thread.sleep(delay);
+                for (var pending = watchService.poll(); pending != null; pending = watchService.poll()) {
+                    pending.pollEvents();
+                    pending.reset();
                 }
+
+                reloadProperties(args);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Application is stopping.
+        }
+    }
+
+    /**
+     * Stops watching properties file.
+     */
+    private void unwatchProperties() {
+        var watchService = propertiesWatchService;
+        if (watchService == null)
+            return;
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("closing properties watch service failed with message {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads application properties and pushes them to running components that implement {@link Reconfigurable}.
+     * <p>
+     * A component that rejects reloaded properties keeps its current configuration; other components are reconfigured anyway.
+     * </p>
+     *
+     * @param args The arguments passed on application startup including options and flags.
+     */
+    private void reloadProperties(String[] args) {
+        Properties reloaded;
+        try {
+            reloaded = readProperties(args);
         } catch (Exception e) {
-            logger.error("loading application properties failed with message {}", e.getMessage());
-            System.exit(-1);
+            logger.error("reloading application properties failed with message {}", e.getMessage());
+            return;
+        }
+
+        var current = getProperties();
+        var changes = new TreeSet<String>();
+        reloaded.stringPropertyNames().stream().filter(name -> !reloaded.get(name).equals(current.get(name))).forEach(changes::add);
+        current.stringPropertyNames().stream().filter(name -> !reloaded.containsKey(name)).forEach(changes::add);
+        if (changes.isEmpty())
+            return;
+
+        logger.info("application properties changed: {}", changes);
+        properties = reloaded;
+
+        List<Component> components;
+        synchronized (dependencies) {
+            components = new ArrayList<>(dependencies.keySet());
+        }
+        for (Component component : components) {
+            if (!(component instanceof Reconfigurable))
+                continue;
+
+            try {
+                ((Reconfigurable) component).reconfigure(reloaded);
+                logger.info("{} component reconfigured", component.getIdentifier());
+            } catch (Exception e) {
+                logger.error("reconfiguring {} component failed with message {}", component.getIdentifier(), e.getMessage());
+            }
         }
     }
 
     /**
      * Starts all components that are declared as fields on current application instance.
      * <p>
-     * Before starting the application instance, adds jvm shutdown hook for application.
+     * A component starts as soon as all of its dependencies are started, on a pool bounded by application.startup-parallelism property.
      * </p>
+     *
+     * @throws IllegalStateException If dependencies of components contain a cycle or a component depends on one that is not declared.
+     * @throws RuntimeException      If setting up a component failed.
      */
-    private void startComponents() {
-        instantiateDeclaredComponents().forEach(component -> {
-            component = (Component) component.setup(getProperties());
-            getContext().addThenStartComponent(component);
-        });
+    void startComponents() {
+        var definitions = componentDefinitions();
+        var components = instantiateDeclaredComponents(definitions);
+        var graph = resolveDependencies(definitions, components);
+
+        var parallelism = Integer.parseInt(getProperties().getOrDefault("application.startup-parallelism", "0").toString());
+        var pool = newPool("starter", parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism);
+        try {
+            var starts = new HashMap<Component, CompletableFuture<Void>>();
+            graph.keySet().forEach(component -> schedule(component, graph, starts, new HashSet<>(), pool, this::startComponent));
+            CompletableFuture.allOf(starts.values().toArray(CompletableFuture[]::new)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Stops all started components in reverse order of their dependencies.
+     * <p>
+     * Each component stop call is bounded by application.component-stop-timeout property; components that do not stop in time
+     * are abandoned so their dependencies can stop.
+     * </p>
+     */
+    void stopComponents() {
+        Map<Component, Set<Component>> graph;
+        synchronized (dependencies) {
+            graph = new LinkedHashMap<>(dependencies);
+        }
+        if (graph.isEmpty())
+            return;
+
+        var dependents = new LinkedHashMap<Component, Set<Component>>();
+        graph.keySet().forEach(component -> dependents.put(component, new LinkedHashSet<>()));
+        graph.forEach((component, componentDependencies) -> componentDependencies.forEach(dependency -> dependents.get(dependency).add(component)));
+        addStopOrderDependencies(dependents);
+
+        var timeout = Long.parseLong(getProperties().getOrDefault("application.component-stop-timeout", "30000").toString());
+        var pool = newPool("stopper", graph.size());
+        try {
+            var stops = new HashMap<Component, CompletableFuture<Void>>();
+            dependents.keySet().forEach(component -> schedule(component, dependents, stops, new HashSet<>(), pool, c -> stopComponent(c, timeout)));
+            CompletableFuture.allOf(stops.values().toArray(CompletableFuture[]::new)).join();
+        } catch (Exception e) {
+            logger.error("stopping application components failed with message {}", e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Schedules provided action on a component to run after the same action completes on all of its predecessors.
+     *
+     * @param component    The component that action should be scheduled for.
+     * @param predecessors The components that action must complete on before it runs on each component.
+     * @param scheduled    Already scheduled actions, keyed by components.
+     * @param visiting     Components that are being scheduled on current path, used to detect cycles.
+     * @param pool         The pool that actions run on.
+     * @param action       The action.
+     * @return Asynchronous completion of the action on provided component.
+     * @throws IllegalStateException If predecessors contain a cycle.
+     */
+    private CompletableFuture<Void> schedule(Component component, Map<Component, Set<Component>> predecessors, Map<Component, CompletableFuture<Void>> scheduled,
+                                             Set<Component> visiting, ExecutorService pool, Consumer<Component> action) {
+        var existing = scheduled.get(component);
+        if (existing != null)
+            return existing;
+        if (!visiting.add(component))
+            throw new IllegalStateException("dependency cycle detected on " + component.getIdentifier() + " component");
+
+        var waits = predecessors.get(component).stream()
+                .map(predecessor -> schedule(predecessor, predecessors, scheduled, visiting, pool, action))
+                .toArray(CompletableFuture[]::new);
+        var future = CompletableFuture.allOf(waits).thenRunAsync(() -> action.accept(component), pool);
+
+        visiting.remove(component);
+        scheduled.put(component, future);
+        return future;
+    }
+
+    /**
+     * Starts provided component and reports its startup time.
+     *
+     * @param component The component that should be started.
+     */
+    private void startComponent(Component component) {
+        var startTime = System.nanoTime();
+        getContext().addThenStartComponent(component);
+        logger.info("{} component started in {} ms", component.getIdentifier(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
     }
 
     /**
-     * Stops all components that are declared as fields on current application instance.
+     * Stops provided component, waiting at most provided timeout for its stop call.
+     * <p>
+     * The stop call runs on its own daemon thread, so a component that does not stop in time can not block the JVM exit.
+     * </p>
+     *
+     * @param component The component that should be stopped.
+     * @param timeout   Maximum time in milliseconds to wait for stop call.
      */
-    private void stopComponents() {
-        loadDeclaredComponents().forEach(component ->
-                getContext().stopComponentByIdentifier(component.getIdentifier())
-        );
+    private void stopComponent(Component component, long timeout) {
+        var stopping = new Thread(() -> getContext().stopComponentByIdentifier(component.getIdentifier()), "component-stop-" + component.getIdentifier());
+        stopping.setDaemon(true);
+        stopping.start();
+
+        try {
+            stopping.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (stopping.isAlive())
+            logger.warn("{} component did not stop in {} ms; continuing shutdown", component.getIdentifier(), timeout);
     }
 
     /**
-     * Returns back all components defined as fields on this application instance.
+     * Returns back definitions of all components declared on this application, sorted by {@link StartOrder} annotation.
+     * <p>
+     * Definitions are loaded from the {@link ComponentDiscovery} generated for this application at build time; if none is
+     * available, e.g. the application was compiled without the discovery annotation processor, declared fields are reflected over.
+     * </p>
      *
-     * @return A list of all declared components.
+     * @return A list of all declared component definitions.
      */
-    private List<Component> instantiateDeclaredComponents() {
-        var components = new ArrayList<Component>();
-        var fields = getClass().getDeclaredFields();
+    private List<ComponentDefinition> componentDefinitions() {
+        var definitions = ServiceLoader.load(ComponentDiscovery.class, getClass().getClassLoader()).stream()
+                .map(ServiceLoader.Provider::get)
+                .filter(discovery -> discovery.getApplication() == getClass())
+                .findFirst()
+                .map(discovery -> new ArrayList<>(discovery.getComponents()))
+                .orElseGet(() -> {
+                    logger.warn("no generated component discovery found for {}; reflecting over declared fields", getClass().getName());
+                    return reflectComponentDefinitions();
+                });
 
-        for (Field field : determineStartingOrder(fields)) {
-            var type = field.getType();
-            var superClass = type.getSuperclass();
+        return determineStartingOrder(definitions);
+    }
 
-            if (superClass != null)
-                if (superClass.getName().equals(Component.class.getName())) {
-                    try {
-                        if (Modifier.isPrivate(field.getModifiers()))
-                            field.setAccessible(true);
+    /**
+     * Builds definitions of components declared as fields on this application instance by reflection.
+     *
+     * @return A list of all declared component definitions.
+     */
+    @SuppressWarnings("unchecked")
+    private ArrayList<ComponentDefinition> reflectComponentDefinitions() {
+        var definitions = new ArrayList<ComponentDefinition>();
 
-                        var component = (Component) type.getConstructor().newInstance();
-                        field.set(this, component);
-                        components.add(component);
-                    } catch (Exception e) {
-                        logger.error("instantiating constructor for {} component failed with message {}", type.getName(), e.getMessage());
-                    }
-                }
+        for (Field field : getClass().getDeclaredFields()) {
+            var superClass = field.getType().getSuperclass();
+            if (superClass == null || !superClass.getName().equals(Component.class.getName()))
+                continue;
+
+            var type = (Class<? extends Component>) field.getType();
+            var dependsOn = new ArrayList<Class<? extends Component>>();
+            for (var annotation : new DependsOn[]{type.getAnnotation(DependsOn.class), field.getAnnotation(DependsOn.class)}) {
+                if (annotation != null)
+                    dependsOn.addAll(Arrays.asList(annotation.value()));
+            }
+
+            var startOrder = field.getAnnotation(StartOrder.class);
+            var stopOrder = field.getAnnotation(StopOrder.class);
+            definitions.add(new ComponentDefinition(field.getName(), type, () -> instantiate(type), (application, component) -> inject(field, application, component), dependsOn,
+                    startOrder == null ? null : startOrder.value(), stopOrder == null ? null : stopOrder.value()));
         }
 
-        return components;
+        return definitions;
     }
 
     /**
-     * Returns back all not null components defined as fields on this application instance.
+     * Instantiates a component of provided type by its public no argument constructor.
      *
-     * @return A list of all declared components.
+     * @param type The component type.
+     * @return Newly created component.
+     * @throws IllegalStateException If instantiating the component failed.
      */
-    private List<Component> loadDeclaredComponents() {
-        var components = new ArrayList<Component>();
-        var fields = getClass().getDeclaredFields();
+    private Component instantiate(Class<? extends Component> type) {
+        try {
+            return type.getConstructor().newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-        for (Field field : determineStoppingOrder(fields)) {
-            var type = field.getType();
-            var superClass = type.getSuperclass();
+    /**
+     * Assigns provided component to the declaring field of provided application.
+     *
+     * @param field       The declared component field.
+     * @param application The application that declares the field.
+     * @param component   The component.
+     * @throws IllegalStateException If assigning the field failed.
+     */
+    private void inject(Field field, Application application, Component component) {
+        try {
+            if (Modifier.isPrivate(field.getModifiers()))
+                field.setAccessible(true);
 
-            if (superClass != null)
-                if (superClass.getName().equals(Component.class.getName())) {
-                    try {
-                        if (Modifier.isPrivate(field.getModifiers()))
-                            field.setAccessible(true);
+            field.set(application, component);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-                        var component = field.get(this);
-                        if (component != null)
-                            components.add((Component) component);
-                    } catch (Exception e) {
-                        logger.error("loading {} component failed with message {}", type.getName(), e.getMessage());
-                    }
-                }
+    /**
+     * Instantiates and sets up all declared components.
+     *
+     * @param definitions The declared component definitions.
+     * @return Set up components, keyed by their definitions.
+     * @throws RuntimeException If setting up a component failed, e.g. as its properties are not valid.
+     */
+    private Map<ComponentDefinition, Component> instantiateDeclaredComponents(List<ComponentDefinition> definitions) {
+        var components = new LinkedHashMap<ComponentDefinition, Component>();
+
+        for (ComponentDefinition definition : definitions) {
+            Component component;
+            try {
+                component = definition.getFactory().get();
+                definition.getInjector().accept(this, component);
+            } catch (Exception e) {
+                logger.error("instantiating constructor for {} component failed with message {}", definition.getType().getName(), e.getMessage());
+                continue;
+            }
+
+            components.put(definition, (Component) component.setup(getProperties()));
         }
 
         return components;
     }
 
     /**
-     * Sorts passed field array based on {@link StartOrder} annotation.
+     * Resolves dependencies of components from their {@link DependsOn} and {@link StartOrder} annotations.
      *
-     * @param fields The unsorted array that must be sorted.
-     * @return Sorted array, same reference.
+     * @param definitions The declared component definitions, sorted by {@link StartOrder} annotation.
+     * @param components  Set up components, keyed by their definitions.
+     * @return Components, each mapped to the components it depends on.
+     * @throws IllegalStateException If a component depends on a component that is not declared.
      */
-    private Field[] determineStartingOrder(Field[] fields) {
-        Arrays.sort(fields, (f1, f2) -> {
-            var o1 = f1.getAnnotation(StartOrder.class);
-            var o2 = f2.getAnnotation(StartOrder.class);
+    private Map<Component, Set<Component>> resolveDependencies(List<ComponentDefinition> definitions, Map<ComponentDefinition, Component> components) {
+        var byType = new HashMap<Class<?>, Component>();
+        components.forEach((definition, component) -> byType.put(definition.getType(), component));
 
-            if (o1 != null && o2 != null) {
-                return o1.value() - o2.value();
-            } else if (o1 != null) {
-                return -1;
-            } else if (o2 != null) {
-                return 1;
-            } else {
-                return f1.getName().compareTo(f2.getName());
+        var orderedComponents = new ArrayList<Map.Entry<Integer, Component>>();
+        for (ComponentDefinition definition : definitions) {
+            var component = components.get(definition);
+            if (component == null)
+                continue;
+
+            var componentDependencies = new LinkedHashSet<Component>();
+            for (var type : definition.getDependencies()) {
+                var dependency = byType.get(type);
+                if (dependency == null)
+                    throw new IllegalStateException(component.getIdentifier() + " component depends on " + type.getName() + " that is not declared");
+
+                componentDependencies.add(dependency);
             }
-        });
 
-        return fields;
+            var startOrder = definition.getStartOrder();
+            if (startOrder != null) {
+                orderedComponents.stream()
+                        .filter(entry -> entry.getKey() < startOrder)
+                        .forEach(entry -> componentDependencies.add(entry.getValue()));
+                orderedComponents.add(Map.entry(startOrder, component));
+            }
+            if (definition.getStopOrder() != null)
+                stopOrders.put(component, definition.getStopOrder());
+
+            dependencies.put(component, componentDependencies);
+        }
+
+        return dependencies;
+    }
+
+    /**
+     * Adds implicit stop dependencies from {@link StopOrder} annotations; a component with higher order stops after the ones with lower order.
+     *
+     * @param dependents Components, each mapped to the components that must stop before it.
+     */
+    private void addStopOrderDependencies(Map<Component, Set<Component>> dependents) {
+        stopOrders.forEach((component, order) -> stopOrders.forEach((other, otherOrder) -> {
+            if (otherOrder < order && dependents.containsKey(component) && dependents.containsKey(other))
+                dependents.get(component).add(other);
+        }));
     }
 
     /**
-     * Sorts passed field array based on {@link StopOrder} annotation.
+     * Sorts passed definition list based on {@link StartOrder} annotation.
      *
-     * @param fields The unsorted array that must be sorted.
-     * @return Sorted array, same reference.
+     * @param definitions The unsorted list that must be sorted.
+     * @return Sorted list, same reference.
      */
-    private Field[] determineStoppingOrder(Field[] fields) {
-        Arrays.sort(fields, (f1, f2) -> {
-            var o1 = f1.getAnnotation(StopOrder.class);
-            var o2 = f2.getAnnotation(StopOrder.class);
+    private List<ComponentDefinition> determineStartingOrder(List<ComponentDefinition> definitions) {
+        definitions.sort((d1, d2) -> {
+            var o1 = d1.getStartOrder();
+            var o2 = d2.getStartOrder();
 
             if (o1 != null && o2 != null) {
-                return o1.value() - o2.value();
+                return o1 - o2;
             } else if (o1 != null) {
                 return -1;
             } else if (o2 != null) {
                 return 1;
             } else {
-                return f1.getName().compareTo(f2.getName());
+                return d1.getName().compareTo(d2.getName());
             }
         });
 
-        return fields;
+        return definitions;
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads to start or stop components on.
+     *
+     * @param name        The name prefix of pool threads.
+     * @param parallelism Number of pool threads.
+     * @return Newly created pool.
+     */
+    private ExecutorService newPool(String name, int parallelism) {
+        var counter = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            var thread = new Thread(runnable, "component-" + name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -0,0 +1,101 @@
+package ir.annotation.waiter.core.application;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Definition of a component that is declared as a field on an {@link Application}.
+ * <p>
+ * Definitions are generated at build time by the discovery annotation processor, or built by reflecting over declared fields
+ * when no generated {@link ComponentDiscovery} is available.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class ComponentDefinition {
+    /**
+     * Name of the declaring field.
+     */
+    private final String name;
+
+    /**
+     * Type of the component.
+     */
+    private final Class<? extends Component> type;
+
+    /**
+     * Factory that creates a new instance of the component.
+     */
+    private final Supplier<? extends Component> factory;
+
+    /**
+     * Injector that assigns a created instance of the component to the declaring field of an application.
+     */
+    private final BiConsumer<Application, Component> injector;
+
+    /**
+     * Types of components that this component depends on, from {@link ir.annotation.waiter.core.application.annotation.DependsOn} annotations.
+     */
+    private final List<Class<? extends Component>> dependencies;
+
+    /**
+     * Value of {@link ir.annotation.waiter.core.application.annotation.StartOrder} annotation, {@code null} if not annotated.
+     */
+    private final Integer startOrder;
+
+    /**
+     * Value of {@link ir.annotation.waiter.core.application.annotation.StopOrder} annotation, {@code null} if not annotated.
+     */
+    private final Integer stopOrder;
+
+    /**
+     * Constructor to create an instance of this model.
+     *
+     * @param name         Name of the declaring field.
+     * @param type         Type of the component.
+     * @param factory      Factory that creates a new instance of the component.
+     * @param injector     Injector that assigns a created instance of the component to the declaring field of an application.
+     * @param dependencies Types of components that this component depends on.
+     * @param startOrder   Value of start order annotation, {@code null} if not annotated.
+     * @param stopOrder    Value of stop order annotation, {@code null} if not annotated.
+     */
+    public ComponentDefinition(String name, Class<? extends Component> type, Supplier<? extends Component> factory, BiConsumer<Application, Component> injector,
+                               List<Class<? extends Component>> dependencies, Integer startOrder, Integer stopOrder) {
+        this.name = name;
+        this.type = type;
+        this.factory = factory;
+        this.injector = injector;
+        this.dependencies = dependencies;
+        this.startOrder = startOrder;
+        this.stopOrder = stopOrder;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<? extends Component> getType() {
+        return type;
+    }
+
+    public Supplier<? extends Component> getFactory() {
+        return factory;
+    }
+
+    public BiConsumer<Application, Component> getInjector() {
+        return injector;
+    }
+
+    public List<Class<? extends Component>> getDependencies() {
+        return dependencies;
+    }
+
+    public Integer getStartOrder() {
+        return startOrder;
+    }
+
+    public Integer getStopOrder() {
+        return stopOrder;
+    }
+}
@@ -0,0 +1,29 @@
+package ir.annotation.waiter.core.application;
+
+import java.util.List;
+
+/**
+ * Build time generated catalog of components declared on an {@link Application}.
+ * <p>
+ * Implementations are generated by the discovery annotation processor and loaded through {@link java.util.ServiceLoader}, so
+ * applications start without reflecting over their declared fields.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public interface ComponentDiscovery {
+
+    /**
+     * Returns back the application type that components are declared on.
+     *
+     * @return The application type.
+     */
+    Class<? extends Application> getApplication();
+
+    /**
+     * Returns back definitions of all components declared on the application.
+     *
+     * @return Component definitions, in declaration order.
+     */
+    List<ComponentDefinition> getComponents();
+}
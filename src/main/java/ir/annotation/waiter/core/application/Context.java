@@ -1,15 +1,19 @@
 package ir.annotation.waiter.core.application;
 
+import ir.annotation.waiter.core.common.Registry;
+import ir.annotation.waiter.core.procedure.AbstractProcedure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * An application context implementation that is used internally.
+ * <p>
+ * Components and procedures are kept in identifier indexed registries, so lookups cost one hash probe.
+ * </p>
  *
  * @author Alireza Pourtaghi
  */
@@ -19,7 +23,12 @@ public final class Context {
     /**
      * {@link Component}s that is injected to context.
      */
-    private final ConcurrentHashMap.KeySetView<Component, Boolean> components = ConcurrentHashMap.newKeySet();
+    private final Registry<Component> components = new Registry<>();
+
+    /**
+     * {@link AbstractProcedure}s that is injected to context.
+     */
+    private final Registry<AbstractProcedure> procedures = new Registry<>();
 
     /**
      * Empty package level constructor.
@@ -37,7 +46,7 @@ public final class Context {
         requireNonNull(component);
 
         try {
-            components.add(component);
+            components.register(component);
             component.start();
         } catch (Exception e) {
             logger.error("start call failed on {} with message {}", component.getIdentifier(), e.getMessage());
@@ -74,10 +83,54 @@ public final class Context {
      * @throws NullPointerException If provided identifier is {@code null}.
      */
     public Optional<Component> getComponentByIdentifier(String identifier) {
-        requireNonNull(identifier);
+        return components.get(identifier);
+    }
 
-        return components.stream()
-                .filter(component -> component.getIdentifier().equals(identifier))
-                .findFirst();
+    /**
+     * Returns back a component of provided type from context.
+     *
+     * @param identifier The component's identifier that should be find on context.
+     * @param type       The expected type of component.
+     * @param <C>        The expected type of component.
+     * @return Optional {@link Component} that has same identifier as provided one, empty if it is not of provided type.
+     * @throws NullPointerException If provided identifier or type is {@code null}.
+     */
+    public <C extends Component> Optional<C> getComponentByIdentifier(String identifier, Class<C> type) {
+        return components.get(identifier, type);
+    }
+
+    /**
+     * Adds provided procedure to the context.
+     *
+     * @param procedure The {@link AbstractProcedure} that should be add to the context.
+     * @throws NullPointerException  If provided procedure is {@code null}.
+     * @throws IllegalStateException If another procedure with the same identifier is already added.
+     */
+    public void addProcedure(AbstractProcedure<?, ?> procedure) {
+        procedures.register(procedure);
+    }
+
+    /**
+     * Returns back a procedure from context.
+     *
+     * @param identifier The procedure's identifier that should be find on context.
+     * @return Optional {@link AbstractProcedure} that has same identifier as provided one.
+     * @throws NullPointerException If provided identifier is {@code null}.
+     */
+    public Optional<AbstractProcedure<?, ?>> getProcedureByIdentifier(String identifier) {
+        return procedures.get(identifier).map(procedure -> (AbstractProcedure<?, ?>) procedure);
+    }
+
+    /**
+     * Returns back a procedure of provided type from context.
+     *
+     * @param identifier The procedure's identifier that should be find on context.
+     * @param type       The expected type of procedure.
+     * @param <P>        The expected type of procedure.
+     * @return Optional {@link AbstractProcedure} that has same identifier as provided one, empty if it is not of provided type.
+     * @throws NullPointerException If provided identifier or type is {@code null}.
+     */
+    public <P extends AbstractProcedure> Optional<P> getProcedureByIdentifier(String identifier, Class<P> type) {
+        return procedures.get(identifier, type);
     }
 }
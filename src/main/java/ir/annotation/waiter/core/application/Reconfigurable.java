@@ -0,0 +1,23 @@
+package ir.annotation.waiter.core.application;
+
+import java.util.Properties;
+
+/**
+ * Implemented by components that apply changed application properties while running, without restart.
+ *
+ * @author Alireza Pourtaghi
+ */
+public interface Reconfigurable {
+
+    /**
+     * Applies provided properties to the running component.
+     * <p>
+     * Called after application properties file is changed; implementations should validate all values before applying any
+     * of them, and keep their current configuration if provided properties are not valid.
+     * </p>
+     *
+     * @param properties The reloaded application properties.
+     * @throws IllegalArgumentException If provided properties are not valid.
+     */
+    void reconfigure(Properties properties);
+}
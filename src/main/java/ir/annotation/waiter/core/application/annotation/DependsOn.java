@@ -0,0 +1,25 @@
+package ir.annotation.waiter.core.application.annotation;
+
+import ir.annotation.waiter.core.application.Component;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A dependency annotation to be used on components to declare which components must be started before them.
+ *
+ * <p>
+ * A component starts only after all of its dependencies are started, and stops only after all components depending on it are
+ * stopped. Components that do not depend on each other start and stop concurrently.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@Target({ElementType.TYPE, ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DependsOn {
+
+    Class<? extends Component>[] value();
+}
@@ -9,8 +9,8 @@ import java.lang.annotation.Target;
  * An order annotation to be used on components for ordered start/stop.
  *
  * <p>
- * Components start from lower order values to higher ones.
- * Note: All components that did not specify order annotation will start in alphabetically order based on component's name. (componentA will start before componentB)
+ * Components start from lower order values to higher ones; a component with an order annotation implicitly depends on all components with lower order values.
+ * Note: Components that did not specify order annotation or {@link DependsOn} dependencies will start concurrently.
  * </p>
  *
  * @author Alireza Pourtaghi
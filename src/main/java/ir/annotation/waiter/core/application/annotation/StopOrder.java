@@ -9,8 +9,8 @@ import java.lang.annotation.Target;
  * An order annotation to be used on components for ordered stop.
  *
  * <p>
- * Components stop from lower order values to higher ones.
- * Note: All components that did not specify order annotation will stop in alphabetically order based on component's name. (componentA will stop before componentB)
+ * Components stop from lower order values to higher ones, in addition to reverse order of {@link DependsOn} dependencies.
+ * Note: Components that did not specify order annotation and do not depend on each other will stop concurrently.
  * </p>
  *
  * @author Alireza Pourtaghi
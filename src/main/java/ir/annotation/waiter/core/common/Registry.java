@@ -0,0 +1,82 @@
+package ir.annotation.waiter.core.common;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A registry of {@link Identity} instances indexed by their identifiers.
+ * <p>
+ * Lookups are lock-free and cost one hash probe, so this registry is suitable to be used on hot paths.
+ * </p>
+ *
+ * @param <T> The type of registered instances.
+ * @author Alireza Pourtaghi
+ */
+public final class Registry<T extends Identity> {
+    /**
+     * Registered instances, keyed by their identifiers.
+     */
+    private final ConcurrentHashMap<String, T> instances = new ConcurrentHashMap<>();
+
+    /**
+     * Empty constructor.
+     */
+    public Registry() {
+    }
+
+    /**
+     * Registers provided instance.
+     *
+     * @param instance The instance that should be registered.
+     * @throws NullPointerException  If provided instance is {@code null}.
+     * @throws IllegalStateException If another instance with the same identifier is already registered.
+     */
+    public void register(T instance) {
+        requireNonNull(instance);
+
+        var existing = instances.putIfAbsent(instance.getIdentifier(), instance);
+        if (existing != null && existing != instance)
+            throw new IllegalStateException("an instance with " + instance.getIdentifier() + " as identifier is already registered");
+    }
+
+    /**
+     * Returns back a registered instance.
+     *
+     * @param identifier The instance's identifier.
+     * @return Optional instance that has same identifier as provided one.
+     * @throws NullPointerException If provided identifier is {@code null}.
+     */
+    public Optional<T> get(String identifier) {
+        requireNonNull(identifier);
+
+        return Optional.ofNullable(instances.get(identifier));
+    }
+
+    /**
+     * Returns back a registered instance of provided type.
+     *
+     * @param identifier The instance's identifier.
+     * @param type       The expected type of instance.
+     * @param <S>        The expected type of instance.
+     * @return Optional instance that has same identifier as provided one, empty if it is not an instance of provided type.
+     * @throws NullPointerException If provided identifier or type is {@code null}.
+     */
+    public <S extends T> Optional<S> get(String identifier, Class<S> type) {
+        requireNonNull(type);
+
+        return get(identifier).filter(type::isInstance).map(type::cast);
+    }
+
+    /**
+     * Returns back all registered instances.
+     *
+     * @return Unmodifiable view of registered instances.
+     */
+    public Collection<T> values() {
+        return Collections.unmodifiableCollection(instances.values());
+    }
+}
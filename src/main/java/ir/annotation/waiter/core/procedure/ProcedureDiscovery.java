@@ -0,0 +1,22 @@
+package ir.annotation.waiter.core.procedure;
+
+import java.util.List;
+
+/**
+ * Build time generated catalog of procedures annotated with {@link ir.annotation.waiter.core.procedure.annotation.Discoverable}.
+ * <p>
+ * Implementations are generated by the discovery annotation processor and loaded through {@link java.util.ServiceLoader}.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public interface ProcedureDiscovery {
+
+    /**
+     * Instantiates all discovered procedures; procedures that other procedures depend on are passed to their constructors.
+     *
+     * @return Newly created procedures.
+     * @throws Exception If instantiating a procedure failed.
+     */
+    List<AbstractProcedure<?, ?>> getProcedures() throws Exception;
+}
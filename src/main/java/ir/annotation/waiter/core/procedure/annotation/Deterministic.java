@@ -0,0 +1,21 @@
+package ir.annotation.waiter.core.procedure.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A marker annotation to be used on procedures whose result is a pure function of their input.
+ *
+ * <p>
+ * Results of deterministic procedures may be memoized and reused for calls with identical arguments, so procedures that
+ * depend on randomness, time or any other external state must not be annotated.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Deterministic {
+}
@@ -0,0 +1,21 @@
+package ir.annotation.waiter.core.procedure.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A marker annotation to be used on procedures that must be discovered at build time and served by the processor.
+ *
+ * <p>
+ * Annotated procedures must be public, non abstract and have exactly one public constructor; its parameters can only be other
+ * discoverable procedures, which are instantiated first and passed in.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+public @interface Discoverable {
+}
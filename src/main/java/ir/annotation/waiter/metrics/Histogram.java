@@ -0,0 +1,215 @@
+package ir.annotation.waiter.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non negative long values with log-linear buckets, in the style of HDR histogram.
+ * <p>
+ * Values below 64 are counted exactly; above that, every power of two range is split into 32 linear sub-buckets, so the
+ * relative error of reported values is at most about 3%. Buckets are preallocated and striped by recording thread, so
+ * recording neither allocates nor contends on a single counter.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class Histogram {
+    /**
+     * Number of bits of linear sub-buckets in each power of two range.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * Number of linear sub-buckets in each power of two range.
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Number of bucket stripes, a power of two.
+     */
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors())));
+
+    /**
+     * Highest value that can be recorded; higher values are recorded as this value.
+     */
+    private final long highestTrackableValue;
+
+    /**
+     * Bucket counts, one array per stripe.
+     */
+    private final AtomicLongArray[] stripes;
+
+    /**
+     * Sum of recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Maximum recorded value.
+     */
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Constructor to create an instance of this histogram.
+     *
+     * @param highestTrackableValue Highest value that can be recorded; higher values are recorded as this value.
+     * @throws IllegalArgumentException If highest trackable value is not positive.
+     */
+    public Histogram(long highestTrackableValue) {
+        if (highestTrackableValue < 1)
+            throw new IllegalArgumentException("highest trackable value must be positive");
+
+        this.highestTrackableValue = highestTrackableValue;
+        this.stripes = new AtomicLongArray[STRIPES];
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+    }
+
+    /**
+     * Records a value; negative values are recorded as zero.
+     *
+     * @param value The value.
+     */
+    public void record(long value) {
+        var clamped = Math.max(0, Math.min(value, highestTrackableValue));
+
+        stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)].incrementAndGet(indexOf(clamped));
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    /**
+     * Takes a snapshot of recorded values. Concurrent recordings may be partially included.
+     *
+     * @return Newly created snapshot.
+     */
+    public Snapshot snapshot() {
+        var counts = new long[stripes[0].length()];
+        var count = 0L;
+        for (var stripe : stripes) {
+            for (int i = 0; i < counts.length; i++) {
+                var bucket = stripe.get(i);
+                counts[i] += bucket;
+                count += bucket;
+            }
+        }
+
+        return new Snapshot(counts, count, sum.sum(), max.get());
+    }
+
+    /**
+     * Returns back index of the bucket that provided value is counted in.
+     *
+     * @param value The non negative value.
+     * @return Index of bucket.
+     */
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT)
+            return (int) value;
+
+        var shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return 2 * SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * Returns back highest value that is counted in provided bucket.
+     *
+     * @param index Index of bucket.
+     * @return Highest value of bucket.
+     */
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT)
+            return index;
+
+        var shift = (index - 2 * SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + 1;
+        var subBucket = (index - 2 * SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((long) (subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * A point in time snapshot of a histogram.
+     *
+     * @author Alireza Pourtaghi
+     */
+    public static final class Snapshot {
+        /**
+         * Count of recorded values, per bucket.
+         */
+        private final long[] counts;
+
+        /**
+         * Count of recorded values.
+         */
+        private final long count;
+
+        /**
+         * Sum of recorded values.
+         */
+        private final long sum;
+
+        /**
+         * Maximum recorded value.
+         */
+        private final long max;
+
+        /**
+         * Constructor to create an instance of this model.
+         *
+         * @param counts Count of recorded values, per bucket.
+         * @param count  Count of recorded values.
+         * @param sum    Sum of recorded values.
+         * @param max    Maximum recorded value.
+         */
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Returns back the value that provided percentage of recorded values are lower than or equal to.
+         *
+         * @param percentile The percentile, between 0 and 100.
+         * @return The value at percentile, or zero if nothing is recorded.
+         */
+        public long getValueAtPercentile(double percentile) {
+            var rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+            var seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(highestValueOf(i), max);
+            }
+
+            return max;
+        }
+
+        /**
+         * Returns back count of recorded values that are lower than or equal to provided value, at bucket resolution.
+         *
+         * @param value The value.
+         * @return Count of values at or below provided value.
+         */
+        public long getCountAtOrBelow(long value) {
+            var result = 0L;
+            for (int i = 0; i < counts.length && highestValueOf(i) <= value; i++)
+                result += counts[i];
+
+            return result;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+}
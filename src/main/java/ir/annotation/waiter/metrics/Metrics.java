@@ -0,0 +1,123 @@
+package ir.annotation.waiter.metrics;
+
+import ir.annotation.waiter.core.application.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Metrics registry component that holds server wide metrics, metrics of each called procedure and metrics of the result cache.
+ * <p>
+ * All recording is lock-free; once metrics of a procedure are registered, recording does not allocate.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class Metrics extends Component<Metrics> {
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    /**
+     * Metrics of called procedures, keyed by procedure identifiers.
+     */
+    private final ConcurrentHashMap<String, ProcedureMetrics> procedures = new ConcurrentHashMap<>();
+
+    /**
+     * Server wide metrics.
+     */
+    private final ServerMetrics server = new ServerMetrics();
+
+    /**
+     * Metrics of the cache of deterministic procedure call results, registered when processor starts with memoization enabled.
+     */
+    private volatile ResultCacheMetric resultCache;
+
+    /**
+     * Public accessible constructor to identify this component, also used to create metrics that are not registered on context.
+     */
+    public Metrics() {
+        super("metrics");
+    }
+
+    @Override
+    public Metrics setup(Properties properties) {
+        return new Metrics();
+    }
+
+    @Override
+    public void start() {
+        logger.info("starting metrics ...");
+    }
+
+    @Override
+    public void stop() {
+        logger.info("stopping metrics ...");
+        getProcedures().forEach(procedure -> {
+            var latency = procedure.getLatency().snapshot();
+            logger.info("{} procedure served {} requests, latency p50 {} us, p99 {} us, max {} us", procedure.getIdentifier(), procedure.getRequests(),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(50)),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(99)),
+                    TimeUnit.NANOSECONDS.toMicros(latency.getMax()));
+        });
+    }
+
+    /**
+     * Returns back metrics of a procedure, registering them on first call.
+     * <p>
+     * Must only be called for existing procedures, so the number of registered metrics stays bounded.
+     * </p>
+     *
+     * @param identifier The procedure's identifier.
+     * @return Metrics of the procedure.
+     * @throws NullPointerException If provided identifier is {@code null}.
+     */
+    public ProcedureMetrics procedure(String identifier) {
+        var metrics = procedures.get(requireNonNull(identifier));
+
+        return metrics != null ? metrics : procedures.computeIfAbsent(identifier, ProcedureMetrics::new);
+    }
+
+    /**
+     * Returns back already registered metrics of a procedure.
+     *
+     * @param identifier The procedure's identifier.
+     * @return Optional metrics of the procedure, empty if not registered.
+     * @throws NullPointerException If provided identifier is {@code null}.
+     */
+    public Optional<ProcedureMetrics> getProcedure(String identifier) {
+        return Optional.ofNullable(procedures.get(requireNonNull(identifier)));
+    }
+
+    /**
+     * Returns back metrics of all registered procedures.
+     *
+     * @return Unmodifiable view of procedure metrics.
+     */
+    public Collection<ProcedureMetrics> getProcedures() {
+        return Collections.unmodifiableCollection(procedures.values());
+    }
+
+    /**
+     * Registers metrics of the cache of deterministic procedure call results.
+     *
+     * @param resultCache Metrics of the result cache.
+     */
+    public void setResultCache(ResultCacheMetric resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public ServerMetrics getServer() {
+        return server;
+    }
+
+    public Optional<ResultCacheMetric> getResultCache() {
+        return Optional.ofNullable(resultCache);
+    }
+}
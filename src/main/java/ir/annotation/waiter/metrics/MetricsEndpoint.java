@@ -0,0 +1,134 @@
+package ir.annotation.waiter.metrics;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import ir.annotation.waiter.core.application.Component;
+import ir.annotation.waiter.core.application.annotation.DependsOn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+
+/**
+ * An HTTP listener component that serves metrics in Prometheus text format, e.g. {@code curl http://localhost:9099/metrics}.
+ * <p>
+ * The listener runs on its own single threaded event loop, so scraping never competes with procedure calls.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@DependsOn(Metrics.class)
+public final class MetricsEndpoint extends Component<MetricsEndpoint> {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsEndpoint.class);
+
+    /**
+     * Maximum size of accepted HTTP requests in bytes.
+     */
+    private static final int MAX_REQUEST_SIZE = 8192;
+
+    /**
+     * Whether this endpoint listens.
+     */
+    private boolean enabled;
+
+    /**
+     * Host value that this endpoint must listen on.
+     */
+    private String host;
+
+    /**
+     * Port number that this endpoint must listen on.
+     */
+    private int port;
+
+    /**
+     * Event loop group of this endpoint, {@code null} until endpoint starts.
+     */
+    private EventLoopGroup eventLoopGroup;
+
+    /**
+     * Public accessible constructor to identify this component.
+     */
+    public MetricsEndpoint() {
+        super("metrics-endpoint");
+    }
+
+    /**
+     * Private constructor to build an instance of this endpoint implementation.
+     *
+     * @param enabled Whether this endpoint listens.
+     * @param host    Host value that this endpoint must listen on.
+     * @param port    Port number that this endpoint must listen on.
+     */
+    private MetricsEndpoint(boolean enabled, String host, int port) {
+        this();
+        this.enabled = enabled;
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public MetricsEndpoint setup(Properties properties) {
+        var enabled = Boolean.parseBoolean(properties.getOrDefault("metrics.endpoint.enabled", "true").toString());
+        var host = properties.getOrDefault("metrics.endpoint.host", "127.0.0.1").toString();
+        var port = Integer.parseInt(properties.getOrDefault("metrics.endpoint.port", "9099").toString());
+
+        return new MetricsEndpoint(enabled, host, port);
+    }
+
+    @Override
+    public void start() throws InterruptedException {
+        if (!isEnabled()) {
+            logger.info("metrics endpoint is disabled");
+            return;
+        }
+
+        logger.info("starting metrics endpoint on {}:{} ...", getHost(), getPort());
+        var metrics = getContext().getComponentByIdentifier("metrics", Metrics.class)
+                .orElseThrow(() -> new IllegalStateException("metrics component is not started"));
+        var scrapeHandler = new ScrapeHandler(metrics);
+
+        eventLoopGroup = new NioEventLoopGroup(1);
+        new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .localAddress(getHost(), getPort())
+                .childHandler(new ChannelInitializer<>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(new HttpServerCodec());
+                        channel.pipeline().addLast(new HttpObjectAggregator(MAX_REQUEST_SIZE));
+                        channel.pipeline().addLast(scrapeHandler);
+                    }
+                })
+                .bind()
+                .sync();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        if (eventLoopGroup == null)
+            return;
+
+        logger.info("stopping metrics endpoint ...");
+        eventLoopGroup.shutdownGracefully().sync();
+    }
+
+    private boolean isEnabled() {
+        return enabled;
+    }
+
+    private String getHost() {
+        return host;
+    }
+
+    private int getPort() {
+        return port;
+    }
+}
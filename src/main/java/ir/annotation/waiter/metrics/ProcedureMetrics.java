@@ -0,0 +1,96 @@
+package ir.annotation.waiter.metrics;
+
+import ir.annotation.waiter.server.Error;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of calls of a procedure: request count, error counts by {@link Error.Reason} and latency histogram.
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class ProcedureMetrics {
+    /**
+     * Highest latency in nanoseconds that is tracked by latency histogram.
+     */
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * The procedure's identifier.
+     */
+    private final String identifier;
+
+    /**
+     * Count of received requests.
+     */
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Count of errors, indexed by {@link Error.Reason} ordinal.
+     */
+    private final LongAdder[] errors = new LongAdder[Error.Reason.values().length];
+
+    /**
+     * Latency of completed calls in nanoseconds.
+     */
+    private final Histogram latency = new Histogram(HIGHEST_TRACKABLE_LATENCY);
+
+    /**
+     * Constructor to create an instance of this model.
+     *
+     * @param identifier The procedure's identifier.
+     */
+    ProcedureMetrics(String identifier) {
+        this.identifier = identifier;
+        for (int i = 0; i < errors.length; i++)
+            errors[i] = new LongAdder();
+    }
+
+    /**
+     * Records a received request.
+     */
+    public void recordRequest() {
+        requests.increment();
+    }
+
+    /**
+     * Records an error.
+     *
+     * @param reason Reason of the error.
+     */
+    public void recordError(Error.Reason reason) {
+        errors[reason.ordinal()].increment();
+    }
+
+    /**
+     * Records latency of a completed call.
+     *
+     * @param latency Latency of the call in nanoseconds.
+     */
+    public void recordLatency(long latency) {
+        this.latency.record(latency);
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns back count of errors with provided reason.
+     *
+     * @param reason Reason of errors.
+     * @return Count of errors.
+     */
+    public long getErrors(Error.Reason reason) {
+        return errors[reason.ordinal()].sum();
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,217 @@
+package ir.annotation.waiter.metrics;
+
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+import io.netty.util.internal.PlatformDependent;
+import ir.annotation.waiter.server.Error;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Formats metrics in Prometheus text exposition format, version 0.0.4.
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class PrometheusFormat {
+    /**
+     * Content type of formatted metrics.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Upper bounds of exposed histogram buckets in seconds.
+     */
+    private static final double[] BUCKETS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private PrometheusFormat() {
+    }
+
+    /**
+     * Formats provided metrics.
+     *
+     * @param metrics The metrics registry.
+     * @return Metrics in Prometheus text format.
+     */
+    public static String format(Metrics metrics) {
+        var out = new StringBuilder(4096);
+        var server = metrics.getServer();
+        var procedures = metrics.getProcedures().stream()
+                .sorted(Comparator.comparing(ProcedureMetrics::getIdentifier))
+                .collect(Collectors.toList());
+
+        header(out, "waiter_bytes_received_total", "counter", "Bytes received from clients.");
+        sample(out, "waiter_bytes_received_total", "", server.getBytesIn());
+        header(out, "waiter_bytes_sent_total", "counter", "Bytes written to clients.");
+        sample(out, "waiter_bytes_sent_total", "", server.getBytesOut());
+        header(out, "waiter_responses_compressed_total", "counter", "Responses compressed by negotiated algorithm of their connection.");
+        sample(out, "waiter_responses_compressed_total", "", server.getCompressedResponses());
+        header(out, "waiter_compression_saved_bytes_total", "counter", "Bytes saved by compressing responses.");
+        sample(out, "waiter_compression_saved_bytes_total", "", server.getCompressionSavedBytes());
+        header(out, "waiter_frames_decoded_total", "counter", "Request frames decoded.");
+        sample(out, "waiter_frames_decoded_total", "", server.getFramesDecoded());
+        header(out, "waiter_connections_active", "gauge", "Open client connections.");
+        sample(out, "waiter_connections_active", "", server.getActiveConnections());
+        header(out, "waiter_event_loop_pending_tasks", "gauge", "Tasks pending on server event loops.");
+        sample(out, "waiter_event_loop_pending_tasks", "", server.getPendingTasks());
+        header(out, "waiter_event_loop_delay_seconds", "histogram", "Time that probe tasks waited before their event loop ran them.");
+        histogram(out, "waiter_event_loop_delay_seconds", "", server.getEventLoopDelay().snapshot());
+        header(out, "waiter_event_loop_stall_seconds", "histogram", "Durations that event loops were stalled.");
+        histogram(out, "waiter_event_loop_stall_seconds", "", server.getEventLoopStalls().snapshot());
+        server.getAllocator().ifPresent(allocator -> allocator(out, allocator));
+        header(out, "waiter_direct_memory_max_bytes", "gauge", "Maximum direct memory that buffers can use.");
+        sample(out, "waiter_direct_memory_max_bytes", "", PlatformDependent.maxDirectMemory());
+        metrics.getResultCache().ifPresent(resultCache -> resultCache(out, resultCache));
+        header(out, "waiter_errors_total", "counter", "Errors, by reason; all but tls.failed are sent to clients.");
+        for (var reason : Error.Reason.values())
+            sample(out, "waiter_errors_total", label("reason", reason.getError().getCode()), server.getErrors(reason));
+
+        header(out, "waiter_procedure_requests_total", "counter", "Requests received, by procedure.");
+        for (var procedure : procedures)
+            sample(out, "waiter_procedure_requests_total", label("procedure", procedure.getIdentifier()), procedure.getRequests());
+
+        header(out, "waiter_procedure_errors_total", "counter", "Failed calls, by procedure and reason.");
+        for (var procedure : procedures) {
+            for (var reason : Error.Reason.values())
+                sample(out, "waiter_procedure_errors_total", label("procedure", procedure.getIdentifier()) + "," + label("reason", reason.getError().getCode()), procedure.getErrors(reason));
+        }
+
+        header(out, "waiter_procedure_latency_seconds", "histogram", "Latency of completed calls, by procedure.");
+        for (var procedure : procedures)
+            histogram(out, "waiter_procedure_latency_seconds", label("procedure", procedure.getIdentifier()), procedure.getLatency().snapshot());
+
+        return out.toString();
+    }
+
+    /**
+     * Appends metric family header.
+     *
+     * @param out  The output.
+     * @param name The metric name.
+     * @param type The metric type.
+     * @param help The metric description.
+     */
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Appends samples of pooled buffer allocator.
+     *
+     * @param out       The output.
+     * @param allocator Metrics of the allocator.
+     */
+    private static void allocator(StringBuilder out, PooledByteBufAllocatorMetric allocator) {
+        header(out, "waiter_allocator_used_bytes", "gauge", "Memory reserved by buffer allocator arenas, by type.");
+        sample(out, "waiter_allocator_used_bytes", label("type", "heap"), allocator.usedHeapMemory());
+        sample(out, "waiter_allocator_used_bytes", label("type", "direct"), allocator.usedDirectMemory());
+        header(out, "waiter_allocator_chunk_size_bytes", "gauge", "Size of chunks that arenas reserve memory in.");
+        sample(out, "waiter_allocator_chunk_size_bytes", "", allocator.chunkSize());
+        header(out, "waiter_allocator_thread_local_caches", "gauge", "Threads that have a buffer cache.");
+        sample(out, "waiter_allocator_thread_local_caches", "", allocator.numThreadLocalCaches());
+
+        header(out, "waiter_allocator_arena_threads", "gauge", "Threads sharing each arena; more than one means contention on allocation.");
+        arenas(out, "waiter_allocator_arena_threads", allocator, PoolArenaMetric::numThreadCaches);
+        header(out, "waiter_allocator_arena_allocations_total", "counter", "Allocations served by each arena.");
+        arenas(out, "waiter_allocator_arena_allocations_total", allocator, PoolArenaMetric::numAllocations);
+        header(out, "waiter_allocator_arena_active_allocations", "gauge", "Buffers allocated from each arena and not returned to it, including those kept in thread caches.");
+        arenas(out, "waiter_allocator_arena_active_allocations", allocator, PoolArenaMetric::numActiveAllocations);
+    }
+
+    /**
+     * Appends samples of the cache of deterministic procedure call results.
+     *
+     * @param out         The output.
+     * @param resultCache Metrics of the result cache.
+     */
+    private static void resultCache(StringBuilder out, ResultCacheMetric resultCache) {
+        header(out, "waiter_result_cache_requests_total", "counter", "Lookups of memoized results of deterministic calls, by result.");
+        sample(out, "waiter_result_cache_requests_total", label("result", "hit"), resultCache.hitCount());
+        sample(out, "waiter_result_cache_requests_total", label("result", "miss"), resultCache.missCount());
+        header(out, "waiter_result_cache_evictions_total", "counter", "Memoized results evicted to keep the cache within its maximum weight.");
+        sample(out, "waiter_result_cache_evictions_total", "", resultCache.evictionCount());
+        header(out, "waiter_result_cache_weight_bytes", "gauge", "Approximate size of memoized results.");
+        sample(out, "waiter_result_cache_weight_bytes", "", resultCache.weightedSize());
+        header(out, "waiter_result_cache_max_weight_bytes", "gauge", "Maximum size of memoized results.");
+        sample(out, "waiter_result_cache_max_weight_bytes", "", resultCache.maximumWeight());
+    }
+
+    /**
+     * Appends a sample for each arena of pooled buffer allocator.
+     *
+     * @param out       The output.
+     * @param name      The sample name.
+     * @param allocator Metrics of the allocator.
+     * @param value     Function that returns back sample value of an arena.
+     */
+    private static void arenas(StringBuilder out, String name, PooledByteBufAllocatorMetric allocator, ToLongFunction<PoolArenaMetric> value) {
+        arenas(out, name, "heap", allocator.heapArenas(), value);
+        arenas(out, name, "direct", allocator.directArenas(), value);
+    }
+
+    /**
+     * Appends a sample for each provided arena.
+     *
+     * @param out    The output.
+     * @param name   The sample name.
+     * @param type   Type of arenas.
+     * @param arenas Metrics of arenas.
+     * @param value  Function that returns back sample value of an arena.
+     */
+    private static void arenas(StringBuilder out, String name, String type, List<PoolArenaMetric> arenas, ToLongFunction<PoolArenaMetric> value) {
+        for (var i = 0; i < arenas.size(); i++)
+            sample(out, name, label("type", type) + "," + label("arena", Integer.toString(i)), value.applyAsLong(arenas.get(i)));
+    }
+
+    /**
+     * Appends samples of a histogram of nanosecond values, converted to seconds.
+     *
+     * @param out      The output.
+     * @param name     The histogram name.
+     * @param labels   Formatted labels, empty if histogram has no label.
+     * @param snapshot Snapshot of the histogram.
+     */
+    private static void histogram(StringBuilder out, String name, String labels, Histogram.Snapshot snapshot) {
+        var prefix = labels.isEmpty() ? "" : labels + ",";
+        for (var bucket : BUCKETS)
+            sample(out, name + "_bucket", prefix + label("le", Double.toString(bucket)), snapshot.getCountAtOrBelow((long) (bucket * TimeUnit.SECONDS.toNanos(1))));
+        sample(out, name + "_bucket", prefix + label("le", "+Inf"), snapshot.getCount());
+        sample(out, name + "_sum", labels, snapshot.getSum() / (double) TimeUnit.SECONDS.toNanos(1));
+        sample(out, name + "_count", labels, snapshot.getCount());
+    }
+
+    /**
+     * Appends a sample.
+     *
+     * @param out    The output.
+     * @param name   The sample name.
+     * @param labels Formatted labels, empty if sample has no label.
+     * @param value  The sample value.
+     */
+    private static void sample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name);
+        if (!labels.isEmpty())
+            out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Formats a label, escaping its value.
+     *
+     * @param name  The label name.
+     * @param value The label value.
+     * @return Formatted label.
+     */
+    private static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+}
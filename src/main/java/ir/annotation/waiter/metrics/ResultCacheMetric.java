@@ -0,0 +1,44 @@
+package ir.annotation.waiter.metrics;
+
+/**
+ * Metrics of the cache of deterministic procedure call results.
+ *
+ * @author Alireza Pourtaghi
+ */
+public interface ResultCacheMetric {
+
+    /**
+     * Returns back count of lookups that found a cached result.
+     *
+     * @return Count of hits.
+     */
+    long hitCount();
+
+    /**
+     * Returns back count of lookups that did not find a cached result.
+     *
+     * @return Count of misses.
+     */
+    long missCount();
+
+    /**
+     * Returns back count of results evicted to keep the cache within its maximum weight.
+     *
+     * @return Count of evictions.
+     */
+    long evictionCount();
+
+    /**
+     * Returns back approximate total weight of cached results in bytes.
+     *
+     * @return Weight of cached results.
+     */
+    long weightedSize();
+
+    /**
+     * Returns back maximum total weight of cached results in bytes.
+     *
+     * @return Maximum weight of cached results.
+     */
+    long maximumWeight();
+}
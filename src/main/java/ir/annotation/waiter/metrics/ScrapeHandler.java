@@ -0,0 +1,95 @@
+package ir.annotation.waiter.metrics;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.netty.channel.ChannelHandler.Sharable;
+
+/**
+ * Channel inbound handler that serves metrics in Prometheus text format on {@code GET /metrics}.
+ * <p>
+ * This implementation is sharable.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@Sharable
+public class ScrapeHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+    private static final Logger logger = LoggerFactory.getLogger(ScrapeHandler.class);
+
+    /**
+     * Path that metrics are served on.
+     */
+    private static final String PATH = "/metrics";
+
+    /**
+     * Metrics registry that is served.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Constructor to create an instance of this handler.
+     *
+     * @param metrics Metrics registry that is served.
+     */
+    public ScrapeHandler(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        var path = new QueryStringDecoder(request.uri()).path();
+
+        if (!path.equals(PATH))
+            respond(ctx, request, HttpResponseStatus.NOT_FOUND, "text/plain; charset=utf-8", "not found\n");
+        else if (!request.method().equals(HttpMethod.GET) && !request.method().equals(HttpMethod.HEAD))
+            respond(ctx, request, HttpResponseStatus.METHOD_NOT_ALLOWED, "text/plain; charset=utf-8", "method not allowed\n");
+        else
+            respond(ctx, request, HttpResponseStatus.OK, PrometheusFormat.CONTENT_TYPE, PrometheusFormat.format(metrics));
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.warn("serving metrics failed with message {}", cause.getMessage());
+        ctx.close();
+    }
+
+    /**
+     * Writes a response, closing the connection afterwards if request is not keep-alive.
+     * <p>
+     * A response to {@code HEAD} request has no body, but carries the content length of the equivalent {@code GET} response.
+     * </p>
+     *
+     * @param ctx         The channel handler context.
+     * @param request     The received request.
+     * @param status      The response status.
+     * @param contentType The response content type.
+     * @param body        The response body.
+     */
+    private void respond(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status, String contentType, String body) {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        var content = request.method().equals(HttpMethod.HEAD) ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(bytes);
+        var response = new DefaultFullHttpResponse(request.protocolVersion(), status, content);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setContentLength(response, bytes.length);
+
+        var keepAlive = HttpUtil.isKeepAlive(request);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        var future = ctx.writeAndFlush(response);
+        if (!keepAlive)
+            future.addListener(ChannelFutureListener.CLOSE);
+    }
+}
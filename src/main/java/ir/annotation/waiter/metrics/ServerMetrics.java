@@ -0,0 +1,225 @@
+package ir.annotation.waiter.metrics;
+
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+import ir.annotation.waiter.server.Error;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Server wide metrics: transferred bytes, decoded frames, active connections, errors by {@link Error.Reason}, pending
+ * tasks of event loops, event loop delays and stalls, and buffer allocator usage.
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class ServerMetrics {
+    /**
+     * Count of received bytes.
+     */
+    private final LongAdder bytesIn = new LongAdder();
+
+    /**
+     * Count of written bytes.
+     */
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * Count of compressed responses.
+     */
+    private final LongAdder compressedResponses = new LongAdder();
+
+    /**
+     * Count of bytes saved by compressing responses.
+     */
+    private final LongAdder compressionSavedBytes = new LongAdder();
+
+    /**
+     * Count of decoded frames.
+     */
+    private final LongAdder framesDecoded = new LongAdder();
+
+    /**
+     * Count of active connections.
+     */
+    private final LongAdder activeConnections = new LongAdder();
+
+    /**
+     * Count of errors, indexed by {@link Error.Reason} ordinal.
+     */
+    private final LongAdder[] errors = new LongAdder[Error.Reason.values().length];
+
+    /**
+     * Supplier of pending tasks count of event loops, registered when server starts.
+     */
+    private volatile LongSupplier pendingTasks = () -> 0;
+
+    /**
+     * Histogram of times in nanoseconds that probe tasks waited before their event loop ran them.
+     */
+    private final Histogram eventLoopDelay = new Histogram(TimeUnit.MINUTES.toNanos(1));
+
+    /**
+     * Histogram of durations in nanoseconds that event loops were stalled.
+     */
+    private final Histogram eventLoopStalls = new Histogram(TimeUnit.MINUTES.toNanos(1));
+
+    /**
+     * Metrics of pooled buffer allocator of connections, registered when server starts.
+     */
+    private volatile PooledByteBufAllocatorMetric allocator;
+
+    /**
+     * Constructor to create an instance of this model.
+     */
+    ServerMetrics() {
+        for (int i = 0; i < errors.length; i++)
+            errors[i] = new LongAdder();
+    }
+
+    /**
+     * Records received bytes.
+     *
+     * @param bytes Count of received bytes.
+     */
+    public void recordBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    /**
+     * Records written bytes.
+     *
+     * @param bytes Count of written bytes.
+     */
+    public void recordBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * Records a compressed response.
+     *
+     * @param originalBytes   Size of the response in bytes.
+     * @param compressedBytes Size of compressed response in bytes.
+     */
+    public void recordCompressedResponse(long originalBytes, long compressedBytes) {
+        compressedResponses.increment();
+        compressionSavedBytes.add(originalBytes - compressedBytes);
+    }
+
+    /**
+     * Records a decoded frame.
+     */
+    public void recordFrameDecoded() {
+        framesDecoded.increment();
+    }
+
+    /**
+     * Records an opened connection.
+     */
+    public void recordConnectionOpened() {
+        activeConnections.increment();
+    }
+
+    /**
+     * Records a closed connection.
+     */
+    public void recordConnectionClosed() {
+        activeConnections.decrement();
+    }
+
+    /**
+     * Records an error.
+     *
+     * @param reason Reason of the error.
+     */
+    public void recordError(Error.Reason reason) {
+        errors[reason.ordinal()].increment();
+    }
+
+    /**
+     * Records time that a probe task waited before its event loop ran it.
+     *
+     * @param delay The delay in nanoseconds.
+     */
+    public void recordEventLoopDelay(long delay) {
+        eventLoopDelay.record(delay);
+    }
+
+    /**
+     * Records an event loop stall.
+     *
+     * @param duration The stall duration in nanoseconds.
+     */
+    public void recordEventLoopStall(long duration) {
+        eventLoopStalls.record(duration);
+    }
+
+    /**
+     * Registers supplier of pending tasks count of event loops.
+     *
+     * @param pendingTasks Supplier of pending tasks count.
+     */
+    public void setPendingTasks(LongSupplier pendingTasks) {
+        this.pendingTasks = pendingTasks;
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    public long getCompressionSavedBytes() {
+        return compressionSavedBytes.sum();
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded.sum();
+    }
+
+    public long getActiveConnections() {
+        return activeConnections.sum();
+    }
+
+    /**
+     * Returns back count of errors with provided reason.
+     *
+     * @param reason Reason of errors.
+     * @return Count of errors.
+     */
+    public long getErrors(Error.Reason reason) {
+        return errors[reason.ordinal()].sum();
+    }
+
+    /**
+     * Registers metrics of pooled buffer allocator of connections.
+     *
+     * @param allocator Metrics of the allocator.
+     */
+    public void setAllocator(PooledByteBufAllocatorMetric allocator) {
+        this.allocator = allocator;
+    }
+
+    public long getPendingTasks() {
+        return pendingTasks.getAsLong();
+    }
+
+    public Histogram getEventLoopDelay() {
+        return eventLoopDelay;
+    }
+
+    public Histogram getEventLoopStalls() {
+        return eventLoopStalls;
+    }
+
+    public Optional<PooledByteBufAllocatorMetric> getAllocator() {
+        return Optional.ofNullable(allocator);
+    }
+}
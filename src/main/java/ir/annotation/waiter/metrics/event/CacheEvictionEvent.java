@@ -0,0 +1,35 @@
+package ir.annotation.waiter.metrics.event;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of a procedure call result evicted from result cache.
+ *
+ * @author Alireza Pourtaghi
+ */
+@Name("waiter.CacheEviction")
+@Label("Result Cache Eviction")
+@Category({"Waiter", "Procedure"})
+@StackTrace(false)
+public final class CacheEvictionEvent extends Event {
+    @Label("Procedure")
+    private String procedure;
+
+    @Label("Cause")
+    private String cause;
+
+    /**
+     * Commits an event for provided evicted entry, if this event is enabled.
+     *
+     * @param procedure Identifier of the procedure that its result is evicted.
+     * @param cause     Cause of the eviction.
+     */
+    public static void commit(String procedure, String cause) {
+        var event = new CacheEvictionEvent();
+        if (event.shouldCommit()) {
+            event.procedure = procedure;
+            event.cause = cause;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ir.annotation.waiter.metrics.event;
+
+import jdk.jfr.*;
+
+import java.net.SocketAddress;
+
+/**
+ * Flight recorder event of an accepted client connection.
+ *
+ * @author Alireza Pourtaghi
+ */
+@Name("waiter.ConnectionAccepted")
+@Label("Connection Accepted")
+@Category({"Waiter", "Server"})
+@StackTrace(false)
+public final class ConnectionAcceptedEvent extends Event {
+    @Label("Remote Address")
+    private String remoteAddress;
+
+    /**
+     * Commits an event for provided connection, if this event is enabled.
+     *
+     * @param remoteAddress Remote address of the connection.
+     */
+    public static void commit(SocketAddress remoteAddress) {
+        var event = new ConnectionAcceptedEvent();
+        if (event.shouldCommit()) {
+            event.remoteAddress = String.valueOf(remoteAddress);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ir.annotation.waiter.metrics.event;
+
+import jdk.jfr.*;
+
+import java.net.SocketAddress;
+
+/**
+ * Flight recorder event of a closed client connection.
+ *
+ * @author Alireza Pourtaghi
+ */
+@Name("waiter.ConnectionClosed")
+@Label("Connection Closed")
+@Category({"Waiter", "Server"})
+@StackTrace(false)
+public final class ConnectionClosedEvent extends Event {
+    @Label("Remote Address")
+    private String remoteAddress;
+
+    /**
+     * Commits an event for provided connection, if this event is enabled.
+     *
+     * @param remoteAddress Remote address of the connection.
+     */
+    public static void commit(SocketAddress remoteAddress) {
+        var event = new ConnectionClosedEvent();
+        if (event.shouldCommit()) {
+            event.remoteAddress = String.valueOf(remoteAddress);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ir.annotation.waiter.metrics.event;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of an error response sent to a client before its connection is closed.
+ *
+ * @author Alireza Pourtaghi
+ */
+@Name("waiter.ErrorEmitted")
+@Label("Error Emitted")
+@Category({"Waiter", "Server"})
+@StackTrace(false)
+public final class ErrorEmittedEvent extends Event {
+    @Label("Code")
+    private String code;
+
+    @Label("Exception Class")
+    @Description("Class of the unexpected exception that caused an unknown error")
+    private Class<?> exceptionClass;
+
+    /**
+     * Commits an event for provided error, if this event is enabled.
+     *
+     * @param code           Code of the sent error.
+     * @param exceptionClass Class of the unexpected exception, {@code null} for logical errors.
+     */
+    public static void commit(String code, Class<?> exceptionClass) {
+        var event = new ErrorEmittedEvent();
+        if (event.shouldCommit()) {
+            event.code = code;
+            event.exceptionClass = exceptionClass;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ir.annotation.waiter.metrics.event;
+
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+
+import java.util.List;
+
+/**
+ * Registry of flight recorder events of this application.
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class Events {
+    /**
+     * Event classes of this application.
+     */
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            ConnectionAcceptedEvent.class,
+            ConnectionClosedEvent.class,
+            FrameDecodedEvent.class,
+            ProcedureExecutionEvent.class,
+            ErrorEmittedEvent.class,
+            CacheEvictionEvent.class
+    );
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private Events() {
+    }
+
+    /**
+     * Registers all event classes on flight recorder.
+     * <p>
+     * First registration initializes flight recorder's metadata, which takes hundreds of milliseconds; registering ahead
+     * keeps that off event loop threads, where the first event would otherwise be created.
+     * </p>
+     */
+    public static void register() {
+        EVENTS.forEach(FlightRecorder::register);
+    }
+}
@@ -0,0 +1,35 @@
+package ir.annotation.waiter.metrics.event;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of decoding a received frame to a request, recorded if decoding takes longer than its threshold.
+ * <p>
+ * Must be created and begun on the decoding thread, then recorded once the frame is decoded.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@Name("waiter.FrameDecoded")
+@Label("Frame Decoded")
+@Category({"Waiter", "Server"})
+@Threshold("100 us")
+@StackTrace(false)
+public final class FrameDecodedEvent extends Event {
+    @Label("Frame Size")
+    @DataAmount
+    private int size;
+
+    /**
+     * Ends and commits this event, if it is enabled and exceeds its threshold.
+     *
+     * @param size Size of the frame in bytes.
+     */
+    public void record(int size) {
+        end();
+        if (shouldCommit()) {
+            this.size = size;
+            commit();
+        }
+    }
+}
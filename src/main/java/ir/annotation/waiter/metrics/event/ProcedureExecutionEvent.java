@@ -0,0 +1,65 @@
+package ir.annotation.waiter.metrics.event;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of a procedure call, from dispatch to completion, recorded if the call takes longer than its threshold.
+ *
+ * @author Alireza Pourtaghi
+ */
+@Name("waiter.ProcedureExecution")
+@Label("Procedure Execution")
+@Category({"Waiter", "Procedure"})
+@Threshold("1 ms")
+@StackTrace(false)
+public final class ProcedureExecutionEvent extends Event {
+    /**
+     * Outcome of calls that completed successfully.
+     */
+    public static final String SUCCESS = "success";
+
+    /**
+     * Outcome of calls that are cancelled because their channel became inactive.
+     */
+    public static final String CANCELLED = "cancelled";
+
+    @Label("Procedure")
+    private String procedure;
+
+    @Label("Outcome")
+    @Description("Success, cancelled or code of the error")
+    private String outcome;
+
+    /**
+     * Begins an event for a call of provided procedure, if this event is enabled.
+     * <p>
+     * The event outlives the dispatching method, so it is only allocated when enabled.
+     * </p>
+     *
+     * @param procedure Identifier of the called procedure.
+     * @return The begun event, or {@code null} if this event is disabled.
+     */
+    public static ProcedureExecutionEvent start(String procedure) {
+        if (!new ProcedureExecutionEvent().isEnabled())
+            return null;
+
+        var event = new ProcedureExecutionEvent();
+        event.procedure = procedure;
+        event.begin();
+
+        return event;
+    }
+
+    /**
+     * Ends and commits this event, if it exceeds its threshold.
+     *
+     * @param outcome Outcome of the call.
+     */
+    public void record(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
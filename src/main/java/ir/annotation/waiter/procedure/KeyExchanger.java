@@ -1,6 +1,7 @@
 package ir.annotation.waiter.procedure;
 
 import ir.annotation.waiter.core.procedure.AsynchronousProcedure;
+import ir.annotation.waiter.core.procedure.annotation.Discoverable;
 
 import javax.crypto.KeyAgreement;
 import java.security.Key;
@@ -16,6 +17,7 @@ import java.util.concurrent.ExecutorService;
  *
  * @author Alireza Pourtaghi
  */
+@Discoverable
 public class KeyExchanger extends AsynchronousProcedure<KeyExchanger.KeyExchangeRequest, KeyExchanger.KeyExchangeResponse> {
     /**
      * Public-Private key pair generator procedure.
@@ -40,7 +42,8 @@ public class KeyExchanger extends AsynchronousProcedure<KeyExchanger.KeyExchange
                 PublicPrivateKeyPairGenerator.GenerateKeyPairRequest.KeySize.valueOf(keyExchangeRequest.getKeySize().name())
         );
 
-        return publicPrivateKeyPairGenerator.apply(executor, generateKeyPairRequest).thenApply(keyPair -> {
+        var keyPairGeneration = publicPrivateKeyPairGenerator.apply(executor, generateKeyPairRequest);
+        CompletableFuture<Optional<KeyExchangeResponse>> keyExchange = keyPairGeneration.thenApply(keyPair -> {
             try {
                 if (keyPair.isPresent()) {
                     var keyAgreement = KeyAgreement.getInstance(keyExchangeRequest.getAlgorithm().name());
@@ -56,6 +59,14 @@ public class KeyExchanger extends AsynchronousProcedure<KeyExchanger.KeyExchange
                 throw new RuntimeException(e);
             }
         });
+
+        // Propagates cancellation and timeout of key exchange, so a still queued key pair generation will not run.
+        keyExchange.whenComplete((keyExchangeResponse, cause) -> {
+            if (cause != null)
+                keyPairGeneration.cancel(false);
+        });
+
+        return keyExchange;
     }
 
     /**
@@ -1,6 +1,7 @@
 package ir.annotation.waiter.procedure;
 
 import ir.annotation.waiter.core.procedure.AsynchronousProcedure;
+import ir.annotation.waiter.core.procedure.annotation.Discoverable;
 
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
@@ -14,6 +15,7 @@ import java.util.concurrent.ExecutorService;
  *
  * @author Alireza Pourtaghi
  */
+@Discoverable
 public class PublicPrivateKeyPairGenerator extends AsynchronousProcedure<PublicPrivateKeyPairGenerator.GenerateKeyPairRequest, KeyPair> {
 
     /**
@@ -1,6 +1,7 @@
 package ir.annotation.waiter.procedure;
 
 import ir.annotation.waiter.core.procedure.AsynchronousProcedure;
+import ir.annotation.waiter.core.procedure.annotation.Discoverable;
 
 import java.security.SecureRandom;
 import java.util.Optional;
@@ -12,6 +13,7 @@ import java.util.concurrent.ExecutorService;
  *
  * @author Alireza Pourtaghi
  */
+@Discoverable
 public class RandomNumberGenerator extends AsynchronousProcedure<RandomNumberGenerator.GenerateRandomNumberRequest, Integer> {
 
     /**
@@ -1,6 +1,8 @@
 package ir.annotation.waiter.procedure;
 
 import ir.annotation.waiter.core.procedure.AsynchronousProcedure;
+import ir.annotation.waiter.core.procedure.annotation.Deterministic;
+import ir.annotation.waiter.core.procedure.annotation.Discoverable;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -13,24 +15,30 @@ import java.util.concurrent.ExecutorService;
  *
  * @author Alireza Pourtaghi
  */
+@Discoverable
+@Deterministic
 public class SHA256HashGenerator extends AsynchronousProcedure<byte[], byte[]> {
     /**
-     * Message hashing algorithm.
+     * Message hashing algorithm, one instance per thread as {@link MessageDigest} is not thread safe.
      */
-    private final MessageDigest messageDigest;
+    private final ThreadLocal<MessageDigest> messageDigest;
 
     /**
      * Constructor to create an an instance of this procedure.
-     *
-     * @throws NoSuchAlgorithmException If desired algorithm name does not exists.
      */
-    public SHA256HashGenerator() throws NoSuchAlgorithmException {
+    public SHA256HashGenerator() {
         super("generate_SHA256_hash");
-        this.messageDigest = MessageDigest.getInstance("SHA-256");
+        this.messageDigest = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
     @Override
     public CompletableFuture<Optional<byte[]>> apply(ExecutorService executor, byte[] bytes) {
-        return CompletableFuture.supplyAsync(() -> Optional.of(messageDigest.digest(bytes)), executor);
+        return CompletableFuture.supplyAsync(() -> Optional.of(messageDigest.get().digest(bytes)), executor);
     }
 }
@@ -1,6 +1,7 @@
 package ir.annotation.waiter.procedure;
 
 import ir.annotation.waiter.core.procedure.AsynchronousProcedure;
+import ir.annotation.waiter.core.procedure.annotation.Discoverable;
 
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
@@ -14,6 +15,7 @@ import java.util.concurrent.ExecutorService;
  *
  * @author Alireza Pourtaghi
  */
+@Discoverable
 public class SecretKeyGenerator extends AsynchronousProcedure<SecretKeyGenerator.GenerateSecretKeyRequest, SecretKey> {
 
     /**
@@ -0,0 +1,54 @@
+package ir.annotation.waiter.processor;
+
+import com.google.common.hash.HashCode;
+
+import java.util.Objects;
+
+/**
+ * Key model of a procedure call that identifies calls with identical arguments.
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class CallKey {
+    /**
+     * The procedure's identifier.
+     */
+    private final String identifier;
+
+    /**
+     * Collision resistant digest of call arguments.
+     */
+    private final HashCode digest;
+
+    /**
+     * Constructor to create an instance of this model.
+     *
+     * @param identifier The procedure's identifier.
+     * @param digest     Collision resistant digest of call arguments.
+     */
+    public CallKey(String identifier, HashCode digest) {
+        this.identifier = identifier;
+        this.digest = digest;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public HashCode getDigest() {
+        return digest;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CallKey callKey = (CallKey) o;
+        return Objects.equals(identifier, callKey.identifier) && Objects.equals(digest, callKey.digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(identifier, digest);
+    }
+}
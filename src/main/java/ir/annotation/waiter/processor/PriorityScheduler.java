@@ -0,0 +1,413 @@
+package ir.annotation.waiter.processor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A priority aware scheduler based on multi-level queues with aging.
+ * <p>
+ * Each {@link Priority} level has its own FIFO queue. Workers always pick the task with the best effective priority, where a
+ * queued task is promoted one level for every aging threshold it has been waiting, so lower priority tasks can not starve.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class PriorityScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(PriorityScheduler.class);
+
+    /**
+     * Queued tasks, one queue per priority level.
+     */
+    private final ArrayDeque<Task>[] queues;
+
+    /**
+     * Executor views of this scheduler, one per priority level.
+     */
+    private final ExecutorService[] executors;
+
+    /**
+     * Lock that guards queues.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Condition to signal waiting workers when a new task is queued.
+     */
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * Live worker threads, guarded by lock.
+     */
+    private final List<Thread> workers = new ArrayList<>();
+
+    /**
+     * Target number of worker threads, guarded by lock.
+     */
+    private int parallelism;
+
+    /**
+     * Number of worker threads created so far, used to name workers; guarded by lock.
+     */
+    private int createdWorkers;
+
+    /**
+     * Whether this scheduler is started, guarded by lock.
+     */
+    private boolean started;
+
+    /**
+     * Time in nanoseconds a queued task waits before it is promoted one priority level.
+     */
+    private volatile long agingThreshold;
+
+    /**
+     * Shutdown flag of this scheduler.
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * Constructor to create an instance of this scheduler.
+     *
+     * @param parallelism    Number of worker threads.
+     * @param agingThreshold Time in milliseconds a queued task waits before it is promoted one priority level.
+     * @throws IllegalArgumentException If parallelism or aging threshold is not positive.
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityScheduler(int parallelism, long agingThreshold) {
+        if (parallelism < 1 || agingThreshold < 1)
+            throw new IllegalArgumentException("parallelism and aging threshold must be positive");
+
+        var priorities = Priority.values();
+        this.queues = new ArrayDeque[priorities.length];
+        this.executors = new ExecutorService[priorities.length];
+        for (var priority : priorities) {
+            queues[priority.ordinal()] = new ArrayDeque<>();
+            executors[priority.ordinal()] = new PriorityExecutor(priority);
+        }
+
+        this.agingThreshold = TimeUnit.MILLISECONDS.toNanos(agingThreshold);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Starts worker threads.
+     */
+    public void start() {
+        lock.lock();
+        try {
+            started = true;
+            addWorkers();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes number of worker threads; extra workers retire after finishing their current task.
+     *
+     * @param parallelism Number of worker threads.
+     * @throws IllegalArgumentException If parallelism is not positive.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive");
+
+        lock.lock();
+        try {
+            this.parallelism = parallelism;
+            if (started && !shutdown)
+                addWorkers();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes time a queued task waits before it is promoted one priority level.
+     *
+     * @param agingThreshold Time in milliseconds a queued task waits before it is promoted one priority level.
+     * @throws IllegalArgumentException If aging threshold is not positive.
+     */
+    public void setAgingThreshold(long agingThreshold) {
+        if (agingThreshold < 1)
+            throw new IllegalArgumentException("aging threshold must be positive");
+
+        this.agingThreshold = TimeUnit.MILLISECONDS.toNanos(agingThreshold);
+    }
+
+    /**
+     * Initiates an orderly shutdown; already queued tasks are executed but no new task is accepted.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until all workers terminate after a shutdown request, or the timeout occurs.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit    The time unit of the timeout argument.
+     * @return {@code true} if this scheduler terminated and {@code false} if the timeout elapsed before termination.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        var deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (var worker : workers()) {
+            var remaining = deadline - System.nanoTime();
+            if (remaining > 0)
+                TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+            if (worker.isAlive())
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns an executor service view of this scheduler that queues its tasks with provided priority.
+     * <p>
+     * Life cycle of returned executor is managed by this scheduler, so its shutdown methods are ignored.
+     * </p>
+     *
+     * @param priority The priority of tasks submitted to returned executor.
+     * @return Executor service view of this scheduler.
+     * @throws NullPointerException If provided priority is {@code null}.
+     */
+    public ExecutorService executor(Priority priority) {
+        requireNonNull(priority);
+
+        return executors[priority.ordinal()];
+    }
+
+    /**
+     * Creates and starts workers until number of live workers reaches parallelism. Must be called while holding lock.
+     */
+    private void addWorkers() {
+        while (workers.size() < parallelism) {
+            var worker = new Thread(this::work, "processor-" + createdWorkers++);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Returns back a snapshot of live worker threads.
+     *
+     * @return Copy of live worker threads.
+     */
+    private List<Thread> workers() {
+        lock.lock();
+        try {
+            return new ArrayList<>(workers);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues provided command with provided priority.
+     *
+     * @param priority The priority of command.
+     * @param command  The command that must be executed.
+     * @throws RejectedExecutionException If this scheduler is shut down.
+     */
+    private void enqueue(Priority priority, Runnable command) {
+        requireNonNull(command);
+
+        lock.lock();
+        try {
+            if (shutdown)
+                throw new RejectedExecutionException("scheduler is shut down");
+
+            queues[priority.ordinal()].addLast(new Task(command, System.nanoTime()));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the task with best effective priority, waiting if necessary.
+     *
+     * @return The next task to run, or {@code null} if this scheduler is shut down and all queues are drained, or calling
+     * worker must retire because parallelism is decreased.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private Task take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (!shutdown && workers.size() > parallelism) {
+                    workers.remove(Thread.currentThread());
+                    return null;
+                }
+
+                var now = System.nanoTime();
+                ArrayDeque<Task> selected = null;
+                long selectedLevel = Long.MAX_VALUE;
+
+                for (int level = 0; level < queues.length; level++) {
+                    var head = queues[level].peekFirst();
+                    if (head != null) {
+                        var effectiveLevel = level - (now - head.getEnqueueTime()) / agingThreshold;
+                        if (effectiveLevel < selectedLevel) {
+                            selected = queues[level];
+                            selectedLevel = effectiveLevel;
+                        }
+                    }
+                }
+
+                if (selected != null)
+                    return selected.pollFirst();
+                if (shutdown)
+                    return null;
+
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Main loop of worker threads.
+     */
+    private void work() {
+        try {
+            Task task;
+            while ((task = take()) != null) {
+                try {
+                    task.getCommand().run();
+                } catch (Throwable t) {
+                    logger.error("task execution failed ", t);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Priority levels of scheduled tasks, from highest to lowest.
+     *
+     * @author Alireza Pourtaghi
+     */
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    /**
+     * A queued command with its enqueue time.
+     *
+     * @author Alireza Pourtaghi
+     */
+    private static final class Task {
+        /**
+         * The command that must be executed.
+         */
+        private final Runnable command;
+
+        /**
+         * The time in nanoseconds that this task has been queued.
+         */
+        private final long enqueueTime;
+
+        /**
+         * Constructor to create an instance of this model.
+         *
+         * @param command     The command that must be executed.
+         * @param enqueueTime The time in nanoseconds that this task has been queued.
+         */
+        private Task(Runnable command, long enqueueTime) {
+            this.command = command;
+            this.enqueueTime = enqueueTime;
+        }
+
+        private Runnable getCommand() {
+            return command;
+        }
+
+        private long getEnqueueTime() {
+            return enqueueTime;
+        }
+    }
+
+    /**
+     * Executor service view of scheduler that queues its tasks with a fixed priority. Its shutdown methods are ignored, as the
+     * scheduler is shared by all priorities and shut down by its owner.
+     *
+     * @author Alireza Pourtaghi
+     */
+    private final class PriorityExecutor extends AbstractExecutorService {
+        /**
+         * The priority of tasks submitted to this executor.
+         */
+        private final Priority priority;
+
+        /**
+         * Constructor to create an instance of this executor.
+         *
+         * @param priority The priority of tasks submitted to this executor.
+         */
+        private PriorityExecutor(Priority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            enqueue(priority, command);
+        }
+
+        @Override
+        public void shutdown() {
+            logger.warn("ignored shutdown of {} priority executor, its life cycle is managed by scheduler", priority);
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            logger.warn("ignored shutdown of {} priority executor, its life cycle is managed by scheduler", priority);
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            for (var worker : workers())
+                if (worker.isAlive())
+                    return false;
+
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return PriorityScheduler.this.awaitTermination(timeout, unit);
+        }
+    }
+}
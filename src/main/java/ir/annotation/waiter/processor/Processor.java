@@ -0,0 +1,356 @@
+package ir.annotation.waiter.processor;
+
+import com.google.common.hash.HashCode;
+import ir.annotation.waiter.core.application.Component;
+import ir.annotation.waiter.core.application.Reconfigurable;
+import ir.annotation.waiter.core.application.annotation.DependsOn;
+import ir.annotation.waiter.core.procedure.AbstractProcedure;
+import ir.annotation.waiter.core.procedure.Procedure;
+import ir.annotation.waiter.core.procedure.ProcedureDiscovery;
+import ir.annotation.waiter.core.procedure.annotation.Deterministic;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.tracing.Trace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority;
+
+/**
+ * Procedure processor component that runs procedure calls on a priority aware scheduler.
+ * <p>
+ * Parallelism, aging threshold, default deadline and result cache size can be reconfigured while running.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@DependsOn(Metrics.class)
+public final class Processor extends Component<Processor> implements Reconfigurable {
+    private static final Logger logger = LoggerFactory.getLogger(Processor.class);
+
+    /**
+     * Scheduler that procedure calls are run on.
+     */
+    private PriorityScheduler scheduler;
+
+    /**
+     * Available procedures discovered at build time, added to context on start.
+     */
+    private List<AbstractProcedure<?, ?>> procedures;
+
+    /**
+     * Default time in milliseconds that calls must complete within, zero means no deadline.
+     */
+    private volatile long defaultDeadline;
+
+    /**
+     * Cache of deterministic procedure call results, {@code null} if memoization is disabled.
+     */
+    private ResultCache resultCache;
+
+    /**
+     * Coalesces identical concurrent calls of deterministic procedures.
+     */
+    private final SingleFlight<CallKey, Optional<?>> singleFlight = new SingleFlight<>();
+
+    /**
+     * Public accessible constructor to identify this component.
+     */
+    public Processor() {
+        super("processor");
+    }
+
+    /**
+     * Private constructor to build an instance of this processor implementation.
+     *
+     * @param scheduler       Scheduler that procedure calls are run on.
+     * @param procedures      Available procedures, added to context on start.
+     * @param defaultDeadline Default time in milliseconds that calls must complete within, zero means no deadline.
+     * @param resultCache     Cache of deterministic procedure call results, {@code null} if memoization is disabled.
+     */
+    private Processor(PriorityScheduler scheduler, List<AbstractProcedure<?, ?>> procedures, long defaultDeadline, ResultCache resultCache) {
+        this();
+        this.scheduler = scheduler;
+        this.procedures = procedures;
+        this.defaultDeadline = defaultDeadline;
+        this.resultCache = resultCache;
+    }
+
+    @Override
+    public Processor setup(Properties properties) {
+        var parallelism = Integer.parseInt(properties.getOrDefault("processor.parallelism", "0").toString());
+        var agingThreshold = Long.parseLong(properties.getOrDefault("processor.aging-threshold", "100").toString());
+        var defaultDeadline = Long.parseLong(properties.getOrDefault("processor.default-deadline", "0").toString());
+        var cacheMaximumWeight = Long.parseLong(properties.getOrDefault("processor.cache.maximum-weight", "65536").toString());
+
+        var scheduler = new PriorityScheduler(parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism, agingThreshold);
+        try {
+            var procedures = new ArrayList<AbstractProcedure<?, ?>>();
+            for (var discovery : ServiceLoader.load(ProcedureDiscovery.class, Processor.class.getClassLoader()))
+                procedures.addAll(discovery.getProcedures());
+
+            return new Processor(scheduler, procedures, defaultDeadline, cacheMaximumWeight > 0 ? new ResultCache(cacheMaximumWeight * 1024) : null);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void reconfigure(Properties properties) {
+        var parallelism = Integer.parseInt(properties.getOrDefault("processor.parallelism", "0").toString());
+        var agingThreshold = Long.parseLong(properties.getOrDefault("processor.aging-threshold", "100").toString());
+        var defaultDeadline = Long.parseLong(properties.getOrDefault("processor.default-deadline", "0").toString());
+        var cacheMaximumWeight = Long.parseLong(properties.getOrDefault("processor.cache.maximum-weight", "65536").toString());
+        if (parallelism < 0 || agingThreshold < 1 || defaultDeadline < 0 || cacheMaximumWeight < 0)
+            throw new IllegalArgumentException("processor properties must not be negative");
+
+        getScheduler().setParallelism(parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism);
+        getScheduler().setAgingThreshold(agingThreshold);
+        this.defaultDeadline = defaultDeadline;
+        if (getResultCache() != null)
+            getResultCache().setMaximumWeight(cacheMaximumWeight * 1024);
+        else if (cacheMaximumWeight > 0)
+            logger.warn("result cache is disabled on startup and can not be enabled without restart");
+    }
+
+    @Override
+    public void start() {
+        logger.info("starting processor with {} procedures ...", getProcedures().size());
+        getProcedures().forEach(getContext()::addProcedure);
+        if (getResultCache() != null)
+            getContext().getComponentByIdentifier("metrics", Metrics.class)
+                    .orElseThrow(() -> new IllegalStateException("metrics component is not started"))
+                    .setResultCache(getResultCache());
+        getScheduler().start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        logger.info("stopping processor ...");
+        getScheduler().shutdown();
+        if (!getScheduler().awaitTermination(30, TimeUnit.SECONDS))
+            logger.warn("processor did not terminate in time; abandoning queued calls");
+        if (getResultCache() != null)
+            logger.info("result cache statistics {}", getResultCache().stats());
+    }
+
+    /**
+     * Discards cached results of deterministic calls, e.g. results of synthetic warm-up calls that must not be served to clients.
+     */
+    public void clearResults() {
+        if (getResultCache() != null)
+            getResultCache().clear();
+    }
+
+    /**
+     * Returns back a procedure by its identifier.
+     *
+     * @param identifier The procedure's identifier.
+     * @return Optional {@link AbstractProcedure} that has same identifier as provided one.
+     * @throws NullPointerException If provided identifier is {@code null}.
+     */
+    public Optional<AbstractProcedure<?, ?>> getProcedureByIdentifier(String identifier) {
+        return getContext().getProcedureByIdentifier(identifier);
+    }
+
+    /**
+     * Calls provided procedure with provided argument on the scheduler, queued with provided priority.
+     * <p>
+     * The returned future completes exceptionally with {@link java.util.concurrent.TimeoutException} if the call does not
+     * complete before its deadline. Cancelling the returned future, or its timeout, prevents the call from running if it is
+     * still queued; a call that is already running can not be interrupted and its result is discarded.
+     * </p>
+     *
+     * @param procedure The procedure that must be called.
+     * @param argument  The argument that must be provided on procedure call.
+     * @param priority  The priority of this call.
+     * @param deadline  Time in milliseconds that the call must complete within, zero means default deadline.
+     * @param <T>       The type of the input to the procedure.
+     * @param <R>       The type of the result of the procedure.
+     * @return Asynchronous optional value that holds the response.
+     */
+    public <T, R> CompletableFuture<Optional<R>> process(AbstractProcedure<T, R> procedure, T argument, Priority priority, long deadline) {
+        return process(procedure, argument, null, priority, deadline);
+    }
+
+    /**
+     * Calls provided procedure with provided argument on the scheduler, queued with provided priority.
+     * <p>
+     * Results of procedures annotated with {@link Deterministic} are memoized by procedure identifier and arguments digest,
+     * and calls with a cached result complete without running the procedure. The digest is computed on the scheduler, before
+     * the cache is looked up, so hashing large arguments does not block the calling thread, e.g. an event loop. Identical concurrent calls of
+     * deterministic procedures are coalesced into one computation that all callers wait on, each with its own deadline; the
+     * computation is cancelled once all of its callers are cancelled or timed out.
+     * </p>
+     *
+     * @param procedure       The procedure that must be called.
+     * @param argument        The argument that must be provided on procedure call.
+     * @param argumentsDigest Supplier of call arguments digest, only invoked for deterministic procedures, on a scheduler thread;
+     *                        {@code null} disables memoization.
+     * @param priority        The priority of this call.
+     * @param deadline        Time in milliseconds that the call must complete within, zero means default deadline.
+     * @param <T>             The type of the input to the procedure.
+     * @param <R>             The type of the result of the procedure.
+     * @return Asynchronous optional value that holds the response.
+     * @see #process(AbstractProcedure, Object, Priority, long)
+     */
+    public <T, R> CompletableFuture<Optional<R>> process(AbstractProcedure<T, R> procedure, T argument, Supplier<HashCode> argumentsDigest, Priority priority, long deadline) {
+        return process(procedure, argument, argumentsDigest, priority, deadline, null);
+    }
+
+    /**
+     * Calls provided procedure with provided argument on the scheduler, marking when the call starts running on provided trace.
+     * <p>
+     * Calls that are served from result cache or coalesced into an identical call never start, so their start is not marked.
+     * </p>
+     *
+     * @param procedure       The procedure that must be called.
+     * @param argument        The argument that must be provided on procedure call.
+     * @param argumentsDigest Supplier of call arguments digest, only invoked for deterministic procedures, on a scheduler thread;
+     *                        {@code null} disables memoization.
+     * @param priority        The priority of this call.
+     * @param deadline        Time in milliseconds that the call must complete within, zero means default deadline.
+     * @param trace           Trace of this call, {@code null} if it is not sampled.
+     * @param <T>             The type of the input to the procedure.
+     * @param <R>             The type of the result of the procedure.
+     * @return Asynchronous optional value that holds the response.
+     * @see #process(AbstractProcedure, Object, Supplier, Priority, long)
+     */
+    public <T, R> CompletableFuture<Optional<R>> process(AbstractProcedure<T, R> procedure, T argument, Supplier<HashCode> argumentsDigest, Priority priority, long deadline, Trace trace) {
+        if (argumentsDigest == null || !procedure.getClass().isAnnotationPresent(Deterministic.class))
+            return withDeadline(call(procedure, argument, priority, trace), deadline);
+
+        var result = new CompletableFuture<Optional<R>>();
+        getScheduler().executor(priority).execute(() -> {
+            // A call that is cancelled or timed out while queued is neither hashed nor looked up.
+            if (result.isDone())
+                return;
+
+            try {
+                memoize(procedure, argument, new CallKey(procedure.getIdentifier(), argumentsDigest.get()), priority, trace, result);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return withDeadline(result, deadline);
+    }
+
+    /**
+     * Completes provided result of a deterministic call from result cache, or from an identical call that runs once for all of
+     * its concurrent callers; the shared call is cancelled for this caller once its result is cancelled or timed out.
+     *
+     * @param procedure The procedure that must be called.
+     * @param argument  The argument that must be provided on procedure call.
+     * @param key       Key of the call.
+     * @param priority  The priority of this call.
+     * @param trace     Trace of this call, {@code null} if it is not sampled.
+     * @param result    Result of this caller.
+     * @param <T>       The type of the input to the procedure.
+     * @param <R>       The type of the result of the procedure.
+     */
+    @SuppressWarnings("unchecked")
+    private <T, R> void memoize(AbstractProcedure<T, R> procedure, T argument, CallKey key, Priority priority, Trace trace, CompletableFuture<Optional<R>> result) {
+        if (getResultCache() != null) {
+            var cached = getResultCache().get(key);
+            if (cached != null) {
+                result.complete((Optional<R>) cached);
+                return;
+            }
+        }
+
+        var shared = singleFlight.execute(key, () -> {
+            var call = call(procedure, argument, priority, trace);
+            return propagateCancellation(call, call.thenApply(value -> {
+                if (getResultCache() != null)
+                    getResultCache().put(key, value);
+
+                return (Optional<?>) value;
+            }));
+        });
+
+        shared.whenComplete((value, cause) -> {
+            if (cause != null)
+                result.completeExceptionally(cause);
+            else
+                result.complete((Optional<R>) value);
+        });
+        propagateCancellation(shared, result);
+    }
+
+    /**
+     * Runs provided procedure with provided argument on the scheduler.
+     *
+     * @param procedure The procedure that must be called.
+     * @param argument  The argument that must be provided on procedure call.
+     * @param priority  The priority of this call.
+     * @param trace     Trace of this call, {@code null} if it is not sampled.
+     * @param <T>       The type of the input to the procedure.
+     * @param <R>       The type of the result of the procedure.
+     * @return Asynchronous optional value that holds the response.
+     */
+    private <T, R> CompletableFuture<Optional<R>> call(AbstractProcedure<T, R> procedure, T argument, Priority priority, Trace trace) {
+        var executor = trace == null ? getScheduler().executor(priority) : new TracingExecutor(getScheduler().executor(priority), trace);
+
+        if (procedure instanceof Procedure)
+            return CompletableFuture.supplyAsync(() -> procedure.apply(argument), executor);
+        else
+            return procedure.apply(executor, argument);
+    }
+
+    /**
+     * Applies deadline to provided call.
+     *
+     * @param call     The call that deadline must be applied to.
+     * @param deadline Time in milliseconds that the call must complete within, zero means default deadline.
+     * @param <R>      The type of the result of the procedure.
+     * @return The same call, that completes exceptionally with {@link java.util.concurrent.TimeoutException} after its deadline.
+     */
+    private <R> CompletableFuture<Optional<R>> withDeadline(CompletableFuture<Optional<R>> call, long deadline) {
+        var timeout = deadline > 0 ? deadline : getDefaultDeadline();
+
+        return timeout > 0 ? call.orTimeout(timeout, TimeUnit.MILLISECONDS) : call;
+    }
+
+    /**
+     * Cancels provided source future when provided dependent future is cancelled or completes exceptionally, e.g. by its
+     * timeout; a source that is already completed is not affected.
+     *
+     * @param source    The future that dependent future is derived from.
+     * @param dependent The dependent future.
+     * @param <V>       The type of the result of dependent future.
+     * @return The dependent future.
+     */
+    private static <V> CompletableFuture<V> propagateCancellation(CompletableFuture<?> source, CompletableFuture<V> dependent) {
+        dependent.whenComplete((result, cause) -> {
+            if (cause != null)
+                source.cancel(false);
+        });
+
+        return dependent;
+    }
+
+    PriorityScheduler getScheduler() {
+        return scheduler;
+    }
+
+    private List<AbstractProcedure<?, ?>> getProcedures() {
+        return procedures;
+    }
+
+    private long getDefaultDeadline() {
+        return defaultDeadline;
+    }
+
+    private ResultCache getResultCache() {
+        return resultCache;
+    }
+}
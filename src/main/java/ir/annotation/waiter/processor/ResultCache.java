@@ -0,0 +1,163 @@
+package ir.annotation.waiter.processor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ir.annotation.waiter.metrics.ResultCacheMetric;
+import ir.annotation.waiter.metrics.event.CacheEvictionEvent;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A bounded cache of procedure call results based on W-TinyLFU eviction policy.
+ * <p>
+ * Entries are keyed by procedure identifier and SHA-256 digest of call arguments, and weighted by approximate size of their results
+ * in bytes. Evictions are committed as flight recorder events, and statistics are exposed as {@link ResultCacheMetric}.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class ResultCache implements ResultCacheMetric {
+    /**
+     * Approximate memory overhead of each entry in bytes, including its key.
+     */
+    private static final int ENTRY_OVERHEAD = 112;
+
+    /**
+     * Underlying cache implementation.
+     */
+    private final Cache<CallKey, Optional<?>> cache;
+
+    /**
+     * Constructor to create an instance of this cache.
+     *
+     * @param maximumWeight Maximum total weight of cached entries in bytes.
+     */
+    public ResultCache(long maximumWeight) {
+        this(maximumWeight, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor to create an instance of this cache.
+     *
+     * @param maximumWeight Maximum total weight of cached entries in bytes.
+     * @param executor      Executor that maintenance of the cache, including eviction, runs on.
+     */
+    ResultCache(long maximumWeight, Executor executor) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .executor(executor)
+                .weigher((CallKey key, Optional<?> result) -> weigh(result))
+                .writer(new EvictionWriter())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns back the cached result of a call.
+     *
+     * @param key Key of the call.
+     * @return Cached result, or {@code null} if there is no cached result for this call.
+     */
+    public Optional<?> get(CallKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Caches result of a call.
+     *
+     * @param key    Key of the call.
+     * @param result Result of the call.
+     */
+    public void put(CallKey key, Optional<?> result) {
+        cache.put(key, result);
+    }
+
+    /**
+     * Discards all cached results.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Replaces maximum total weight of cached entries; entries are evicted if the cache exceeds new maximum.
+     *
+     * @param maximumWeight Maximum total weight of cached entries in bytes.
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maximumWeight));
+    }
+
+    /**
+     * Returns back a snapshot of this cache's statistics, including hit rate and eviction count.
+     *
+     * @return Statistics of this cache.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long weightedSize() {
+        var eviction = cache.policy().eviction();
+
+        return eviction.isPresent() ? eviction.get().weightedSize().orElse(0) : 0;
+    }
+
+    @Override
+    public long maximumWeight() {
+        return cache.policy().eviction().map(Policy.Eviction::getMaximum).orElse(0L);
+    }
+
+    /**
+     * Estimates weight of a cached result in bytes.
+     *
+     * @param result The cached result.
+     * @return Approximate weight of the entry.
+     */
+    private static int weigh(Optional<?> result) {
+        var value = result.orElse(null);
+        if (value instanceof byte[])
+            return ENTRY_OVERHEAD + ((byte[]) value).length;
+
+        return ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Cache writer that commits a flight recorder event for each evicted entry, synchronously while the entry is removed.
+     *
+     * @author Alireza Pourtaghi
+     */
+    private static final class EvictionWriter implements CacheWriter<CallKey, Optional<?>> {
+        @Override
+        public void write(CallKey key, Optional<?> result) {
+        }
+
+        @Override
+        public void delete(CallKey key, Optional<?> result, RemovalCause cause) {
+            if (cause.wasEvicted())
+                CacheEvictionEvent.commit(key.getIdentifier(), cause.name());
+        }
+    }
+}
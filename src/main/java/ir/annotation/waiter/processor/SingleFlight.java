@@ -0,0 +1,165 @@
+package ir.annotation.waiter.processor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent calls into one computation whose result is shared among all waiters.
+ * <p>
+ * Each waiter receives its own dependent copy of the shared future, so a waiter that cancels does not affect the others.
+ * Cancellation is propagated to the computation once every waiter of it is cancelled, and later identical calls start a new
+ * computation.
+ * </p>
+ *
+ * @param <K> The type of keys that identify identical calls.
+ * @param <V> The type of the result of calls.
+ * @author Alireza Pourtaghi
+ */
+public class SingleFlight<K, V> {
+    /**
+     * Computations that are in flight, keyed by call keys.
+     */
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Empty constructor.
+     */
+    public SingleFlight() {
+    }
+
+    /**
+     * Joins the in-flight computation of provided key, or starts a new one by using provided supplier.
+     *
+     * @param key         Key that identifies identical calls.
+     * @param computation Supplier that starts the computation when no identical call is in flight.
+     * @return A copy of the shared computation future; cancelling it leaves the computation. It completes exceptionally if the
+     * supplier throws.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> computation) {
+        while (true) {
+            var started = new boolean[1];
+            var flight = flights.computeIfAbsent(key, k -> {
+                started[0] = true;
+                return new Flight<>();
+            });
+
+            if (!flight.join()) {
+                // Abandoned by its last waiter while being joined.
+                flights.remove(key, flight);
+                continue;
+            }
+
+            if (started[0]) {
+                // Started outside of computeIfAbsent, since the computation may complete synchronously and remove its own flight.
+                CompletableFuture<V> call;
+                try {
+                    call = computation.get();
+                } catch (RuntimeException e) {
+                    // Failed to start, e.g. rejected by a shut down executor; later identical calls must not wait on it.
+                    flights.remove(key, flight);
+                    flight.getResult().completeExceptionally(e);
+                    return flight.getResult().copy();
+                }
+
+                flight.start(call);
+                call.whenComplete((result, cause) -> {
+                    flights.remove(key, flight);
+                    if (cause != null)
+                        flight.getResult().completeExceptionally(cause);
+                    else
+                        flight.getResult().complete(result);
+                });
+            }
+
+            var waiter = flight.getResult().copy();
+            waiter.whenComplete((result, cause) -> {
+                if (waiter.isCancelled() && flight.leave())
+                    flights.remove(key, flight);
+            });
+
+            return waiter;
+        }
+    }
+
+    /**
+     * Returns back the number of computations that are in flight.
+     *
+     * @return Number of in-flight computations.
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    /**
+     * A computation in flight and the number of its waiters that are not cancelled.
+     *
+     * @param <V> The type of the result of the computation.
+     * @author Alireza Pourtaghi
+     */
+    private static final class Flight<V> {
+        /**
+         * Shared result of the computation, that waiters receive copies of.
+         */
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        /**
+         * The computation, {@code null} until it is started; guarded by this flight.
+         */
+        private CompletableFuture<V> call;
+
+        /**
+         * Number of waiters that are not cancelled; guarded by this flight.
+         */
+        private int waiters;
+
+        /**
+         * Whether all waiters are cancelled and the computation is cancelled; guarded by this flight.
+         */
+        private boolean abandoned;
+
+        /**
+         * Adds a waiter to this flight.
+         *
+         * @return {@code false} if this flight is abandoned and can not be joined.
+         */
+        private synchronized boolean join() {
+            if (abandoned)
+                return false;
+
+            waiters++;
+            return true;
+        }
+
+        /**
+         * Sets the started computation, cancelling it if all waiters are already cancelled.
+         *
+         * @param call The computation.
+         */
+        private synchronized void start(CompletableFuture<V> call) {
+            this.call = call;
+            if (abandoned)
+                call.cancel(false);
+        }
+
+        /**
+         * Removes a cancelled waiter from this flight, and cancels the computation if it was the last waiter.
+         *
+         * @return {@code true} if this flight is abandoned by the call.
+         */
+        private synchronized boolean leave() {
+            if (--waiters > 0 || result.isDone())
+                return false;
+
+            abandoned = true;
+            result.cancel(false);
+            if (call != null)
+                call.cancel(false);
+            return true;
+        }
+
+        private CompletableFuture<V> getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ir.annotation.waiter.processor;
+
+import ir.annotation.waiter.tracing.Trace;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor service view of another executor that marks the start of a sampled call when its first task runs.
+ * <p>
+ * Only created for sampled calls, so unsampled calls run on scheduler's executors directly.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+final class TracingExecutor extends AbstractExecutorService {
+    /**
+     * Executor that tasks are run on.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Trace of the call.
+     */
+    private final Trace trace;
+
+    /**
+     * Constructor to create an instance of this executor.
+     *
+     * @param executor Executor that tasks are run on.
+     * @param trace    Trace of the call.
+     */
+    TracingExecutor(ExecutorService executor, Trace trace) {
+        this.executor = executor;
+        this.trace = trace;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(() -> {
+            trace.mark(Trace.Stage.STARTED);
+            command.run();
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,54 @@
+package ir.annotation.waiter.server;
+
+import io.netty.util.concurrent.FastThreadLocalThread;
+import reactor.blockhound.BlockHound;
+
+/**
+ * Development mode detector that fails blocking calls made on event loop threads, using BlockHound.
+ * <p>
+ * BlockHound is not a runtime dependency of the distribution, so it must be on class path when this detector is enabled; on
+ * JDK 13 and later the JVM also needs {@code -XX:+AllowRedefinitionToAddDeleteMethods}.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+final class BlockingCallDetector {
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private BlockingCallDetector() {
+    }
+
+    /**
+     * Returns back whether BlockHound is on class path.
+     *
+     * @return {@code true} if BlockHound is available.
+     */
+    static boolean isAvailable() {
+        try {
+            Class.forName("reactor.blockhound.BlockHound", false, BlockingCallDetector.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Installs the detector for the whole JVM; blocking calls on netty threads throw {@code BlockingOperationError} afterwards.
+     */
+    static void install() {
+        BlockHound.builder()
+                .nonBlockingThreadPredicate(predicate -> predicate.or(thread -> thread instanceof FastThreadLocalThread))
+                // Netty's own blocking waits on threads that are not event loops, or while an event loop is idle or shutting down.
+                .allowBlockingCallsInside("io.netty.util.concurrent.GlobalEventExecutor", "takeTask")
+                .allowBlockingCallsInside("io.netty.util.concurrent.GlobalEventExecutor", "addTask")
+                .allowBlockingCallsInside("io.netty.util.concurrent.SingleThreadEventExecutor", "takeTask")
+                .allowBlockingCallsInside("io.netty.util.concurrent.SingleThreadEventExecutor", "confirmShutdown")
+                // TLS handshakes refill secure random buffers from /dev/urandom, which never blocks.
+                .allowBlockingCallsInside("sun.security.provider.NativePRNG$RandomIO", "implNextBytes")
+                // Log records are written to standard error synchronously.
+                .allowBlockingCallsInside("org.slf4j.impl.SimpleLogger", "write")
+                .install();
+    }
+}
@@ -11,6 +11,11 @@ public class Error extends RuntimeException {
      */
     private final String code;
 
+    /**
+     * The reason of this error, assigned by its reason constant.
+     */
+    private Reason reason;
+
     /**
      * Constructor to create an error instance.
      *
@@ -26,6 +31,10 @@ public class Error extends RuntimeException {
         return code;
     }
 
+    public Reason getReason() {
+        return reason;
+    }
+
     /**
      * The error reason list.
      *
@@ -34,7 +43,11 @@ public class Error extends RuntimeException {
     public enum Reason {
         UNKNOWN(new Error("unknown", "Unknown error occurred.")),
         INVALID_MESSAGE_FORMAT(new Error("invalid.message.format", "Message format is not valid. See specification.")),
-        PROCEDURE_NOT_FOUND(new Error("procedure.not.found", "Requested procedure not found."));
+        PROCEDURE_NOT_FOUND(new Error("procedure.not.found", "Requested procedure not found.")),
+        INVALID_PROCEDURE_ARGUMENTS(new Error("invalid.procedure.arguments", "Procedure arguments are not valid. See specification.")),
+        OVERLOADED(new Error("overloaded", "Server is overloaded. Try again later.")),
+        DEADLINE_EXCEEDED(new Error("deadline.exceeded", "Procedure call did not complete before its deadline.")),
+        TLS_FAILED(new Error("tls.failed", "TLS handshake or record failed."));
 
         /**
          * The error exception.
@@ -48,6 +61,7 @@ public class Error extends RuntimeException {
          */
         Reason(Error error) {
             this.error = error;
+            error.reason = this;
         }
 
         public Error getError() {
@@ -0,0 +1,42 @@
+package ir.annotation.waiter.server;
+
+/**
+ * A logical {@link Error} that a {@link Request} failed with, fired to channel pipeline so its error response is paired with
+ * the request it answers.
+ * <p>
+ * Failures are created per failed request, so stack traces are not filled in.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class Failure extends RuntimeException {
+    /**
+     * The request that failed.
+     */
+    private final transient Request request;
+
+    /**
+     * The error that the request failed with.
+     */
+    private final Error error;
+
+    /**
+     * Constructor to create an instance of this failure.
+     *
+     * @param request The request that failed.
+     * @param error   The error that the request failed with.
+     */
+    public Failure(Request request, Error error) {
+        super(error.getMessage(), null, false, false);
+        this.request = request;
+        this.error = error;
+    }
+
+    public Request getRequest() {
+        return request;
+    }
+
+    public Error getError() {
+        return error;
+    }
+}
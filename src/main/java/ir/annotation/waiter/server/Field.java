@@ -0,0 +1,74 @@
+package ir.annotation.waiter.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Keys of envelope fields, each with its name and its compact field code.
+ * <p>
+ * Envelope maps are keyed either by field names, e.g. {@code proc}, or by field codes, e.g. {@code 0}, which saves four bytes
+ * per key on the wire and lets both sides match keys without decoding strings. Codes are unique within each map: request
+ * fields, response fields and error fields are numbered separately. A server responds with codes to each request that is keyed
+ * by codes.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public enum Field {
+    PROCEDURE("proc", 0),
+    ARGUMENTS("args", 1),
+    PRIORITY("prio", 2),
+    DEADLINE("dead", 3),
+    COMPRESSION("comp", 4),
+    SUCCESS("succ", 0),
+    RESPONSE("resp", 1),
+    ERRORS("errs", 2),
+    CODE("code", 0),
+    MESSAGE("mess", 1);
+
+    /**
+     * Name of this field.
+     */
+    private final String name;
+
+    /**
+     * UTF-8 bytes of name of this field.
+     */
+    private final byte[] nameBytes;
+
+    /**
+     * Compact code of this field.
+     */
+    private final int code;
+
+    /**
+     * Enum constructor to create an instance of available constants.
+     *
+     * @param name Name of this field.
+     * @param code Compact code of this field.
+     */
+    Field(String name, int code) {
+        this.name = name;
+        this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        this.code = code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Checks whether provided UTF-8 bytes are the name of this field.
+     *
+     * @param bytes  The array that holds name bytes from its start.
+     * @param length Number of name bytes.
+     * @return {@code true} if provided bytes are equal to name of this field.
+     */
+    public boolean matches(byte[] bytes, int length) {
+        return Arrays.equals(nameBytes, 0, nameBytes.length, bytes, 0, length);
+    }
+}
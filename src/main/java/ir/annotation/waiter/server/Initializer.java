@@ -1,65 +1,272 @@
 package ir.annotation.waiter.server;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.ssl.SslContext;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.processor.Processor;
+import ir.annotation.waiter.server.codec.AbstractCodec;
+import ir.annotation.waiter.server.codec.CodecRegistry;
+import ir.annotation.waiter.server.handler.BackpressureHandler;
+import ir.annotation.waiter.server.handler.CompressionHandler;
+import ir.annotation.waiter.server.handler.Dispatcher;
 import ir.annotation.waiter.server.handler.ErrorHandler;
 import ir.annotation.waiter.server.handler.ExceptionHandler;
+import ir.annotation.waiter.server.handler.LoadSheddingHandler;
 import ir.annotation.waiter.server.handler.MessageDecoder;
+import ir.annotation.waiter.server.handler.MetricsHandler;
+import ir.annotation.waiter.server.limiter.AdaptiveConcurrencyLimiter;
+import ir.annotation.waiter.server.util.StringTable;
+import ir.annotation.waiter.tracing.Tracer;
 import org.msgpack.core.MessagePack;
+import org.msgpack.value.Value;
 import org.msgpack.value.impl.ImmutableBinaryValueImpl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.stream.Collectors;
+
 import static io.netty.channel.ChannelHandler.Sharable;
 import static ir.annotation.waiter.server.util.MessagePackUtil.bytes;
 
 /**
- * A socket channel initializer implementation. This implementation is sharable.
+ * A channel initializer implementation, used for accepted socket channels and for embedded channels of warm-up. This
+ * implementation is sharable.
  *
  * @author Alireza Pourtaghi
  */
 @Sharable
-public class Initializer extends ChannelInitializer<SocketChannel> {
+public class Initializer extends ChannelInitializer<Channel> {
     /**
      * Delimiter bytes.
      */
-    private static final ImmutableBinaryValueImpl DELIMITER_BYTES = bytes(new byte[]{'\r', '\n', '\r', '\n'});
+    static final ImmutableBinaryValueImpl DELIMITER_BYTES = bytes(new byte[]{'\r', '\n', '\r', '\n'});
+
+    /**
+     * Delimiter bytes in message pack's format, shared by frame decoders of all channels; they only read it through slices.
+     */
+    private static final ByteBuf FRAME_DELIMITER = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(pack(DELIMITER_BYTES)));
+
+    /**
+     * Framing mode of request messages.
+     */
+    private final Framing framing;
+
+    /**
+     * Maximum amount of frame size in kilo bytes, applied to channels initialized afterwards.
+     */
+    private volatile int maxFrameSize;
+
+    /**
+     * Whether clients can negotiate compression of responses.
+     */
+    private final boolean compression;
+
+    /**
+     * Minimum size of a response in bytes to be compressed.
+     */
+    private final int compressionThreshold;
+
+    /**
+     * Compression level of deflate algorithm.
+     */
+    private final int compressionLevel;
 
     /**
-     * Maximum amount of frame size in kilo bytes.
+     * TLS context of channels, {@code null} if TLS is disabled.
      */
-    private final int maxFrameSize;
+    private final SslContext sslContext;
+
+    /**
+     * Adaptive concurrency limiter of the listener that accepts channels.
+     */
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * Maximum amount of in-flight calls per channel before pausing reads on that channel, applied to channels initialized afterwards.
+     */
+    private volatile int channelInFlightBudget;
+
+    /**
+     * Channel inbound handler that pauses reading while outbound buffer is above the high water mark.
+     */
+    private final BackpressureHandler backpressureHandler = new BackpressureHandler();
+
+    /**
+     * Processor that procedure calls are run on.
+     */
+    private final Processor processor;
+
+    /**
+     * Registry of procedure codecs.
+     */
+    private final CodecRegistry codecRegistry;
+
+    /**
+     * Metrics registry that connections and calls are recorded on.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Tracer that samples requests.
+     */
+    private final Tracer tracer;
+
+    /**
+     * Interned identifiers of procedures that have a codec, shared by decoders of all channels.
+     */
+    private final StringTable procedureIdentifiers;
+
+    /**
+     * Channel duplex handler, first in channel pipeline, that records connections and transferred bytes.
+     */
+    private final MetricsHandler metricsHandler;
 
     /**
      * Channel inbound error handler to handle logical errors.
      */
-    private final ErrorHandler errorHandler = new ErrorHandler();
+    private final ErrorHandler errorHandler;
 
     /**
      * Channel inbound exception handler as last handler in channel pipeline.
      */
-    private final ExceptionHandler exceptionHandler = new ExceptionHandler();
+    private final ExceptionHandler exceptionHandler;
 
     /**
      * Constructor to build a channel initializer.
      *
+     * @param framing               Framing mode of request messages.
+     * @param maxFrameSize          Maximum amount of frame size in kilo bytes.
+     * @param compression           Whether clients can negotiate compression of responses.
+     * @param compressionThreshold  Minimum size of a response in bytes to be compressed.
+     * @param compressionLevel      Compression level of deflate algorithm.
+     * @param sslContext            TLS context of channels, {@code null} if TLS is disabled.
+     * @param limiter               Adaptive concurrency limiter of the listener that accepts channels.
+     * @param channelInFlightBudget Maximum amount of in-flight calls per channel before pausing reads on that channel.
+     * @param processor             Processor that procedure calls are run on.
+     * @param codecRegistry         Registry of procedure codecs.
+     * @param metrics               Metrics registry that connections and calls are recorded on.
+     * @param tracer                Tracer that samples requests.
+     */
+    public Initializer(Framing framing, int maxFrameSize, boolean compression, int compressionThreshold, int compressionLevel, SslContext sslContext, AdaptiveConcurrencyLimiter limiter, int channelInFlightBudget, Processor processor, CodecRegistry codecRegistry, Metrics metrics, Tracer tracer) {
+        this.framing = framing;
+        this.maxFrameSize = maxFrameSize;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+        this.sslContext = sslContext;
+        this.limiter = limiter;
+        this.channelInFlightBudget = channelInFlightBudget;
+        this.processor = processor;
+        this.codecRegistry = codecRegistry;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.procedureIdentifiers = new StringTable(codecRegistry.getCodecs().stream().map(AbstractCodec::getIdentifier).collect(Collectors.toList()));
+        this.metricsHandler = new MetricsHandler(metrics.getServer());
+        this.errorHandler = new ErrorHandler(metrics.getServer(), tracer);
+        this.exceptionHandler = new ExceptionHandler(metrics.getServer());
+    }
+
+    /**
+     * Changes maximum frame size of channels initialized afterwards; already initialized channels keep their frame size.
+     *
      * @param maxFrameSize Maximum amount of frame size in kilo bytes.
      */
-    public Initializer(int maxFrameSize) {
+    public void setMaxFrameSize(int maxFrameSize) {
         this.maxFrameSize = maxFrameSize;
     }
 
+    /**
+     * Changes in-flight budget of channels initialized afterwards; already initialized channels keep their budget.
+     *
+     * @param channelInFlightBudget Maximum amount of in-flight calls per channel before pausing reads on that channel.
+     */
+    public void setChannelInFlightBudget(int channelInFlightBudget) {
+        this.channelInFlightBudget = channelInFlightBudget;
+    }
+
     @Override
-    protected void initChannel(SocketChannel socketChannel) throws Exception {
+    protected void initChannel(Channel channel) {
+        channel.pipeline().addLast(metricsHandler);
+        if (sslContext != null)
+            channel.pipeline().addLast(sslContext.newHandler(channel.alloc()));
+        channel.pipeline().addLast(backpressureHandler);
+        if (compression)
+            channel.pipeline().addLast(new CompressionHandler(compressionThreshold, compressionLevel, metrics.getServer()));
+        if (framing == Framing.LENGTH_PREFIXED)
+            channel.pipeline().addLast(new LengthFieldBasedFrameDecoder(maxFrameSize * 1024, 0, 4, 0, 4));
+        else
+            channel.pipeline().addLast(new DelimiterBasedFrameDecoder(maxFrameSize * 1024, FRAME_DELIMITER));
+        channel.pipeline().addLast(new MessageDecoder(metrics.getServer(), tracer, procedureIdentifiers));
+        channel.pipeline().addLast(new LoadSheddingHandler(limiter, channelInFlightBudget, metrics, tracer));
+        channel.pipeline().addLast(new Dispatcher(processor, codecRegistry, metrics, tracer));
+        channel.pipeline().addLast(errorHandler);
+        channel.pipeline().addLast(exceptionHandler);
+    }
+
+    /**
+     * Packs provided value in message pack's format.
+     *
+     * @param value The value.
+     * @return Packed bytes.
+     */
+    private static byte[] pack(Value value) {
         try (var buffer = MessagePack.newDefaultBufferPacker()) {
-            buffer.packValue(DELIMITER_BYTES);
-            var frameDelimiter = Unpooled.buffer((int) buffer.getTotalWrittenBytes());
-            frameDelimiter.writeBytes(buffer.toByteArray());
-
-            socketChannel.pipeline().addLast(new DelimiterBasedFrameDecoder(maxFrameSize * 1024, frameDelimiter));
-            socketChannel.pipeline().addLast(new MessageDecoder());
-            socketChannel.pipeline().addLast(errorHandler);
-            socketChannel.pipeline().addLast(exceptionHandler);
+            buffer.packValue(value);
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Framing modes of request messages; responses are message pack values that are not framed.
+     * <p>
+     * A delimited request is followed by packed delimiter bytes. A length prefixed request is preceded by its length as a 4
+     * bytes big-endian integer, so its payloads can contain any bytes and are not scanned for a delimiter.
+     * </p>
+     *
+     * @author Alireza Pourtaghi
+     */
+    public enum Framing {
+        DELIMITED("delimited"),
+        LENGTH_PREFIXED("length-prefixed");
+
+        /**
+         * Name of the framing mode, used in properties.
+         */
+        private final String name;
+
+        /**
+         * Enum constructor to create an instance of available constants.
+         *
+         * @param name Name of the framing mode, used in properties.
+         */
+        Framing(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns back the framing mode with provided name.
+         *
+         * @param name The name.
+         * @return The framing mode.
+         * @throws IllegalArgumentException If no framing mode has provided name.
+         */
+        public static Framing of(String name) {
+            for (var framing : values())
+                if (framing.name.equals(name))
+                    return framing;
+
+            throw new IllegalArgumentException("unknown framing mode " + name);
         }
     }
 }
@@ -0,0 +1,474 @@
+package ir.annotation.waiter.server;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.kqueue.KQueueDomainSocketChannel;
+import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.kqueue.KQueueServerDomainSocketChannel;
+import io.netty.channel.kqueue.KQueueServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.Errors;
+import ir.annotation.waiter.server.limiter.AdaptiveConcurrencyLimiter;
+import ir.annotation.waiter.server.util.OSUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static ir.annotation.waiter.server.Initializer.Framing;
+import static ir.annotation.waiter.server.util.OSUtil.OS.*;
+import static ir.annotation.waiter.server.util.PropertiesUtil.list;
+
+/**
+ * A listener of the server: a TCP address and an optional unix domain socket, served by event loops of its own, with its own
+ * framing mode, frame size limit, set of allowed procedures and adaptive concurrency limiter.
+ * <p>
+ * The default listener is configured by {@code server.*} properties. Additional listeners are named in {@code server.listeners}
+ * and configured by {@code server.listener.<name>.*} properties of the same keys, so for example bulk calls with large frames
+ * can be served on another port without sharing event loops and their caches with latency critical calls.
+ * </p>
+ * <p>
+ * Limiter of the default listener is configured by {@code limiter.*} properties, and limiter of another listener by
+ * {@code server.listener.<name>.limiter.*} properties that fall back to {@code limiter.*} properties of the same keys; so bulk
+ * calls that raise latency only shrink the limit of their own listener, and do not shed calls of the others.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+final class Listener {
+    private static final Logger logger = LoggerFactory.getLogger(Listener.class);
+
+    /**
+     * Bit mask of file type in {@code unix:mode} attribute.
+     */
+    private static final int S_IFMT = 0170000;
+
+    /**
+     * File type of sockets in {@code unix:mode} attribute.
+     */
+    private static final int S_IFSOCK = 0140000;
+
+    /**
+     * Prefix of properties of the default listener.
+     */
+    private static final String DEFAULT_PREFIX = "server.";
+
+    /**
+     * Name of the listener, {@code default} for the default listener.
+     */
+    private final String name;
+
+    /**
+     * Prefix of properties of the listener.
+     */
+    private final String prefix;
+
+    /**
+     * Event loop group that handles IO operations of the listener.
+     */
+    private final EventLoopGroup eventLoopGroup;
+
+    /**
+     * Host value that the listener must listen on.
+     */
+    private final String host;
+
+    /**
+     * Port number that the listener must listen on.
+     */
+    private final int port;
+
+    /**
+     * Path of unix domain socket that the listener also listens on, empty if it only listens on TCP.
+     */
+    private final String unixSocketPath;
+
+    /**
+     * Framing mode of request messages.
+     */
+    private final Framing framing;
+
+    /**
+     * Maximum amount of frame size in kilo bytes.
+     */
+    private final int maxFrameSize;
+
+    /**
+     * Identifiers of procedures that can be called through the listener, empty if all procedures can be called.
+     */
+    private final Set<String> procedures;
+
+    /**
+     * Adaptive concurrency limiter of calls accepted by the listener.
+     */
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * Channel initializer of accepted connections, {@code null} until the listener is bound.
+     */
+    private volatile Initializer initializer;
+
+    /**
+     * Private constructor to build an instance of this listener.
+     *
+     * @param name           Name of the listener.
+     * @param prefix         Prefix of properties of the listener.
+     * @param eventLoopGroup Event loop group that handles IO operations of the listener.
+     * @param host           Host value that the listener must listen on.
+     * @param port           Port number that the listener must listen on.
+     * @param unixSocketPath Path of unix domain socket that the listener also listens on, empty if it only listens on TCP.
+     * @param framing        Framing mode of request messages.
+     * @param maxFrameSize   Maximum amount of frame size in kilo bytes.
+     * @param procedures     Identifiers of procedures that can be called through the listener, empty if all can be called.
+     * @param limiter        Adaptive concurrency limiter of calls accepted by the listener.
+     */
+    private Listener(String name, String prefix, EventLoopGroup eventLoopGroup, String host, int port, String unixSocketPath, Framing framing, int maxFrameSize, Set<String> procedures,
+                     AdaptiveConcurrencyLimiter limiter) {
+        this.name = name;
+        this.prefix = prefix;
+        this.eventLoopGroup = eventLoopGroup;
+        this.host = host;
+        this.port = port;
+        this.unixSocketPath = unixSocketPath;
+        this.framing = framing;
+        this.maxFrameSize = maxFrameSize;
+        this.procedures = procedures;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Creates the default listener, followed by listeners named in {@code server.listeners} property.
+     *
+     * @param properties The application properties.
+     * @return Newly created listeners, the default listener first.
+     * @throws IllegalArgumentException If a listener is not configured properly.
+     */
+    static List<Listener> setup(Properties properties) {
+        var listeners = new ArrayList<Listener>();
+        try {
+            listeners.add(setup("default", DEFAULT_PREFIX, properties));
+            for (var name : list(properties.getOrDefault("server.listeners", "").toString())) {
+                var prefix = "server.listener." + name + ".";
+                if (name.equals("default") || !properties.containsKey(prefix + "port"))
+                    throw new IllegalArgumentException("listener " + name + " requires " + prefix + "port and a name other than default");
+
+                listeners.add(setup(name, prefix, properties));
+            }
+        } catch (RuntimeException e) {
+            listeners.forEach(listener -> listener.getEventLoopGroup().shutdownGracefully());
+            throw e;
+        }
+
+        return listeners;
+    }
+
+    /**
+     * Creates a listener from properties of provided prefix.
+     *
+     * @param name       Name of the listener.
+     * @param prefix     Prefix of properties of the listener.
+     * @param properties The application properties.
+     * @return Newly created listener.
+     */
+    private static Listener setup(String name, String prefix, Properties properties) {
+        var host = properties.getOrDefault(prefix + "host", properties.getOrDefault("server.host", "0.0.0.0")).toString();
+        var port = Integer.parseInt(properties.getOrDefault(prefix + "port", "9000").toString());
+        var unixSocketPath = properties.getOrDefault(prefix + "unix-socket-path", "").toString().trim();
+        var framing = Framing.of(properties.getOrDefault(prefix + "framing", "delimited").toString());
+        var maxFrameSize = maxFrameSize(prefix, properties);
+        var procedures = Set.of(list(properties.getOrDefault(prefix + "procedures", "").toString()));
+        var limiterSettings = LimiterSettings.read(prefix, properties);
+        var limiter = new AdaptiveConcurrencyLimiter(Integer.parseInt(limiterSetting(prefix, "initial-limit", properties, "64")), limiterSettings.getMinLimit(),
+                limiterSettings.getMaxLimit(), limiterSettings.getBackoffRatio(), limiterSettings.getLatencyTolerance());
+        var eventLoopThreads = Integer.parseInt(properties.getOrDefault(prefix + "event-loop-threads", "0").toString());
+        if (eventLoopThreads < 0)
+            throw new IllegalArgumentException("event loop threads of listener " + name + " must not be negative");
+
+        var os = OSUtil.detectOS();
+        var nativeTransport = os.equals(LINUX) || os.equals(OSX) || os.equals(BSD);
+        if (!unixSocketPath.isEmpty() && !nativeTransport)
+            throw new IllegalArgumentException("unix domain socket requires epoll or kqueue native transport");
+
+        var eventLoopGroup = os.equals(LINUX) ? new EpollEventLoopGroup(eventLoopThreads) : nativeTransport ? new KQueueEventLoopGroup(eventLoopThreads) : new NioEventLoopGroup(eventLoopThreads);
+
+        return new Listener(name, prefix, eventLoopGroup, host, port, unixSocketPath, framing, maxFrameSize, procedures, limiter);
+    }
+
+    /**
+     * Binds the listener with a clone of provided bootstrap, which has every option but group, channel and child handler.
+     *
+     * @param bootstrap   The server bootstrap.
+     * @param initializer Channel initializer of accepted connections of the listener.
+     * @throws InterruptedException  If interrupted while binding.
+     * @throws IllegalStateException If unix domain socket path is taken by another file or a running process.
+     */
+    void bind(ServerBootstrap bootstrap, Initializer initializer) throws InterruptedException {
+        logger.info("starting {} listener on {}:{} with {} framing, {} KiB frames, initial concurrency limit of {} and {} ...", getName(), getHost(), getPort(), getFraming().getName(),
+                getMaxFrameSize(), getLimiter().getLimit(), getProcedures().isEmpty() ? "all procedures" : "procedures " + getProcedures());
+        this.initializer = initializer;
+        var listenerBootstrap = bootstrap.clone().group(getEventLoopGroup()).childHandler(initializer);
+
+        Class<? extends ServerChannel> socketChannel = NioServerSocketChannel.class;
+        Class<? extends ServerChannel> domainSocketChannel = null;
+        Class<? extends Channel> domainSocketClientChannel = null;
+        if (getEventLoopGroup() instanceof EpollEventLoopGroup) {
+            socketChannel = EpollServerSocketChannel.class;
+            domainSocketChannel = EpollServerDomainSocketChannel.class;
+            domainSocketClientChannel = EpollDomainSocketChannel.class;
+        } else if (getEventLoopGroup() instanceof KQueueEventLoopGroup) {
+            socketChannel = KQueueServerSocketChannel.class;
+            domainSocketChannel = KQueueServerDomainSocketChannel.class;
+            domainSocketClientChannel = KQueueDomainSocketChannel.class;
+        }
+
+        listenerBootstrap.clone().channel(socketChannel).localAddress(getHost(), getPort()).bind().sync();
+        if (!getUnixSocketPath().isEmpty()) {
+            logger.info("listening on unix domain socket {} ...", getUnixSocketPath());
+            deleteStaleSocket(Path.of(getUnixSocketPath()), domainSocketClientChannel);
+            listenerBootstrap.clone().channel(domainSocketChannel).localAddress(new DomainSocketAddress(getUnixSocketPath())).bind().sync();
+        }
+    }
+
+    /**
+     * Reads and validates maximum frame size of the listener from provided properties.
+     *
+     * @param properties The application properties.
+     * @return Maximum amount of frame size in kilo bytes.
+     * @throws IllegalArgumentException If maximum frame size is not valid.
+     */
+    int readMaxFrameSize(Properties properties) {
+        return maxFrameSize(prefix, properties);
+    }
+
+    /**
+     * Reads and validates reloadable limiter settings of the listener from provided properties.
+     *
+     * @param properties The application properties.
+     * @return Limiter settings of the listener.
+     * @throws IllegalArgumentException If limiter settings are not valid.
+     */
+    LimiterSettings readLimiterSettings(Properties properties) {
+        return LimiterSettings.read(prefix, properties);
+    }
+
+    /**
+     * Applies reloadable settings of the listener; limiter settings apply at once, and others to connections accepted afterwards.
+     *
+     * @param maxFrameSize          Maximum amount of frame size in kilo bytes.
+     * @param limiterSettings       Limiter settings of the listener.
+     * @param channelInFlightBudget Maximum amount of in-flight calls per channel before pausing reads on that channel.
+     */
+    void reconfigure(int maxFrameSize, LimiterSettings limiterSettings, int channelInFlightBudget) {
+        getLimiter().reconfigure(limiterSettings.getMinLimit(), limiterSettings.getMaxLimit(), limiterSettings.getBackoffRatio(), limiterSettings.getLatencyTolerance());
+        if (initializer != null) {
+            initializer.setMaxFrameSize(maxFrameSize);
+            initializer.setChannelInFlightBudget(channelInFlightBudget);
+        }
+    }
+
+    /**
+     * Reads and validates maximum frame size of a listener.
+     *
+     * @param prefix     Prefix of properties of the listener.
+     * @param properties The application properties.
+     * @return Maximum amount of frame size in kilo bytes.
+     * @throws IllegalArgumentException If maximum frame size is not positive or its bytes do not fit in an integer.
+     */
+    private static int maxFrameSize(String prefix, Properties properties) {
+        var maxFrameSize = Integer.parseInt(properties.getOrDefault(prefix + "max-frame-size", "1024").toString());
+        if (maxFrameSize < 1 || maxFrameSize > Integer.MAX_VALUE / 1024)
+            throw new IllegalArgumentException(prefix + "max-frame-size must be between 1 and " + Integer.MAX_VALUE / 1024);
+
+        return maxFrameSize;
+    }
+
+    /**
+     * Reads a limiter setting of a listener; settings of the default listener are {@code limiter.*} properties, and settings of
+     * other listeners fall back to them.
+     *
+     * @param prefix       Prefix of properties of the listener.
+     * @param key          Key of the setting under {@code limiter.} prefix.
+     * @param properties   The application properties.
+     * @param defaultValue Value of the setting if it is not set.
+     * @return Value of the setting.
+     */
+    private static String limiterSetting(String prefix, String key, Properties properties, String defaultValue) {
+        var value = properties.getOrDefault("limiter." + key, defaultValue);
+        return prefix.equals(DEFAULT_PREFIX) ? value.toString() : properties.getOrDefault(prefix + "limiter." + key, value).toString();
+    }
+
+    /**
+     * Deletes socket file that a previous process left at provided path, as binding fails while it exists; netty deletes the
+     * file when its channel is closed, so it is only left after a crash. The file is only deleted if it is a socket and
+     * connecting to it is refused, so a socket of a running process is never taken over.
+     *
+     * @param path          The socket path.
+     * @param clientChannel Domain socket channel type used to probe the socket.
+     * @throws InterruptedException  If interrupted while probing the socket.
+     * @throws IllegalStateException If path is not a socket or the socket is not stale.
+     */
+    private void deleteStaleSocket(Path path, Class<? extends Channel> clientChannel) throws InterruptedException {
+        try {
+            if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS))
+                return;
+            if (((int) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS) & S_IFMT) != S_IFSOCK)
+                throw new IllegalStateException(path + " exists and is not a socket");
+
+            var connect = new Bootstrap().group(getEventLoopGroup()).channel(clientChannel).handler(new ChannelInboundHandlerAdapter())
+                    .connect(new DomainSocketAddress(path.toString())).await();
+            if (connect.isSuccess()) {
+                connect.channel().close();
+                throw new IllegalStateException(path + " is in use by a running process");
+            }
+            if (!isConnectionRefused(connect.cause()))
+                throw new IllegalStateException("could not check whether " + path + " is stale", connect.cause());
+
+            logger.warn("deleting stale unix domain socket {}", path);
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks whether a connect attempt failed with {@code ECONNREFUSED}, which means nothing listens on the socket; native
+     * transports report it as a plain {@link ConnectException} that only carries the error in its message.
+     *
+     * @param cause Cause of the failed connect attempt.
+     * @return True if connection was refused.
+     */
+    private static boolean isConnectionRefused(Throwable cause) {
+        // Message of the error is "<syscall>(..) failed: <strerror>", optionally followed by the remote address.
+        var refused = Errors.newIOException("", Errors.ERROR_ECONNREFUSED_NEGATIVE).getMessage();
+        return cause instanceof ConnectException && cause.getMessage() != null && cause.getMessage().contains(refused);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    String getUnixSocketPath() {
+        return unixSocketPath;
+    }
+
+    Framing getFraming() {
+        return framing;
+    }
+
+    int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    Set<String> getProcedures() {
+        return procedures;
+    }
+
+    AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Reloadable settings of adaptive concurrency limiter of a listener.
+     */
+    static final class LimiterSettings {
+        /**
+         * Lower bound of concurrency limit.
+         */
+        private final int minLimit;
+
+        /**
+         * Upper bound of concurrency limit.
+         */
+        private final int maxLimit;
+
+        /**
+         * Ratio that limit is multiplied by when latency degrades.
+         */
+        private final double backoffRatio;
+
+        /**
+         * A call is considered congested when its latency exceeds this multiple of the baseline latency.
+         */
+        private final double latencyTolerance;
+
+        /**
+         * Private constructor to build an instance of limiter settings.
+         *
+         * @param minLimit         Lower bound of concurrency limit.
+         * @param maxLimit         Upper bound of concurrency limit.
+         * @param backoffRatio     Ratio that limit is multiplied by when latency degrades.
+         * @param latencyTolerance A call is considered congested when its latency exceeds this multiple of the baseline latency.
+         */
+        private LimiterSettings(int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.backoffRatio = backoffRatio;
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        /**
+         * Reads and validates limiter settings of a listener.
+         *
+         * @param prefix     Prefix of properties of the listener.
+         * @param properties The application properties.
+         * @return Limiter settings of the listener.
+         * @throws IllegalArgumentException If limiter settings are not valid.
+         */
+        private static LimiterSettings read(String prefix, Properties properties) {
+            var minLimit = Integer.parseInt(limiterSetting(prefix, "min-limit", properties, "8"));
+            var maxLimit = Integer.parseInt(limiterSetting(prefix, "max-limit", properties, "1024"));
+            var backoffRatio = Double.parseDouble(limiterSetting(prefix, "backoff-ratio", properties, "0.9"));
+            var latencyTolerance = Double.parseDouble(limiterSetting(prefix, "latency-tolerance", properties, "2.0"));
+            AdaptiveConcurrencyLimiter.validate(minLimit, maxLimit, backoffRatio, latencyTolerance);
+
+            return new LimiterSettings(minLimit, maxLimit, backoffRatio, latencyTolerance);
+        }
+
+        int getMinLimit() {
+            return minLimit;
+        }
+
+        int getMaxLimit() {
+            return maxLimit;
+        }
+
+        double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+    }
+}
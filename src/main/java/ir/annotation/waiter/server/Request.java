@@ -0,0 +1,175 @@
+package ir.annotation.waiter.server;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import ir.annotation.waiter.tracing.Trace;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority;
+
+/**
+ * Request envelope model that is decoded from a received message.
+ * <p>
+ * A request message is a map that holds the procedure identifier under {@code proc} key, optional procedure arguments under
+ * {@code args} key, optional priority under {@code prio} key (0 as highest priority) and optional deadline in milliseconds
+ * under {@code dead} key. A request may also name a compression algorithm under {@code comp} key, to negotiate compression
+ * of responses on its connection. Keys may also be the compact codes of their {@link Field}s, 0 to 4 in the same order.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class Request {
+    /**
+     * Identifier of the requested procedure.
+     */
+    private final String procedure;
+
+    /**
+     * Packed arguments of the requested procedure in message pack's format.
+     */
+    private final byte[] arguments;
+
+    /**
+     * The priority of this request.
+     */
+    private final Priority priority;
+
+    /**
+     * Time in milliseconds that the call must complete within, zero means server default deadline.
+     */
+    private final long deadline;
+
+    /**
+     * Whether this request is keyed by compact field codes, so its response must be keyed the same way.
+     */
+    private final boolean compact;
+
+    /**
+     * Trace of this request, {@code null} if it is not sampled.
+     */
+    private final Trace trace;
+
+    /**
+     * Lazily computed digest of arguments.
+     */
+    private HashCode argumentsDigest;
+
+    /**
+     * Whether this request holds a permit of the concurrency limiter. Only accessed from channel's event loop.
+     */
+    private boolean admitted;
+
+    /**
+     * Time in nanoseconds that this request was admitted by the concurrency limiter.
+     */
+    private long admissionTime;
+
+    /**
+     * Constructor to create an instance of this model.
+     *
+     * @param procedure Identifier of the requested procedure.
+     * @param arguments Packed arguments of the requested procedure in message pack's format.
+     * @param priority  The priority of this request.
+     * @param deadline  Time in milliseconds that the call must complete within, zero means server default deadline.
+     */
+    public Request(String procedure, byte[] arguments, Priority priority, long deadline) {
+        this(procedure, arguments, priority, deadline, null);
+    }
+
+    /**
+     * Constructor to create an instance of this model.
+     *
+     * @param procedure Identifier of the requested procedure.
+     * @param arguments Packed arguments of the requested procedure in message pack's format.
+     * @param priority  The priority of this request.
+     * @param deadline  Time in milliseconds that the call must complete within, zero means server default deadline.
+     * @param trace     Trace of this request, {@code null} if it is not sampled.
+     */
+    public Request(String procedure, byte[] arguments, Priority priority, long deadline, Trace trace) {
+        this(procedure, arguments, priority, deadline, false, trace);
+    }
+
+    /**
+     * Constructor to create an instance of this model.
+     *
+     * @param procedure Identifier of the requested procedure.
+     * @param arguments Packed arguments of the requested procedure in message pack's format.
+     * @param priority  The priority of this request.
+     * @param deadline  Time in milliseconds that the call must complete within, zero means server default deadline.
+     * @param compact   Whether this request is keyed by compact field codes, so its response must be keyed the same way.
+     * @param trace     Trace of this request, {@code null} if it is not sampled.
+     */
+    public Request(String procedure, byte[] arguments, Priority priority, long deadline, boolean compact, Trace trace) {
+        this.procedure = procedure;
+        this.arguments = arguments;
+        this.priority = priority;
+        this.deadline = deadline;
+        this.compact = compact;
+        this.trace = trace;
+    }
+
+    public String getProcedure() {
+        return procedure;
+    }
+
+    public byte[] getArguments() {
+        return arguments;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public Trace getTrace() {
+        return trace;
+    }
+
+    public long getAdmissionTime() {
+        return admissionTime;
+    }
+
+    /**
+     * Marks this request as holding a permit of the concurrency limiter.
+     *
+     * @param admissionTime Time in nanoseconds that this request was admitted.
+     */
+    public void admit(long admissionTime) {
+        this.admitted = true;
+        this.admissionTime = admissionTime;
+    }
+
+    /**
+     * Gives up the permit of the concurrency limiter that this request holds, once.
+     *
+     * @return {@code true} if this request held a permit that must be released.
+     */
+    public boolean release() {
+        var admitted = this.admitted;
+        this.admitted = false;
+
+        return admitted;
+    }
+
+    /**
+     * Returns back the SHA-256 digest of packed arguments, computed once on first call.
+     * <p>
+     * The digest keys shared results of calls, so it must be collision resistant: otherwise a client could craft arguments
+     * whose cached result is returned to other clients for theirs.
+     * </p>
+     *
+     * @return Digest of arguments.
+     */
+    public HashCode getArgumentsDigest() {
+        if (argumentsDigest == null)
+            argumentsDigest = Hashing.sha256().hashBytes(arguments);
+
+        return argumentsDigest;
+    }
+}
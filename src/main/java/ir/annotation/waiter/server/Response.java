@@ -0,0 +1,43 @@
+package ir.annotation.waiter.server;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Response envelope model that pairs a packed response message with the {@link Request} it answers.
+ * <p>
+ * Responses are written to channel pipeline as this envelope, so outbound handlers can release state of the request they
+ * answer; the message is unwrapped before it reaches the transport.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class Response {
+    /**
+     * The request that this response answers.
+     */
+    private final Request request;
+
+    /**
+     * The packed response message.
+     */
+    private final ByteBuf message;
+
+    /**
+     * Constructor to create an instance of this model.
+     *
+     * @param request The request that this response answers.
+     * @param message The packed response message.
+     */
+    public Response(Request request, ByteBuf message) {
+        this.request = request;
+        this.message = message;
+    }
+
+    public Request getRequest() {
+        return request;
+    }
+
+    public ByteBuf getMessage() {
+        return message;
+    }
+}
@@ -1,49 +1,125 @@
 package ir.annotation.waiter.server;
 
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.EventLoopGroup;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.kqueue.KQueueEventLoopGroup;
-import io.netty.channel.kqueue.KQueueServerSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
 import ir.annotation.waiter.core.application.Component;
-import ir.annotation.waiter.server.util.OSUtil;
+import ir.annotation.waiter.core.application.Reconfigurable;
+import ir.annotation.waiter.core.application.annotation.DependsOn;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.metrics.event.Events;
+import ir.annotation.waiter.processor.Processor;
+import ir.annotation.waiter.server.codec.CodecRegistry;
+import ir.annotation.waiter.server.limiter.AdaptiveConcurrencyLimiter;
+import ir.annotation.waiter.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
-import static ir.annotation.waiter.server.util.OSUtil.OS.*;
+import static ir.annotation.waiter.server.Initializer.Framing;
 
 /**
  * A netty based server socket implementation.
+ * <p>
+ * The server serves one or more {@link Listener}s, each with its own event loops, framing mode, frame size limit and allowed
+ * procedures; besides TCP, a listener can listen on a unix domain socket for co-located clients when a native transport is used.
+ * </p>
+ * <p>
+ * Maximum frame sizes, limiter bounds of listeners and per channel in-flight budget can be reconfigured while running; frame
+ * sizes and in-flight budget apply to connections accepted afterwards, so open connections are not dropped.
+ * </p>
+ * <p>
+ * Event loops are probed by a {@link StallDetector} while running; in development mode, blocking calls on event loops fail.
+ * </p>
  *
  * @author Alireza Pourtaghi
  */
-public final class Server extends Component<Server> {
+@DependsOn({Processor.class, Metrics.class, Tracer.class})
+public final class Server extends Component<Server> implements Reconfigurable {
     private static final Logger logger = LoggerFactory.getLogger(Server.class);
 
     /**
-     * Event loop group that must be assigned to netty server for handling IO operations.
+     * JDK system property that enables stateless session tickets on server side, available since JDK 13.
      */
-    private EventLoopGroup eventLoopGroup;
+    private static final String SESSION_TICKETS_PROPERTY = "jdk.tls.server.enableSessionTicketExtension";
 
     /**
-     * Host value that this server must listen on.
+     * Listeners of this server, the default listener first.
      */
-    private String host;
+    private List<Listener> listeners;
 
     /**
-     * Port number that this server must listen on.
+     * Whether clients can negotiate compression of responses.
      */
-    private int port;
+    private boolean compression;
 
     /**
-     * Maximum amount of frame size in kilo bytes.
+     * Minimum size of a response in bytes to be compressed.
      */
-    private int maxFrameSize;
+    private int compressionThreshold;
+
+    /**
+     * Compression level of deflate algorithm.
+     */
+    private int compressionLevel;
+
+    /**
+     * TLS context of accepted channels, {@code null} if TLS is disabled.
+     */
+    private SslContext sslContext;
+
+    /**
+     * Pooled buffer allocator of server and accepted channels.
+     */
+    private PooledByteBufAllocator allocator;
+
+    /**
+     * Outbound buffer water marks of accepted channels; reading stops above high and resumes below low water mark.
+     */
+    private WriteBufferWaterMark writeBufferWaterMark;
+
+    /**
+     * Maximum amount of in-flight calls per channel before pausing reads on that channel.
+     */
+    private int channelInFlightBudget;
+
+    /**
+     * Maximum number of warm-up iterations before binding, zero disables warm-up.
+     */
+    private int warmUpIterations;
+
+    /**
+     * Maximum time in milliseconds that warm-up can take.
+     */
+    private long warmUpMaxDuration;
+
+    /**
+     * Time in milliseconds between two probes of an event loop, zero disables stall detection.
+     */
+    private long stallDetectionInterval;
+
+    /**
+     * Time in milliseconds that a probe can wait before its event loop is considered stalled.
+     */
+    private long stallDetectionThreshold;
+
+    /**
+     * Detector of stalled event loops, {@code null} if stall detection is disabled or until server starts.
+     */
+    private StallDetector stallDetector;
 
     /**
      * Public accessible constructor to identify this component.
@@ -55,71 +131,257 @@ public final class Server extends Component<Server> {
     /**
      * Private constructor to build an instance of this server implementation.
      *
-     * @param eventLoopGroup Event loop group that must be assigned to netty server for handling IO operations.
-     * @param host           Host value that this server must listen on.
-     * @param port           Port number that this server must listen on.
-     * @param maxFrameSize   Maximum amount of frame size in kilo bytes.
+     * @param listeners               Listeners of this server, the default listener first.
+     * @param compression             Whether clients can negotiate compression of responses.
+     * @param compressionThreshold    Minimum size of a response in bytes to be compressed.
+     * @param compressionLevel        Compression level of deflate algorithm.
+     * @param sslContext              TLS context of accepted channels, {@code null} if TLS is disabled.
+     * @param allocator               Pooled buffer allocator of server and accepted channels.
+     * @param writeBufferWaterMark    Outbound buffer water marks of accepted channels.
+     * @param channelInFlightBudget   Maximum amount of in-flight calls per channel before pausing reads on that channel.
+     * @param warmUpIterations        Maximum number of warm-up iterations before binding, zero disables warm-up.
+     * @param warmUpMaxDuration       Maximum time in milliseconds that warm-up can take.
+     * @param stallDetectionInterval  Time in milliseconds between two probes of an event loop, zero disables stall detection.
+     * @param stallDetectionThreshold Time in milliseconds that a probe can wait before its event loop is considered stalled.
      */
-    private Server(EventLoopGroup eventLoopGroup, String host, int port, int maxFrameSize) {
+    private Server(List<Listener> listeners, boolean compression, int compressionThreshold, int compressionLevel, SslContext sslContext, PooledByteBufAllocator allocator, WriteBufferWaterMark writeBufferWaterMark, int channelInFlightBudget,
+                   int warmUpIterations, long warmUpMaxDuration, long stallDetectionInterval, long stallDetectionThreshold) {
         this();
-        this.eventLoopGroup = eventLoopGroup;
-        this.host = host;
-        this.port = port;
-        this.maxFrameSize = maxFrameSize;
+        this.listeners = listeners;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+        this.sslContext = sslContext;
+        this.allocator = allocator;
+        this.writeBufferWaterMark = writeBufferWaterMark;
+        this.channelInFlightBudget = channelInFlightBudget;
+        this.warmUpIterations = warmUpIterations;
+        this.warmUpMaxDuration = warmUpMaxDuration;
+        this.stallDetectionInterval = stallDetectionInterval;
+        this.stallDetectionThreshold = stallDetectionThreshold;
     }
 
     @Override
     public Server setup(Properties properties) {
-        var os = OSUtil.detectOS();
+        var compression = Boolean.parseBoolean(properties.getOrDefault("server.compression.enabled", "true").toString());
+        var compressionThreshold = Integer.parseInt(properties.getOrDefault("server.compression.threshold", "1024").toString());
+        var compressionLevel = Integer.parseInt(properties.getOrDefault("server.compression.level", "6").toString());
+        if (compressionLevel < 1 || compressionLevel > 9)
+            throw new IllegalArgumentException("compression level must be between 1 and 9");
 
-        var eventLoopGroup = os.equals(LINUX) ? new EpollEventLoopGroup() : os.equals(OSX) || os.equals(BSD) ? new KQueueEventLoopGroup() : new NioEventLoopGroup();
-        var host = properties.getOrDefault("server.host", "0.0.0.0").toString();
-        var port = Integer.parseInt(properties.getOrDefault("server.port", "9000").toString());
-        var maxFrameSize = Integer.parseInt(properties.getOrDefault("server.max-frame-size", "1024").toString());
+        if (Boolean.parseBoolean(properties.getOrDefault("server.tls.enabled", "false").toString())) {
+            // JDK reads this setting once, when its TLS implementation is first used, so it is set before building the context and applies to the whole JVM.
+            var sessionTickets = Boolean.parseBoolean(properties.getOrDefault("server.tls.session-tickets", "true").toString());
+            if (Runtime.version().feature() < 13) {
+                logger.warn("tls session tickets are not supported before JDK 13, ignoring server.tls.session-tickets on JDK {}", Runtime.version().feature());
+            } else {
+                System.setProperty(SESSION_TICKETS_PROPERTY, Boolean.toString(sessionTickets));
+                logger.info("tls session tickets are {} for the whole JVM by {} system property", sessionTickets ? "enabled" : "disabled", SESSION_TICKETS_PROPERTY);
+            }
+        }
 
-        return new Server(eventLoopGroup, host, port, maxFrameSize);
+        SslContext sslContext;
+        try {
+            sslContext = TlsContextFactory.create(properties).orElse(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        var allocator = new PooledByteBufAllocator(
+                Boolean.parseBoolean(properties.getOrDefault("allocator.prefer-direct", "true").toString()),
+                Integer.parseInt(properties.getOrDefault("allocator.heap-arenas", PooledByteBufAllocator.defaultNumHeapArena()).toString()),
+                Integer.parseInt(properties.getOrDefault("allocator.direct-arenas", PooledByteBufAllocator.defaultNumDirectArena()).toString()),
+                Integer.parseInt(properties.getOrDefault("allocator.page-size", PooledByteBufAllocator.defaultPageSize()).toString()),
+                Integer.parseInt(properties.getOrDefault("allocator.max-order", PooledByteBufAllocator.defaultMaxOrder()).toString()),
+                Integer.parseInt(properties.getOrDefault("allocator.tiny-cache-size", PooledByteBufAllocator.defaultTinyCacheSize()).toString()),
+                Integer.parseInt(properties.getOrDefault("allocator.small-cache-size", PooledByteBufAllocator.defaultSmallCacheSize()).toString()),
+                Integer.parseInt(properties.getOrDefault("allocator.normal-cache-size", PooledByteBufAllocator.defaultNormalCacheSize()).toString()),
+                Boolean.parseBoolean(properties.getOrDefault("allocator.use-cache-for-all-threads", PooledByteBufAllocator.defaultUseCacheForAllThreads()).toString())
+        );
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.valueOf(properties.getOrDefault("allocator.leak-detection-level", "simple").toString().toUpperCase()));
+        var writeBufferWaterMark = new WriteBufferWaterMark(
+                Integer.parseInt(properties.getOrDefault("server.write-buffer-low-water-mark", "32").toString()) * 1024,
+                Integer.parseInt(properties.getOrDefault("server.write-buffer-high-water-mark", "64").toString()) * 1024
+        );
+        var channelInFlightBudget = Integer.parseInt(properties.getOrDefault("limiter.channel-in-flight-budget", "16").toString());
+        var warmUpIterations = Integer.parseInt(properties.getOrDefault("server.warm-up.iterations", "0").toString());
+        var warmUpMaxDuration = Long.parseLong(properties.getOrDefault("server.warm-up.max-duration", "10000").toString());
+        var stallDetectionInterval = Long.parseLong(properties.getOrDefault("server.stall-detection.interval", "100").toString());
+        var stallDetectionThreshold = Long.parseLong(properties.getOrDefault("server.stall-detection.threshold", "200").toString());
+        var blockingCallDetection = Boolean.parseBoolean(properties.getOrDefault("server.dev.blocking-call-detection", "false").toString());
+
+        if (blockingCallDetection) {
+            if (!BlockingCallDetector.isAvailable())
+                throw new IllegalStateException("blocking call detection requires BlockHound on class path");
+
+            logger.warn("development mode: blocking calls on event loops fail");
+            BlockingCallDetector.install();
+        }
+
+        // Listeners are created last, as their event loop groups must be shut down if setup fails.
+        var listeners = Listener.setup(properties);
+        return new Server(listeners, compression, compressionThreshold, compressionLevel, sslContext, allocator, writeBufferWaterMark, channelInFlightBudget, warmUpIterations, warmUpMaxDuration, stallDetectionInterval, stallDetectionThreshold);
     }
 
     @Override
     public void start() throws InterruptedException {
-        logger.info("starting server on {}:{} ...", getHost(), getPort());
-        var serverBootstrap = new ServerBootstrap();
-
-        serverBootstrap.group(getEventLoopGroup());
-        if (getEventLoopGroup() instanceof NioEventLoopGroup) {
-            serverBootstrap.channel(NioServerSocketChannel.class);
-        } else if (getEventLoopGroup() instanceof EpollEventLoopGroup) {
+        logger.info("starting server with {} listeners ...", getListeners().size());
+        if (getListeners().get(0).getEventLoopGroup() instanceof EpollEventLoopGroup)
             logger.info("using epoll native transport");
-            serverBootstrap.channel(EpollServerSocketChannel.class);
-        } else if (getEventLoopGroup() instanceof KQueueEventLoopGroup) {
+        else if (getListeners().get(0).getEventLoopGroup() instanceof KQueueEventLoopGroup)
             logger.info("using kqueue native transport");
-            serverBootstrap.channel(KQueueServerSocketChannel.class);
+
+        var processor = getContext().getComponentByIdentifier("processor", Processor.class)
+                .orElseThrow(() -> new IllegalStateException("processor component is not started"));
+
+        var metrics = getContext().getComponentByIdentifier("metrics", Metrics.class)
+                .orElseThrow(() -> new IllegalStateException("metrics component is not started"));
+        metrics.getServer().setPendingTasks(() -> pendingTasks(eventLoops()));
+
+        var tracer = getContext().getComponentByIdentifier("tracer", Tracer.class)
+                .orElseThrow(() -> new IllegalStateException("tracer component is not started"));
+
+        var codecRegistry = new CodecRegistry();
+        if (getWarmUpIterations() > 0) {
+            // Warm-up calls are limited and recorded separately, so they do not skew baselines of listeners' limiters, metrics and traces.
+            // Warmer writes plain delimited messages into embedded channels, so they are initialized without TLS.
+            var warmUpInitializer = new Initializer(Framing.DELIMITED, getListeners().get(0).getMaxFrameSize(), isCompression(), getCompressionThreshold(), getCompressionLevel(), null, new AdaptiveConcurrencyLimiter(1, 1, 1, 0.5, 2.0), 1, processor, codecRegistry, new Metrics(), new Tracer());
+            new Warmer(warmUpInitializer, codecRegistry, getWarmUpIterations(), getWarmUpMaxDuration()).warmUp();
+            // Warm-up calls go through the memoized path too, so it is compiled; their synthetic results must not occupy the shared cache.
+            processor.clearResults();
+        }
+
+        logger.info("allocating {} buffers from {} direct and {} heap arenas in chunks of {} KiB, leak detection level is {}", getAllocator().isDirectBufferPooled() ? "direct" : "heap",
+                getAllocator().metric().numDirectArenas(), getAllocator().metric().numHeapArenas(), getAllocator().metric().chunkSize() / 1024, ResourceLeakDetector.getLevel());
+        metrics.getServer().setAllocator(getAllocator().metric());
+        if (getSslContext() != null)
+            logger.info("terminating tls, caching {} sessions for {} s", getSslContext().sessionCacheSize(), getSslContext().sessionTimeout());
+
+        var serverBootstrap = new ServerBootstrap();
+        serverBootstrap.option(ChannelOption.ALLOCATOR, getAllocator());
+        serverBootstrap.childOption(ChannelOption.ALLOCATOR, getAllocator());
+        serverBootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, getWriteBufferWaterMark());
+        for (var listener : getListeners()) {
+            var listenerCodecRegistry = listener.getProcedures().isEmpty() ? codecRegistry : codecRegistry.restrict(listener.getProcedures());
+            listener.bind(serverBootstrap, new Initializer(listener.getFraming(), listener.getMaxFrameSize(), isCompression(), getCompressionThreshold(), getCompressionLevel(), getSslContext(),
+                    listener.getLimiter(), getChannelInFlightBudget(), processor, listenerCodecRegistry, metrics, tracer));
         }
-        serverBootstrap.localAddress(getHost(), getPort());
-        serverBootstrap.childHandler(new Initializer(getMaxFrameSize()));
 
-        serverBootstrap.bind().sync();
+        if (getStallDetectionInterval() > 0) {
+            stallDetector = new StallDetector(eventLoops(), getStallDetectionInterval(), getStallDetectionThreshold(), metrics.getServer());
+            stallDetector.start();
+        }
+
+        // Flight recorder events are registered in background once bound, so neither startup nor the first connection's event loop waits for it.
+        CompletableFuture.runAsync(Events::register).exceptionally(e -> {
+            logger.warn("registering flight recorder events failed with message {}", e.getMessage());
+            return null;
+        });
+    }
+
+    @Override
+    public void reconfigure(Properties properties) {
+        var channelInFlightBudget = Integer.parseInt(properties.getOrDefault("limiter.channel-in-flight-budget", "16").toString());
+        if (channelInFlightBudget < 1)
+            throw new IllegalArgumentException("channel in-flight budget must be positive");
+
+        // Frame sizes and limiter settings of all listeners are validated before any of them is applied.
+        var maxFrameSizes = new ArrayList<Integer>();
+        var limiterSettings = new ArrayList<Listener.LimiterSettings>();
+        for (var listener : getListeners()) {
+            maxFrameSizes.add(listener.readMaxFrameSize(properties));
+            limiterSettings.add(listener.readLimiterSettings(properties));
+        }
+
+        for (int i = 0; i < getListeners().size(); i++)
+            getListeners().get(i).reconfigure(maxFrameSizes.get(i), limiterSettings.get(i), channelInFlightBudget);
     }
 
     @Override
     public void stop() throws InterruptedException {
         logger.info("stopping server ...");
-        eventLoopGroup.shutdownGracefully().sync();
+        if (stallDetector != null)
+            stallDetector.stop();
+        for (var listener : getListeners())
+            listener.getEventLoopGroup().shutdownGracefully();
+        for (var listener : getListeners())
+            listener.getEventLoopGroup().terminationFuture().sync();
+    }
+
+    /**
+     * Returns back event loops of all listeners.
+     *
+     * @return The event loops.
+     */
+    private List<EventExecutor> eventLoops() {
+        var eventLoops = new ArrayList<EventExecutor>();
+        for (var listener : getListeners())
+            listener.getEventLoopGroup().forEach(eventLoops::add);
+
+        return eventLoops;
+    }
+
+    /**
+     * Returns back the number of tasks that are pending to be processed by provided event loops.
+     *
+     * @param eventLoops The event loops.
+     * @return Sum of pending tasks of all event loops.
+     */
+    private static long pendingTasks(List<EventExecutor> eventLoops) {
+        var pendingTasks = 0L;
+        for (EventExecutor executor : eventLoops) {
+            if (executor instanceof SingleThreadEventExecutor)
+                pendingTasks += ((SingleThreadEventExecutor) executor).pendingTasks();
+        }
+
+        return pendingTasks;
+    }
+
+    private List<Listener> getListeners() {
+        return listeners;
+    }
+
+    private boolean isCompression() {
+        return compression;
+    }
+
+    private int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    private int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    private SslContext getSslContext() {
+        return sslContext;
+    }
+
+    private PooledByteBufAllocator getAllocator() {
+        return allocator;
+    }
+
+    private WriteBufferWaterMark getWriteBufferWaterMark() {
+        return writeBufferWaterMark;
+    }
+
+    private int getChannelInFlightBudget() {
+        return channelInFlightBudget;
     }
 
-    private EventLoopGroup getEventLoopGroup() {
-        return eventLoopGroup;
+    private int getWarmUpIterations() {
+        return warmUpIterations;
     }
 
-    private String getHost() {
-        return host;
+    private long getWarmUpMaxDuration() {
+        return warmUpMaxDuration;
     }
 
-    private int getPort() {
-        return port;
+    private long getStallDetectionInterval() {
+        return stallDetectionInterval;
     }
 
-    private int getMaxFrameSize() {
-        return maxFrameSize;
+    private long getStallDetectionThreshold() {
+        return stallDetectionThreshold;
     }
 }
@@ -0,0 +1,178 @@
+package ir.annotation.waiter.server;
+
+import io.netty.util.concurrent.EventExecutor;
+import ir.annotation.waiter.metrics.ServerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watchdog that detects stalled event loops by periodically scheduling a probe task on each of them.
+ * <p>
+ * A probe measures how long a task waits before its event loop runs it, recorded as event loop delay. While a probe is not run
+ * within the threshold, its event loop is considered stalled and the stack of the event loop thread is logged once; when the
+ * probe finally runs, the whole stall duration is recorded.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+final class StallDetector {
+    private static final Logger logger = LoggerFactory.getLogger(StallDetector.class);
+
+    /**
+     * Probes of event loops.
+     */
+    private final List<Probe> probes = new ArrayList<>();
+
+    /**
+     * Time in milliseconds between two probes of an event loop.
+     */
+    private final long interval;
+
+    /**
+     * Time in nanoseconds that a probe can wait before its event loop is considered stalled.
+     */
+    private final long threshold;
+
+    /**
+     * Server wide metrics that delays and stalls are recorded on.
+     */
+    private final ServerMetrics metrics;
+
+    /**
+     * Watchdog thread that schedules probes and checks them, {@code null} until started.
+     */
+    private ScheduledExecutorService watchdog;
+
+    /**
+     * Constructor to create an instance of this detector.
+     *
+     * @param eventLoops     The event loops that are probed, such as event loops of a group.
+     * @param interval       Time in milliseconds between two probes of an event loop.
+     * @param threshold      Time in milliseconds that a probe can wait before its event loop is considered stalled.
+     * @param metrics        Server wide metrics that delays and stalls are recorded on.
+     */
+    StallDetector(Iterable<EventExecutor> eventLoops, long interval, long threshold, ServerMetrics metrics) {
+        for (var executor : eventLoops)
+            probes.add(new Probe(executor));
+        this.interval = interval;
+        this.threshold = TimeUnit.MILLISECONDS.toNanos(threshold);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts probing event loops.
+     */
+    void start() {
+        watchdog = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "event-loop-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops probing event loops.
+     */
+    void stop() {
+        if (watchdog != null)
+            watchdog.shutdownNow();
+    }
+
+    /**
+     * Schedules a probe on each event loop that has no pending probe, and reports event loops that their probe is pending
+     * longer than threshold.
+     */
+    private void check() {
+        var now = System.nanoTime();
+        for (var probe : probes) {
+            var scheduledAt = probe.scheduledAt;
+            if (scheduledAt == 0) {
+                probe.schedule(now);
+            } else if (now - scheduledAt >= threshold && !probe.reported) {
+                probe.reported = true;
+                var thread = probe.thread;
+                if (thread == null) {
+                    logger.warn("event loop stalled for {} ms", TimeUnit.NANOSECONDS.toMillis(now - scheduledAt));
+                } else {
+                    var stack = new Exception("stack of " + thread.getName());
+                    stack.setStackTrace(thread.getStackTrace());
+                    logger.warn("event loop {} stalled for {} ms", thread.getName(), TimeUnit.NANOSECONDS.toMillis(now - scheduledAt), stack);
+                }
+            }
+        }
+    }
+
+    /**
+     * Probe of an event loop, scheduled by watchdog thread and run by the event loop.
+     *
+     * @author Alireza Pourtaghi
+     */
+    private final class Probe implements Runnable {
+        /**
+         * The probed event loop.
+         */
+        private final EventExecutor eventLoop;
+
+        /**
+         * Time in nanoseconds that pending probe is scheduled at, zero if no probe is pending.
+         */
+        private volatile long scheduledAt;
+
+        /**
+         * Whether pending probe is reported as stalled.
+         */
+        private volatile boolean reported;
+
+        /**
+         * Thread of the probed event loop, {@code null} until first probe runs.
+         */
+        private volatile Thread thread;
+
+        /**
+         * Constructor to create an instance of this probe.
+         *
+         * @param eventLoop The probed event loop.
+         */
+        private Probe(EventExecutor eventLoop) {
+            this.eventLoop = eventLoop;
+        }
+
+        /**
+         * Schedules this probe on its event loop.
+         *
+         * @param now Current time in nanoseconds.
+         */
+        private void schedule(long now) {
+            scheduledAt = now;
+            try {
+                eventLoop.execute(this);
+            } catch (RejectedExecutionException e) {
+                // Event loop is shutting down.
+                scheduledAt = 0;
+            }
+        }
+
+        @Override
+        public void run() {
+            var delay = System.nanoTime() - scheduledAt;
+            thread = Thread.currentThread();
+            metrics.recordEventLoopDelay(delay);
+            if (reported || delay >= threshold) {
+                metrics.recordEventLoopStall(delay);
+                if (reported)
+                    logger.warn("event loop {} recovered after {} ms", thread.getName(), TimeUnit.NANOSECONDS.toMillis(delay));
+            }
+
+            reported = false;
+            scheduledAt = 0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ir.annotation.waiter.server;
+
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+
+import javax.net.ssl.SSLException;
+import java.io.File;
+import java.util.Optional;
+import java.util.Properties;
+
+import static io.netty.handler.ssl.ApplicationProtocolConfig.Protocol;
+import static io.netty.handler.ssl.ApplicationProtocolConfig.SelectedListenerFailureBehavior;
+import static io.netty.handler.ssl.ApplicationProtocolConfig.SelectorFailureBehavior;
+import static ir.annotation.waiter.server.util.PropertiesUtil.list;
+
+/**
+ * Builds server side TLS context of accepted connections from {@code server.tls.*} properties, using JDK's TLS provider.
+ * <p>
+ * Sessions are kept in a bounded cache for abbreviated handshakes of returning clients; session tickets are a JVM wide
+ * setting that {@link Server} applies before building the context. ALPN protocols are advertised only to clients that offer
+ * one of them; other clients connect without ALPN.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class TlsContextFactory {
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private TlsContextFactory() {
+    }
+
+    /**
+     * Builds server side TLS context if it is enabled by {@code server.tls.enabled} property.
+     *
+     * @param properties The application properties.
+     * @return Optional TLS context, empty if TLS is disabled.
+     * @throws SSLException If certificate chain or private key could not be loaded.
+     */
+    public static Optional<SslContext> create(Properties properties) throws SSLException {
+        if (!Boolean.parseBoolean(properties.getOrDefault("server.tls.enabled", "false").toString()))
+            return Optional.empty();
+
+        var certificate = properties.getOrDefault("server.tls.certificate", "").toString();
+        var privateKey = properties.getOrDefault("server.tls.private-key", "").toString();
+        if (certificate.isBlank() || privateKey.isBlank())
+            throw new IllegalArgumentException("tls requires server.tls.certificate and server.tls.private-key");
+
+        var protocols = list(properties.getOrDefault("server.tls.protocols", "TLSv1.3,TLSv1.2").toString());
+        var sessionCacheSize = Long.parseLong(properties.getOrDefault("server.tls.session-cache-size", "20480").toString());
+        var sessionTimeout = Long.parseLong(properties.getOrDefault("server.tls.session-timeout", "86400").toString());
+        var alpnProtocols = list(properties.getOrDefault("server.tls.alpn-protocols", "waiter/1").toString());
+        if (protocols.length == 0 || sessionCacheSize < 1 || sessionTimeout < 1)
+            throw new IllegalArgumentException("tls protocols, session cache size and session timeout must not be empty or zero");
+
+        var builder = SslContextBuilder.forServer(new File(certificate), new File(privateKey))
+                .sslProvider(SslProvider.JDK)
+                .protocols(protocols)
+                .sessionCacheSize(sessionCacheSize)
+                .sessionTimeout(sessionTimeout);
+        if (alpnProtocols.length > 0)
+            builder.applicationProtocolConfig(new ApplicationProtocolConfig(Protocol.ALPN, SelectorFailureBehavior.NO_ADVERTISE, SelectedListenerFailureBehavior.ACCEPT, alpnProtocols));
+
+        return Optional.of(builder.build());
+    }
+}
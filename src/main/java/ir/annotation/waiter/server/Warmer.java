@@ -0,0 +1,183 @@
+package ir.annotation.waiter.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import ir.annotation.waiter.server.codec.CodecRegistry;
+import org.msgpack.core.MessagePack;
+import org.msgpack.value.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static ir.annotation.waiter.server.util.MessagePackUtil.map;
+import static ir.annotation.waiter.server.util.MessagePackUtil.string;
+
+/**
+ * Warms up channel pipeline and procedures before the server accepts traffic, so hot paths are compiled by JIT.
+ * <p>
+ * Synthetic request frames of each procedure that its codec provides warm-up arguments for, are fed through embedded
+ * channels initialized by {@link Initializer}, one call at a time, until the iteration count or the time budget is exhausted.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+final class Warmer {
+    private static final Logger logger = LoggerFactory.getLogger(Warmer.class);
+
+    /**
+     * Channel initializer that warm-up channels are initialized by.
+     */
+    private final Initializer initializer;
+
+    /**
+     * Registry of procedure codecs, that provide warm-up arguments.
+     */
+    private final CodecRegistry codecRegistry;
+
+    /**
+     * Maximum number of warm-up iterations; each iteration calls every procedure once.
+     */
+    private final int iterations;
+
+    /**
+     * Maximum time in milliseconds that warm-up can take.
+     */
+    private final long maxDuration;
+
+    /**
+     * Constructor to create an instance of this warmer.
+     *
+     * @param initializer   Channel initializer that warm-up channels are initialized by.
+     * @param codecRegistry Registry of procedure codecs, that provide warm-up arguments.
+     * @param iterations    Maximum number of warm-up iterations; each iteration calls every procedure once.
+     * @param maxDuration   Maximum time in milliseconds that warm-up can take.
+     */
+    Warmer(Initializer initializer, CodecRegistry codecRegistry, int iterations, long maxDuration) {
+        this.initializer = initializer;
+        this.codecRegistry = codecRegistry;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * Runs warm-up calls until the iteration count or the time budget is exhausted.
+     *
+     * @throws InterruptedException If interrupted while waiting for a call.
+     */
+    void warmUp() throws InterruptedException {
+        logger.info("warming up for at most {} iterations or {} ms ...", iterations, maxDuration);
+        var startTime = System.nanoTime();
+        var deadline = startTime + TimeUnit.MILLISECONDS.toNanos(maxDuration);
+        var calls = 0;
+        var failures = 0;
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (var codec : codecRegistry.getCodecs()) {
+                var remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    logger.info("warm-up time budget exhausted after {} calls, {} failed", calls, failures);
+                    return;
+                }
+
+                var arguments = codec.warmUpArguments(iteration);
+                if (arguments.isEmpty())
+                    continue;
+
+                calls++;
+                if (!call(frame(codec.getIdentifier(), arguments.get()), remaining)) {
+                    failures++;
+                    logger.debug("warm-up call of {} procedure failed", codec.getIdentifier());
+                }
+            }
+        }
+
+        logger.info("warmed up with {} calls in {} ms, {} failed", calls, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), failures);
+    }
+
+    /**
+     * Feeds provided request frame through a new embedded channel and waits for its response.
+     *
+     * @param frame   The request frame.
+     * @param timeout Maximum time in nanoseconds to wait for the response.
+     * @return {@code true} if a successful response was written in time.
+     * @throws InterruptedException If interrupted while waiting for the response.
+     */
+    private boolean call(ByteBuf frame, long timeout) throws InterruptedException {
+        var responses = new ArrayBlockingQueue<ByteBuf>(1);
+        var channel = new EmbeddedChannel(initializer);
+        channel.pipeline().addFirst(new ResponseCapture(responses));
+
+        try {
+            channel.writeInbound(frame);
+            var response = responses.poll(timeout, TimeUnit.NANOSECONDS);
+            if (response == null)
+                return false;
+
+            try (var in = MessagePack.newDefaultUnpacker(new ByteBufInputStream(response, true))) {
+                var message = in.unpackValue().asMapValue().map().get(string("succ"));
+                return message != null && message.asBooleanValue().getBoolean();
+            } catch (IOException e) {
+                return false;
+            }
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * Builds a request frame.
+     *
+     * @param procedure The procedure identifier.
+     * @param arguments The procedure arguments.
+     * @return The request frame, including its delimiter.
+     */
+    private ByteBuf frame(String procedure, Value arguments) {
+        try (var buffer = MessagePack.newDefaultBufferPacker()) {
+            buffer.packValue(map(string("proc"), string(procedure), string("args"), arguments));
+            buffer.packValue(Initializer.DELIMITER_BYTES);
+            return Unpooled.wrappedBuffer(buffer.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Channel outbound handler, first in warm-up channel pipeline, that hands written responses to the waiting warmer.
+     * <p>
+     * Responses are written from processor threads; handing them over a queue makes the warmer observe the pipeline state of
+     * the call before it starts the next one.
+     * </p>
+     */
+    private static final class ResponseCapture extends ChannelOutboundHandlerAdapter {
+        /**
+         * Queue that written responses are handed over.
+         */
+        private final BlockingQueue<ByteBuf> responses;
+
+        /**
+         * Constructor to create an instance of this handler.
+         *
+         * @param responses Queue that written responses are handed over.
+         */
+        private ResponseCapture(BlockingQueue<ByteBuf> responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (msg instanceof ByteBuf && responses.offer((ByteBuf) msg))
+                promise.setSuccess();
+            else
+                ctx.write(msg, promise);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.core.common.Identity;
+import ir.annotation.waiter.server.Error;
+
+/**
+ * An abstract codec definition that is identified by the identifier of the procedure it belongs to.
+ *
+ * @param <T> The type of the input to the procedure.
+ * @param <R> The type of the result of the procedure.
+ * @author Alireza Pourtaghi
+ */
+public abstract class AbstractCodec<T, R> extends Identity implements Codec<T, R> {
+    /**
+     * Constructor to create an instance of codec.
+     *
+     * @param identifier The identifier of the procedure this codec belongs to.
+     * @throws NullPointerException If provided identifier is {@code null}.
+     */
+    public AbstractCodec(String identifier) {
+        super(identifier);
+    }
+
+    /**
+     * Converts provided name to a constant of provided enum type.
+     *
+     * @param type The enum type.
+     * @param name The name of the constant.
+     * @param <E>  The enum type.
+     * @return The enum constant.
+     * @throws Error If provided name is not a constant of provided enum type.
+     */
+    protected static <E extends Enum<E>> E asEnum(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+        }
+    }
+}
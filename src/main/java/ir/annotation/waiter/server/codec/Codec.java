@@ -0,0 +1,50 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.util.MessageWriter;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * A codec that converts message pack's arguments of a procedure to its input type and its result to message pack's format.
+ * <p>
+ * Arguments are unpacked and results are packed as a stream, without building message pack's {@link Value} trees.
+ * </p>
+ *
+ * @param <T> The type of the input to the procedure.
+ * @param <R> The type of the result of the procedure.
+ * @author Alireza Pourtaghi
+ */
+public interface Codec<T, R> {
+
+    /**
+     * Converts message pack's arguments to the input of the procedure.
+     *
+     * @param arguments Unpacker that is positioned on procedure arguments.
+     * @return The input of the procedure.
+     * @throws IOException                       If arguments could not be unpacked.
+     * @throws ir.annotation.waiter.server.Error If provided arguments are not valid.
+     */
+    T decode(MessageUnpacker arguments) throws IOException;
+
+    /**
+     * Converts the result of the procedure to message pack's format.
+     *
+     * @param result The result of the procedure.
+     * @param writer The writer that result is packed by.
+     * @throws IOException If packing failed.
+     */
+    void encode(R result, MessageWriter writer) throws IOException;
+
+    /**
+     * Returns back synthetic arguments that are used to warm up the procedure before the server accepts traffic.
+     *
+     * @param iteration The warm-up iteration, can be used to vary arguments of deterministic procedures so their results are not memoized.
+     * @return Optional arguments in message pack's format, empty if the procedure must not be warmed up.
+     */
+    default Optional<Value> warmUpArguments(int iteration) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,84 @@
+package ir.annotation.waiter.server.codec;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Registry of available procedure {@link Codec}s, keyed by procedure identifiers.
+ *
+ * @author Alireza Pourtaghi
+ */
+public class CodecRegistry {
+    /**
+     * Available codecs, keyed by procedure identifiers.
+     */
+    private final Map<String, AbstractCodec<?, ?>> codecs;
+
+    /**
+     * Constructor to create a registry of all available codecs.
+     */
+    public CodecRegistry() {
+        this.codecs = Stream.<AbstractCodec<?, ?>>of(
+                new SHA256HashGeneratorCodec(),
+                new RandomNumberGeneratorCodec(),
+                new SecretKeyGeneratorCodec(),
+                new PublicPrivateKeyPairGeneratorCodec(),
+                new KeyExchangerCodec()
+        ).collect(Collectors.toUnmodifiableMap(AbstractCodec::getIdentifier, Function.identity()));
+    }
+
+    /**
+     * Private constructor to create a registry of provided codecs.
+     *
+     * @param codecs Codecs, keyed by procedure identifiers.
+     */
+    private CodecRegistry(Map<String, AbstractCodec<?, ?>> codecs) {
+        this.codecs = codecs;
+    }
+
+    /**
+     * Returns back a registry of codecs of provided procedures only, so other procedures are not found through it.
+     *
+     * @param identifiers Identifiers of the procedures.
+     * @return Newly created registry.
+     * @throws IllegalArgumentException If a procedure has no codec.
+     */
+    public CodecRegistry restrict(Collection<String> identifiers) {
+        for (var identifier : identifiers) {
+            if (!codecs.containsKey(identifier))
+                throw new IllegalArgumentException("procedure " + identifier + " is not available");
+        }
+
+        return new CodecRegistry(codecs.entrySet().stream()
+                .filter(entry -> identifiers.contains(entry.getKey()))
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue)));
+    }
+
+    /**
+     * Returns back all available codecs.
+     *
+     * @return Unmodifiable collection of codecs.
+     */
+    public Collection<AbstractCodec<?, ?>> getCodecs() {
+        return codecs.values();
+    }
+
+    /**
+     * Returns back the codec of a procedure.
+     *
+     * @param identifier The procedure's identifier.
+     * @return Optional {@link Codec} of the procedure.
+     * @throws NullPointerException If provided identifier is {@code null}.
+     */
+    public Optional<Codec<?, ?>> getCodecByIdentifier(String identifier) {
+        requireNonNull(identifier);
+
+        return Optional.ofNullable(codecs.get(identifier));
+    }
+}
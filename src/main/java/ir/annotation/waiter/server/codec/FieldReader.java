@@ -0,0 +1,157 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.Error;
+import org.msgpack.core.MessageIntegerOverflowException;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.ValueType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Typed reader of a field value that unpacks it straight from an unpacker.
+ * <p>
+ * Readers validate the format of the value and throw {@link Error.Reason#INVALID_PROCEDURE_ARGUMENTS} error if it is not
+ * of their type.
+ * </p>
+ *
+ * @param <V> The type of the field value.
+ * @author Alireza Pourtaghi
+ */
+public final class FieldReader<V> {
+    /**
+     * Reader of integers in int range.
+     */
+    public static final FieldReader<Integer> INT = new FieldReader<>(int.class, unpacker -> {
+        expect(unpacker, ValueType.INTEGER);
+        try {
+            return unpacker.unpackInt();
+        } catch (MessageIntegerOverflowException e) {
+            throw Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+        }
+    });
+
+    /**
+     * Reader of strings.
+     */
+    public static final FieldReader<String> STRING = new FieldReader<>(String.class, unpacker -> {
+        expect(unpacker, ValueType.STRING);
+        return unpacker.unpackString();
+    });
+
+    /**
+     * Reader of binaries.
+     */
+    public static final FieldReader<byte[]> BYTES = new FieldReader<>(byte[].class, unpacker -> {
+        expect(unpacker, ValueType.BINARY);
+        return unpacker.readPayload(unpacker.unpackBinaryHeader());
+    });
+
+    /**
+     * The type of the field value.
+     */
+    private final Class<V> type;
+
+    /**
+     * Function that unpacks the field value.
+     */
+    private final Reader<V> reader;
+
+    /**
+     * Constructor to create an instance of this reader.
+     *
+     * @param type   The type of the field value.
+     * @param reader Function that unpacks the field value.
+     */
+    public FieldReader(Class<V> type, Reader<V> reader) {
+        this.type = type;
+        this.reader = reader;
+    }
+
+    /**
+     * Returns back a reader of enum constants by their names, matched on raw string bytes without decoding them.
+     *
+     * @param type The enum type.
+     * @param <E>  The enum type.
+     * @return Reader of provided enum type.
+     */
+    public static <E extends Enum<E>> FieldReader<E> enumeration(Class<E> type) {
+        var constants = type.getEnumConstants();
+        var names = new byte[constants.length][];
+        for (int i = 0; i < constants.length; i++)
+            names[i] = constants[i].name().getBytes(StandardCharsets.UTF_8);
+
+        return new FieldReader<>(type, unpacker -> {
+            expect(unpacker, ValueType.STRING);
+            var length = unpacker.unpackRawStringHeader();
+            var name = MapDecoder.readPayload(unpacker, length);
+            for (int i = 0; i < names.length; i++)
+                if (Arrays.equals(names[i], 0, names[i].length, name, 0, length))
+                    return constants[i];
+
+            throw Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+        });
+    }
+
+    /**
+     * Returns back a reader that converts values of this reader by provided function.
+     *
+     * @param type   The type of converted values.
+     * @param mapper Function that converts values, may throw {@link Error} if a value is not valid.
+     * @param <U>    The type of converted values.
+     * @return Reader of converted values.
+     */
+    public <U> FieldReader<U> map(Class<U> type, Function<V, U> mapper) {
+        return new FieldReader<>(type, unpacker -> mapper.apply(reader.read(unpacker)));
+    }
+
+    public Class<V> getType() {
+        return type;
+    }
+
+    /**
+     * Unpacks a field value.
+     *
+     * @param unpacker Unpacker that is positioned on the field value.
+     * @return The field value.
+     * @throws IOException If value could not be unpacked.
+     * @throws Error       If value is not of the type of this reader.
+     */
+    public V read(MessageUnpacker unpacker) throws IOException {
+        return reader.read(unpacker);
+    }
+
+    /**
+     * Checks the type of the next value of provided unpacker.
+     *
+     * @param unpacker Unpacker that is positioned on a value.
+     * @param type     Expected value type.
+     * @throws IOException If format of value could not be read.
+     * @throws Error       If next value is not of expected type.
+     */
+    private static void expect(MessageUnpacker unpacker, ValueType type) throws IOException {
+        if (unpacker.getNextFormat().getValueType() != type)
+            throw Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+    }
+
+    /**
+     * Function that unpacks a value.
+     *
+     * @param <V> The type of the value.
+     * @author Alireza Pourtaghi
+     */
+    @FunctionalInterface
+    public interface Reader<V> {
+
+        /**
+         * Unpacks a value.
+         *
+         * @param unpacker Unpacker that is positioned on the value.
+         * @return The value.
+         * @throws IOException If value could not be unpacked.
+         */
+        V read(MessageUnpacker unpacker) throws IOException;
+    }
+}
@@ -0,0 +1,99 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.util.MessageWriter;
+
+import java.io.IOException;
+import java.security.Key;
+
+/**
+ * Typed writer of a field value that packs it straight through a {@link MessageWriter}.
+ * <p>
+ * Writers know the type of values they accept, so encoders can check it against their value sources once when they are built.
+ * </p>
+ *
+ * @param <V> The type of the field value.
+ * @author Alireza Pourtaghi
+ */
+public final class FieldWriter<V> {
+    /**
+     * Writer of integers.
+     */
+    public static final FieldWriter<Integer> INT = new FieldWriter<>(Integer.class, (writer, value) -> writer.integer(value));
+
+    /**
+     * Writer of binaries.
+     */
+    public static final FieldWriter<byte[]> BYTES = new FieldWriter<>(byte[].class, MessageWriter::bytes);
+
+    /**
+     * Writer of keys as binaries of their primary encoding.
+     */
+    public static final FieldWriter<Key> KEY = new FieldWriter<>(Key.class, (writer, key) -> writer.bytes(key.getEncoded()));
+
+    /**
+     * The type of the field value, a wrapper type for primitive values.
+     */
+    private final Class<V> type;
+
+    /**
+     * Function that packs the field value.
+     */
+    private final Writer<V> writer;
+
+    /**
+     * Constructor to create an instance of this writer.
+     *
+     * @param type   The type of the field value, a wrapper type for primitive values.
+     * @param writer Function that packs the field value.
+     */
+    public FieldWriter(Class<V> type, Writer<V> writer) {
+        this.type = type;
+        this.writer = writer;
+    }
+
+    public Class<V> getType() {
+        return type;
+    }
+
+    /**
+     * Packs a field value.
+     *
+     * @param writer The writer that value is packed by.
+     * @param value  The field value.
+     * @throws IOException If packing failed.
+     */
+    public void write(MessageWriter writer, V value) throws IOException {
+        this.writer.write(writer, value);
+    }
+
+    /**
+     * Packs a field value whose type is checked on runtime.
+     *
+     * @param writer The writer that value is packed by.
+     * @param value  The field value.
+     * @throws IOException        If packing failed.
+     * @throws ClassCastException If value is not of the type of this writer.
+     */
+    void writeChecked(MessageWriter writer, Object value) throws IOException {
+        this.writer.write(writer, type.cast(value));
+    }
+
+    /**
+     * Function that packs a value.
+     *
+     * @param <V> The type of the value.
+     * @author Alireza Pourtaghi
+     */
+    @FunctionalInterface
+    public interface Writer<V> {
+
+        /**
+         * Packs a value.
+         *
+         * @param writer The writer that value is packed by.
+         * @param value  The value.
+         * @throws IOException If packing failed.
+         */
+        void write(MessageWriter writer, V value) throws IOException;
+    }
+}
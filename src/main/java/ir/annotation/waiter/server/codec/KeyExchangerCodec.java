@@ -0,0 +1,100 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.util.MessageWriter;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Optional;
+
+import static ir.annotation.waiter.procedure.KeyExchanger.KeyExchangeRequest;
+import static ir.annotation.waiter.procedure.KeyExchanger.KeyExchangeResponse;
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+
+/**
+ * Codec of {@link ir.annotation.waiter.procedure.KeyExchanger} procedure.
+ * <p>
+ * Arguments are a map of {@code algo} name, {@code size} in bits and X.509 encoded public key of other party as {@code okey};
+ * result is a map of encoded {@code publ} and {@code priv} keys and the shared {@code secr} secret key.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class KeyExchangerCodec extends AbstractCodec<KeyExchangeRequest, KeyExchangeResponse> {
+    /**
+     * Decoder of arguments, bound to {@link #request(KeyExchangeRequest.Algorithm, KeyExchangeRequest.KeySize, byte[])} factory.
+     */
+    private static final MapDecoder<KeyExchangeRequest> decoder = MapDecoder.builder(KeyExchangeRequest.class)
+            .field("algo", FieldReader.enumeration(KeyExchangeRequest.Algorithm.class))
+            .field("size", FieldReader.INT.map(KeyExchangeRequest.KeySize.class, size -> asEnum(KeyExchangeRequest.KeySize.class, "_" + size)))
+            .field("okey", FieldReader.BYTES)
+            .build(MethodHandles.lookup(), "request");
+
+    /**
+     * Encoder of results.
+     */
+    private static final MapEncoder<KeyExchangeResponse> encoder = MapEncoder.builder(KeyExchangeResponse.class)
+            .field("publ", "getPublicKey", FieldWriter.KEY)
+            .field("priv", "getPrivateKey", FieldWriter.KEY)
+            .field("secr", "getSecretKey", FieldWriter.BYTES)
+            .build();
+
+    /**
+     * X.509 encoded public key of a synthetic other party, generated on first warm-up.
+     */
+    private byte[] warmUpKey;
+
+    /**
+     * Constructor to create an instance of this codec.
+     */
+    public KeyExchangerCodec() {
+        super("exchange_key");
+    }
+
+    @Override
+    public KeyExchangeRequest decode(MessageUnpacker arguments) throws IOException {
+        return decoder.decode(arguments);
+    }
+
+    @Override
+    public void encode(KeyExchangeResponse result, MessageWriter writer) throws IOException {
+        encoder.encode(result, writer);
+    }
+
+    @Override
+    public Optional<Value> warmUpArguments(int iteration) {
+        try {
+            if (warmUpKey == null) {
+                var keyPairGenerator = KeyPairGenerator.getInstance("DiffieHellman");
+                keyPairGenerator.initialize(2048);
+                warmUpKey = keyPairGenerator.generateKeyPair().getPublic().getEncoded();
+            }
+
+            return Optional.of(map(string("algo"), string("DiffieHellman"), string("size"), integer(2048), string("okey"), bytes(warmUpKey)));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Decodes X.509 encoded public key of other party and creates a request.
+     *
+     * @param algorithm     The key agreement algorithm.
+     * @param keySize       The key size.
+     * @param otherPartyKey X.509 encoded public key of other party.
+     * @return Newly created request.
+     * @throws Error If public key of other party is not valid for provided algorithm.
+     */
+    private static KeyExchangeRequest request(KeyExchangeRequest.Algorithm algorithm, KeyExchangeRequest.KeySize keySize, byte[] otherPartyKey) {
+        try {
+            return new KeyExchangeRequest(algorithm, keySize, KeyFactory.getInstance(algorithm.name()).generatePublic(new X509EncodedKeySpec(otherPartyKey)));
+        } catch (Exception e) {
+            throw Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package ir.annotation.waiter.server.codec;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import ir.annotation.waiter.server.Error;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.ValueType;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decoder of message pack maps to instances of a type, bound once to a constructor or factory method of the type.
+ * <p>
+ * Map entries are unpacked straight from the unpacker without building a value tree: keys are matched on their raw bytes
+ * and values are read by typed {@link FieldReader}s into the arguments of the bound method handle. Unknown keys are skipped
+ * and all bound fields are required.
+ * </p>
+ *
+ * @param <T> The type of decoded instances.
+ * @author Alireza Pourtaghi
+ */
+public final class MapDecoder<T> {
+    /**
+     * Size of scratch buffers in bytes, enough for field names and enum constant names.
+     */
+    private static final int SCRATCH_SIZE = 64;
+
+    /**
+     * Scratch buffer of each thread that raw strings are read into.
+     */
+    private static final FastThreadLocal<byte[]> scratch = new FastThreadLocal<>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[SCRATCH_SIZE];
+        }
+    };
+
+    /**
+     * UTF-8 bytes of field names, in order of factory parameters.
+     */
+    private final byte[][] names;
+
+    /**
+     * Readers of field values, in order of factory parameters.
+     */
+    private final FieldReader<?>[] readers;
+
+    /**
+     * Factory of decoded instances that takes an array of field values.
+     */
+    private final MethodHandle factory;
+
+    /**
+     * Private constructor to create an instance of this decoder.
+     *
+     * @param names   UTF-8 bytes of field names, in order of factory parameters.
+     * @param readers Readers of field values, in order of factory parameters.
+     * @param factory Factory of decoded instances that takes an array of field values.
+     */
+    private MapDecoder(byte[][] names, FieldReader<?>[] readers, MethodHandle factory) {
+        this.names = names;
+        this.readers = readers;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns back a builder of decoders to provided type.
+     *
+     * @param type The type of decoded instances.
+     * @param <T>  The type of decoded instances.
+     * @return Newly created builder.
+     */
+    public static <T> Builder<T> builder(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    /**
+     * Decodes a map into an instance.
+     *
+     * @param unpacker Unpacker that is positioned on the map.
+     * @return Decoded instance.
+     * @throws IOException If map could not be unpacked.
+     * @throws Error       If value is not a map, a field is missing or not valid.
+     */
+    @SuppressWarnings("unchecked")
+    public T decode(MessageUnpacker unpacker) throws IOException {
+        if (!unpacker.hasNext() || unpacker.getNextFormat().getValueType() != ValueType.MAP)
+            throw Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+
+        var values = new Object[readers.length];
+        var size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            var index = -1;
+            if (unpacker.getNextFormat().getValueType() == ValueType.STRING) {
+                var length = unpacker.unpackRawStringHeader();
+                index = indexOf(readPayload(unpacker, length), length);
+            } else {
+                unpacker.skipValue();
+            }
+
+            if (index < 0)
+                unpacker.skipValue();
+            else
+                values[index] = readers[index].read(unpacker);
+        }
+
+        for (var value : values)
+            if (value == null)
+                throw Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+
+        try {
+            return (T) factory.invokeExact(values);
+        } catch (RuntimeException | java.lang.Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    /**
+     * Finds the field of provided name.
+     *
+     * @param name   The array that holds name bytes from its start.
+     * @param length Number of name bytes.
+     * @return Index of the field, or -1 if there is no field with provided name.
+     */
+    private int indexOf(byte[] name, int length) {
+        for (int i = 0; i < names.length; i++)
+            if (Arrays.equals(names[i], 0, names[i].length, name, 0, length))
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * Reads payload of a raw string into scratch buffer of current thread, or into a new array if it does not fit.
+     *
+     * @param unpacker Unpacker that is positioned on payload of a raw string.
+     * @param length   Number of payload bytes.
+     * @return The array that holds payload bytes from its start.
+     * @throws IOException If payload could not be unpacked.
+     */
+    static byte[] readPayload(MessageUnpacker unpacker, int length) throws IOException {
+        var target = length <= SCRATCH_SIZE ? scratch.get() : new byte[length];
+        unpacker.readPayload(target, 0, length);
+
+        return target;
+    }
+
+    /**
+     * Builder of decoders.
+     *
+     * @param <T> The type of decoded instances.
+     * @author Alireza Pourtaghi
+     */
+    public static final class Builder<T> {
+        /**
+         * The type of decoded instances.
+         */
+        private final Class<T> type;
+
+        /**
+         * Names of fields.
+         */
+        private final List<String> names = new ArrayList<>();
+
+        /**
+         * Readers of field values.
+         */
+        private final List<FieldReader<?>> readers = new ArrayList<>();
+
+        /**
+         * Constructor to create an instance of this builder.
+         *
+         * @param type The type of decoded instances.
+         */
+        private Builder(Class<T> type) {
+            this.type = type;
+        }
+
+        /**
+         * Adds a field, bound to next parameter of the constructor or factory method.
+         *
+         * @param name   The key of the field.
+         * @param reader Reader of the field value.
+         * @return This builder.
+         */
+        public Builder<T> field(String name, FieldReader<?> reader) {
+            names.add(name);
+            readers.add(reader);
+            return this;
+        }
+
+        /**
+         * Builds a decoder bound to the public constructor of the type whose parameters are the field types.
+         *
+         * @return Newly created decoder.
+         * @throws IllegalArgumentException If there is no such constructor.
+         */
+        public MapDecoder<T> build() {
+            try {
+                return build(MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class, parameterTypes())));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("no public constructor of " + type.getName() + " takes fields " + names, e);
+            }
+        }
+
+        /**
+         * Builds a decoder bound to a static factory method of lookup class, whose parameters are the field types.
+         *
+         * @param lookup  Lookup of the class that declares factory method, with access to it.
+         * @param factory The name of factory method.
+         * @return Newly created decoder.
+         * @throws IllegalArgumentException If there is no such factory method.
+         */
+        public MapDecoder<T> build(MethodHandles.Lookup lookup, String factory) {
+            try {
+                return build(lookup.findStatic(lookup.lookupClass(), factory, MethodType.methodType(type, parameterTypes())));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("no factory method " + factory + " of " + type.getName() + " takes fields " + names, e);
+            }
+        }
+
+        /**
+         * Builds a decoder bound to provided method handle.
+         *
+         * @param handle Constructor or factory method handle.
+         * @return Newly created decoder.
+         */
+        private MapDecoder<T> build(MethodHandle handle) {
+            var nameBytes = new byte[names.size()][];
+            for (int i = 0; i < nameBytes.length; i++)
+                nameBytes[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+
+            var factory = handle.asSpreader(Object[].class, names.size()).asType(MethodType.methodType(Object.class, Object[].class));
+            return new MapDecoder<>(nameBytes, readers.toArray(new FieldReader<?>[0]), factory);
+        }
+
+        /**
+         * Returns back types of fields.
+         *
+         * @return Field types, in order of fields.
+         */
+        private Class<?>[] parameterTypes() {
+            return readers.stream().map(FieldReader::getType).toArray(Class<?>[]::new);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.util.MessageWriter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoder of instances of a type to message pack maps, bound once to getter methods of the type.
+ * <p>
+ * Each field value is taken from its getter and packed by a typed {@link FieldWriter} straight through a
+ * {@link MessageWriter}, without building a value tree.
+ * </p>
+ *
+ * @param <T> The type of encoded instances.
+ * @author Alireza Pourtaghi
+ */
+public final class MapEncoder<T> {
+    /**
+     * Names of fields.
+     */
+    private final String[] names;
+
+    /**
+     * Getters of field values, each takes an instance and returns the field value.
+     */
+    private final MethodHandle[] getters;
+
+    /**
+     * Writers of field values, each checked against return type of its getter.
+     */
+    private final FieldWriter<?>[] writers;
+
+    /**
+     * Private constructor to create an instance of this encoder.
+     *
+     * @param names   Names of fields.
+     * @param getters Getters of field values.
+     * @param writers Writers of field values.
+     */
+    private MapEncoder(String[] names, MethodHandle[] getters, FieldWriter<?>[] writers) {
+        this.names = names;
+        this.getters = getters;
+        this.writers = writers;
+    }
+
+    /**
+     * Returns back a builder of encoders of provided type.
+     *
+     * @param type The type of encoded instances.
+     * @param <T>  The type of encoded instances.
+     * @return Newly created builder.
+     */
+    public static <T> Builder<T> builder(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    /**
+     * Encodes provided instance as a map.
+     *
+     * @param value  The instance.
+     * @param writer The writer that map is packed by.
+     * @throws IOException If packing failed.
+     */
+    public void encode(T value, MessageWriter writer) throws IOException {
+        writer.map(names.length);
+        for (int i = 0; i < names.length; i++) {
+            Object field;
+            try {
+                field = getters[i].invokeExact((Object) value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+
+            writers[i].writeChecked(writer.string(names[i]), field);
+        }
+    }
+
+    /**
+     * Builder of encoders.
+     *
+     * @param <T> The type of encoded instances.
+     * @author Alireza Pourtaghi
+     */
+    public static final class Builder<T> {
+        /**
+         * The type of encoded instances.
+         */
+        private final Class<T> type;
+
+        /**
+         * Names of fields.
+         */
+        private final List<String> names = new ArrayList<>();
+
+        /**
+         * Getters of field values.
+         */
+        private final List<MethodHandle> getters = new ArrayList<>();
+
+        /**
+         * Writers of field values.
+         */
+        private final List<FieldWriter<?>> writers = new ArrayList<>();
+
+        /**
+         * Constructor to create an instance of this builder.
+         *
+         * @param type The type of encoded instances.
+         */
+        private Builder(Class<T> type) {
+            this.type = type;
+        }
+
+        /**
+         * Adds a field whose value is returned by a public getter method.
+         *
+         * @param name   The key of the field.
+         * @param getter The name of getter method.
+         * @param writer Writer of the field value, must accept return type of getter method.
+         * @return This builder.
+         * @throws IllegalArgumentException If there is no such getter method, or provided writer does not accept its return type.
+         */
+        public Builder<T> field(String name, String getter, FieldWriter<?> writer) {
+            try {
+                var handle = MethodHandles.publicLookup().unreflect(type.getMethod(getter));
+                var returnType = handle.type().wrap().returnType();
+                if (!writer.getType().isAssignableFrom(returnType))
+                    throw new IllegalArgumentException("getter " + getter + " of " + type.getName() + " returns " + returnType.getName() + " that is not accepted by writer of " + writer.getType().getName());
+
+                names.add(name);
+                getters.add(handle.asType(MethodType.methodType(Object.class, Object.class)));
+                writers.add(writer);
+                return this;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("no public getter " + getter + " of " + type.getName(), e);
+            }
+        }
+
+        /**
+         * Builds an encoder of added fields.
+         *
+         * @return Newly created encoder.
+         */
+        public MapEncoder<T> build() {
+            return new MapEncoder<>(names.toArray(new String[0]), getters.toArray(new MethodHandle[0]), writers.toArray(new FieldWriter[0]));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.util.MessageWriter;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.util.Optional;
+
+import static ir.annotation.waiter.procedure.PublicPrivateKeyPairGenerator.GenerateKeyPairRequest;
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+
+/**
+ * Codec of {@link ir.annotation.waiter.procedure.PublicPrivateKeyPairGenerator} procedure.
+ * <p>
+ * Arguments are a map of {@code algo} name and {@code size} in bits; result is a map of encoded {@code publ} and {@code priv} keys.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class PublicPrivateKeyPairGeneratorCodec extends AbstractCodec<GenerateKeyPairRequest, KeyPair> {
+    /**
+     * Decoder of arguments, bound to request constructor.
+     */
+    private static final MapDecoder<GenerateKeyPairRequest> decoder = MapDecoder.builder(GenerateKeyPairRequest.class)
+            .field("algo", FieldReader.enumeration(GenerateKeyPairRequest.Algorithm.class))
+            .field("size", FieldReader.INT.map(GenerateKeyPairRequest.KeySize.class, size -> asEnum(GenerateKeyPairRequest.KeySize.class, "_" + size)))
+            .build();
+
+    /**
+     * Encoder of results.
+     */
+    private static final MapEncoder<KeyPair> encoder = MapEncoder.builder(KeyPair.class)
+            .field("publ", "getPublic", FieldWriter.KEY)
+            .field("priv", "getPrivate", FieldWriter.KEY)
+            .build();
+
+    /**
+     * Constructor to create an instance of this codec.
+     */
+    public PublicPrivateKeyPairGeneratorCodec() {
+        super("generate_public_private_key_pair");
+    }
+
+    @Override
+    public GenerateKeyPairRequest decode(MessageUnpacker arguments) throws IOException {
+        return decoder.decode(arguments);
+    }
+
+    @Override
+    public void encode(KeyPair result, MessageWriter writer) throws IOException {
+        encoder.encode(result, writer);
+    }
+
+    @Override
+    public Optional<Value> warmUpArguments(int iteration) {
+        return Optional.of(map(string("algo"), string("DiffieHellman"), string("size"), integer(2048)));
+    }
+}
@@ -0,0 +1,68 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.util.MessageWriter;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Optional;
+
+import static ir.annotation.waiter.procedure.RandomNumberGenerator.GenerateRandomNumberRequest;
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+
+/**
+ * Codec of {@link ir.annotation.waiter.procedure.RandomNumberGenerator} procedure.
+ * <p>
+ * Arguments are a map of {@code from} and {@code to} integers; result is the generated integer.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class RandomNumberGeneratorCodec extends AbstractCodec<GenerateRandomNumberRequest, Integer> {
+    /**
+     * Decoder of arguments, bound to {@link #request(int, int)} factory.
+     */
+    private static final MapDecoder<GenerateRandomNumberRequest> decoder = MapDecoder.builder(GenerateRandomNumberRequest.class)
+            .field("from", FieldReader.INT)
+            .field("to", FieldReader.INT)
+            .build(MethodHandles.lookup(), "request");
+
+    /**
+     * Constructor to create an instance of this codec.
+     */
+    public RandomNumberGeneratorCodec() {
+        super("generate_random_number");
+    }
+
+    @Override
+    public GenerateRandomNumberRequest decode(MessageUnpacker arguments) throws IOException {
+        return decoder.decode(arguments);
+    }
+
+    @Override
+    public void encode(Integer result, MessageWriter writer) throws IOException {
+        writer.integer(result);
+    }
+
+    @Override
+    public Optional<Value> warmUpArguments(int iteration) {
+        return Optional.of(map(string("from"), integer(0), string("to"), integer(iteration + 1)));
+    }
+
+    /**
+     * Validates decoded bounds and creates a request of them.
+     *
+     * @param from The lower bound.
+     * @param to   The upper bound.
+     * @return Newly created request.
+     * @throws Error If bounds are not valid.
+     */
+    private static GenerateRandomNumberRequest request(int from, int to) {
+        if (from > to || (long) to - from >= Integer.MAX_VALUE)
+            throw Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+
+        return new GenerateRandomNumberRequest(from, to);
+    }
+}
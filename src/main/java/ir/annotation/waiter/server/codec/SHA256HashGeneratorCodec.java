@@ -0,0 +1,44 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.util.MessageWriter;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import static ir.annotation.waiter.server.util.MessagePackUtil.bytes;
+
+/**
+ * Codec of {@link ir.annotation.waiter.procedure.SHA256HashGenerator} procedure.
+ * <p>
+ * Arguments are the binary that must be hashed; result is the binary hash.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class SHA256HashGeneratorCodec extends AbstractCodec<byte[], byte[]> {
+
+    /**
+     * Constructor to create an instance of this codec.
+     */
+    public SHA256HashGeneratorCodec() {
+        super("generate_SHA256_hash");
+    }
+
+    @Override
+    public byte[] decode(MessageUnpacker arguments) throws IOException {
+        return FieldReader.BYTES.read(arguments);
+    }
+
+    @Override
+    public void encode(byte[] result, MessageWriter writer) throws IOException {
+        writer.bytes(result);
+    }
+
+    @Override
+    public Optional<Value> warmUpArguments(int iteration) {
+        return Optional.of(bytes(ByteBuffer.allocate(64).putInt(iteration).array()));
+    }
+}
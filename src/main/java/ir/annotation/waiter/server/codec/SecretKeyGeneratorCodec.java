@@ -0,0 +1,52 @@
+package ir.annotation.waiter.server.codec;
+
+import ir.annotation.waiter.server.util.MessageWriter;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.util.Optional;
+
+import static ir.annotation.waiter.procedure.SecretKeyGenerator.GenerateSecretKeyRequest;
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+
+/**
+ * Codec of {@link ir.annotation.waiter.procedure.SecretKeyGenerator} procedure.
+ * <p>
+ * Arguments are a map of {@code algo} name and {@code size} in bits; result is the encoded secret key.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class SecretKeyGeneratorCodec extends AbstractCodec<GenerateSecretKeyRequest, SecretKey> {
+    /**
+     * Decoder of arguments, bound to request constructor.
+     */
+    private static final MapDecoder<GenerateSecretKeyRequest> decoder = MapDecoder.builder(GenerateSecretKeyRequest.class)
+            .field("algo", FieldReader.enumeration(GenerateSecretKeyRequest.Algorithm.class))
+            .field("size", FieldReader.INT.map(GenerateSecretKeyRequest.KeySize.class, size -> asEnum(GenerateSecretKeyRequest.KeySize.class, "_" + size)))
+            .build();
+
+    /**
+     * Constructor to create an instance of this codec.
+     */
+    public SecretKeyGeneratorCodec() {
+        super("generate_secret_key");
+    }
+
+    @Override
+    public GenerateSecretKeyRequest decode(MessageUnpacker arguments) throws IOException {
+        return decoder.decode(arguments);
+    }
+
+    @Override
+    public void encode(SecretKey result, MessageWriter writer) throws IOException {
+        FieldWriter.KEY.write(writer, result);
+    }
+
+    @Override
+    public Optional<Value> warmUpArguments(int iteration) {
+        return Optional.of(map(string("algo"), string("AES"), string("size"), integer(256)));
+    }
+}
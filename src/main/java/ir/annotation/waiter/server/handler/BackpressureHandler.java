@@ -0,0 +1,37 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import ir.annotation.waiter.server.util.AutoReadUtil;
+
+import static io.netty.channel.ChannelHandler.Sharable;
+import static ir.annotation.waiter.server.util.AutoReadUtil.Reason.NOT_WRITABLE;
+
+/**
+ * Channel inbound handler that stops reading from a channel while its outbound buffer is above the high water mark.
+ * <p>
+ * Reading is resumed as soon as the outbound buffer drains below the low water mark, so slow consumers can not grow
+ * outbound buffers without bound. This handler is sharable.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@Sharable
+public class BackpressureHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * Empty constructor.
+     */
+    public BackpressureHandler() {
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable())
+            AutoReadUtil.resume(ctx.channel(), NOT_WRITABLE);
+        else
+            AutoReadUtil.suspend(ctx.channel(), NOT_WRITABLE);
+
+        ctx.fireChannelWritabilityChanged();
+    }
+}
@@ -0,0 +1,252 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.compression.SnappyFrameEncoder;
+import io.netty.util.AttributeKey;
+import ir.annotation.waiter.metrics.ServerMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Channel outbound handler that compresses responses larger than a threshold, once the client negotiated an algorithm.
+ * <p>
+ * A client negotiates compression by naming an {@link Algorithm} in {@code comp} field of a request; unknown names are
+ * ignored, so responses stay uncompressed. A compressed response is a message pack's extension value, whose type is the
+ * extension type of the algorithm and whose data is the compressed message: a snappy framed stream, or a zlib stream of
+ * deflate algorithm. Responses that do not shrink are written as is. Compressor state is kept per channel, so this handler
+ * is not sharable.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class CompressionHandler extends ChannelOutboundHandlerAdapter {
+    /**
+     * Channel attribute that holds the compression algorithm negotiated by the client.
+     */
+    public static final AttributeKey<Algorithm> ALGORITHM = AttributeKey.valueOf("compression-algorithm");
+
+    /**
+     * Maximum size of extension header in bytes, reserved in front of compressed data.
+     */
+    private static final int HEADER_SIZE = 6;
+
+    /**
+     * Minimum size of a response in bytes to be compressed.
+     */
+    private final int threshold;
+
+    /**
+     * Compression level of deflate algorithm.
+     */
+    private final int level;
+
+    /**
+     * Server wide metrics.
+     */
+    private final ServerMetrics metrics;
+
+    /**
+     * Deflate compressor of this channel, created on first use.
+     */
+    private Deflater deflater;
+
+    /**
+     * Constructor to create an instance of this handler.
+     *
+     * @param threshold Minimum size of a response in bytes to be compressed.
+     * @param level     Compression level of deflate algorithm, 1 (fastest) to 9 (smallest).
+     * @param metrics   Server wide metrics.
+     */
+    public CompressionHandler(int threshold, int level, ServerMetrics metrics) {
+        this.threshold = threshold;
+        this.level = level;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        var algorithm = ctx.channel().attr(ALGORITHM).get();
+        if (algorithm == null || !(msg instanceof ByteBuf) || ((ByteBuf) msg).readableBytes() < threshold) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        var message = (ByteBuf) msg;
+        var length = message.readableBytes();
+        var compressed = ctx.alloc().buffer(HEADER_SIZE + length);
+        try {
+            compressed.writerIndex(HEADER_SIZE);
+            if (algorithm == Algorithm.SNAPPY)
+                snappy(message, compressed);
+            else
+                deflate(message, compressed);
+        } catch (Throwable t) {
+            compressed.release();
+            message.release();
+            throw t;
+        }
+
+        var compressedLength = compressed.readableBytes() - HEADER_SIZE;
+        if (compressedLength >= length) {
+            compressed.release();
+            ctx.write(message, promise);
+            return;
+        }
+
+        message.release();
+        writeHeader(compressed, algorithm.getType(), compressedLength);
+        metrics.recordCompressedResponse(length, compressedLength);
+        ctx.write(compressed, promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        if (deflater != null)
+            deflater.end();
+    }
+
+    /**
+     * Compresses provided message by snappy algorithm, as a framed stream.
+     *
+     * @param message The message, its reader index is not changed.
+     * @param out     The buffer that compressed data is written into.
+     * @throws Exception If compression failed.
+     */
+    private static void snappy(ByteBuf message, ByteBuf out) throws Exception {
+        new SnappyStreamEncoder().encode(message.duplicate(), out);
+    }
+
+    /**
+     * Compresses provided message by deflate algorithm, in zlib format.
+     *
+     * @param message The message, its reader index is not changed.
+     * @param out     The buffer that compressed data is written into.
+     */
+    private void deflate(ByteBuf message, ByteBuf out) {
+        if (deflater == null)
+            deflater = new Deflater(level);
+
+        deflater.reset();
+        deflater.setInput(message.nioBuffer());
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.ensureWritable(Math.max(64, message.readableBytes() >> 2));
+            var written = deflater.deflate(out.nioBuffer(out.writerIndex(), out.writableBytes()));
+            out.writerIndex(out.writerIndex() + written);
+        }
+    }
+
+    /**
+     * Writes the smallest extension header that fits in front of compressed data, and moves reader index to its start.
+     *
+     * @param out    The buffer that holds compressed data after reserved header space.
+     * @param type   The extension type.
+     * @param length Length of compressed data.
+     */
+    private static void writeHeader(ByteBuf out, byte type, int length) {
+        int start;
+        if (length < 1 << 8) {
+            start = HEADER_SIZE - 3;
+            out.setByte(start, 0xc7);
+            out.setByte(start + 1, length);
+        } else if (length < 1 << 16) {
+            start = HEADER_SIZE - 4;
+            out.setByte(start, 0xc8);
+            out.setShort(start + 1, length);
+        } else {
+            start = 0;
+            out.setByte(start, 0xc9);
+            out.setInt(start + 1, length);
+        }
+
+        out.setByte(HEADER_SIZE - 1, type);
+        out.readerIndex(start);
+    }
+
+    /**
+     * Compression algorithms that clients can negotiate.
+     *
+     * @author Alireza Pourtaghi
+     */
+    public enum Algorithm {
+        SNAPPY("snappy", (byte) 1),
+        DEFLATE("deflate", (byte) 2);
+
+        /**
+         * Name of the algorithm, used in negotiation.
+         */
+        private final String name;
+
+        /**
+         * UTF-8 bytes of name of the algorithm.
+         */
+        private final byte[] nameBytes;
+
+        /**
+         * Message pack's extension type of responses compressed by the algorithm.
+         */
+        private final byte type;
+
+        /**
+         * Enum constructor to create an instance of available constants.
+         *
+         * @param name Name of the algorithm, used in negotiation.
+         * @param type Message pack's extension type of responses compressed by the algorithm.
+         */
+        Algorithm(String name, byte type) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        /**
+         * Returns back the algorithm of provided UTF-8 name bytes.
+         *
+         * @param bytes  The array that holds name bytes from its start.
+         * @param length Number of name bytes.
+         * @return The algorithm, or {@code null} if there is no algorithm with provided name.
+         */
+        public static Algorithm of(byte[] bytes, int length) {
+            for (var algorithm : values())
+                if (Arrays.equals(algorithm.nameBytes, 0, algorithm.nameBytes.length, bytes, 0, length))
+                    return algorithm;
+
+            return null;
+        }
+    }
+
+    /**
+     * Snappy framed stream encoder that encodes each message as a whole stream, starting with stream identifier.
+     * <p>
+     * Raw snappy encoder of netty only supports blocks up to 32 KiB, that framed streams are split into.
+     * </p>
+     *
+     * @author Alireza Pourtaghi
+     */
+    private static final class SnappyStreamEncoder extends SnappyFrameEncoder {
+
+        /**
+         * Encodes provided message as a framed stream.
+         *
+         * @param message The message.
+         * @param out     The buffer that stream is written into.
+         * @throws Exception If encoding failed.
+         */
+        private void encode(ByteBuf message, ByteBuf out) throws Exception {
+            encode(null, message, out);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import ir.annotation.waiter.core.procedure.AbstractProcedure;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.metrics.event.ProcedureExecutionEvent;
+import ir.annotation.waiter.processor.Processor;
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.Failure;
+import ir.annotation.waiter.server.Field;
+import ir.annotation.waiter.server.Request;
+import ir.annotation.waiter.server.Response;
+import ir.annotation.waiter.server.codec.Codec;
+import ir.annotation.waiter.server.codec.CodecRegistry;
+import ir.annotation.waiter.server.util.MessageWriter;
+import ir.annotation.waiter.tracing.Trace;
+import ir.annotation.waiter.tracing.Tracer;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePackException;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.core.buffer.ArrayBufferInput;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Channel inbound handler that dispatches received {@link Request}s to their procedures and writes back the responses.
+ * <p>
+ * Procedure calls run on {@link Processor}; responses are written as a {@link Response} of their request, and logical errors
+ * are fired as a {@link Failure} of their request, exceptions as they are, to the next handlers of channel pipeline.
+ * Calls that are still queued or running when the channel becomes inactive are cancelled, so this handler keeps per channel
+ * state and is not sharable.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class Dispatcher extends SimpleChannelInboundHandler<Request> {
+    /**
+     * Processor that procedure calls are run on.
+     */
+    private final Processor processor;
+
+    /**
+     * Registry of procedure codecs.
+     */
+    private final CodecRegistry codecRegistry;
+
+    /**
+     * Metrics registry that procedure calls are recorded on.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Tracer that finished traces of sampled requests are recorded on.
+     */
+    private final Tracer tracer;
+
+    /**
+     * Calls of this channel that are not completed yet.
+     */
+    private final Set<CompletableFuture<?>> pendingCalls = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Input of arguments unpacker, reset to arguments of each request.
+     */
+    private final ArrayBufferInput argumentsInput = new ArrayBufferInput(new byte[0]);
+
+    /**
+     * Unpacker of request arguments, reused by all requests of this channel as they are decoded on its event loop.
+     */
+    private final MessageUnpacker argumentsUnpacker = MessagePack.newDefaultUnpacker(argumentsInput);
+
+    /**
+     * Constructor to create an instance of this dispatcher.
+     *
+     * @param processor     Processor that procedure calls are run on.
+     * @param codecRegistry Registry of procedure codecs.
+     * @param metrics       Metrics registry that procedure calls are recorded on.
+     * @param tracer        Tracer that finished traces of sampled requests are recorded on.
+     */
+    public Dispatcher(Processor processor, CodecRegistry codecRegistry, Metrics metrics, Tracer tracer) {
+        this.processor = processor;
+        this.codecRegistry = codecRegistry;
+        this.metrics = metrics;
+        this.tracer = tracer;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void channelRead0(ChannelHandlerContext ctx, Request request) throws Exception {
+        if (request.getTrace() != null)
+            request.getTrace().mark(Trace.Stage.DISPATCHED);
+
+        var procedure = processor.getProcedureByIdentifier(request.getProcedure());
+        var codec = codecRegistry.getCodecByIdentifier(request.getProcedure());
+
+        if (procedure.isEmpty() || codec.isEmpty())
+            ctx.fireExceptionCaught(new Failure(request, Error.Reason.PROCEDURE_NOT_FOUND.getError()));
+        else
+            dispatch(ctx, request, (AbstractProcedure<Object, Object>) procedure.get(), (Codec<Object, Object>) codec.get());
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        pendingCalls.forEach(call -> call.cancel(false));
+        ctx.fireChannelInactive();
+    }
+
+    /**
+     * Decodes request arguments, calls the procedure and writes back the encoded result.
+     *
+     * @param ctx       The channel handler context.
+     * @param request   The received request.
+     * @param procedure The requested procedure.
+     * @param codec     The codec of requested procedure.
+     * @param <T>       The type of the input to the procedure.
+     * @param <R>       The type of the result of the procedure.
+     */
+    private <T, R> void dispatch(ChannelHandlerContext ctx, Request request, AbstractProcedure<T, R> procedure, Codec<T, R> codec) {
+        var procedureMetrics = metrics.procedure(procedure.getIdentifier());
+        procedureMetrics.recordRequest();
+        var startTime = System.nanoTime();
+        var event = ProcedureExecutionEvent.start(procedure.getIdentifier());
+
+        T argument;
+        try {
+            argumentsInput.reset(request.getArguments());
+            argumentsUnpacker.reset(argumentsInput);
+            argument = codec.decode(argumentsUnpacker);
+        } catch (Error | IOException | MessagePackException e) {
+            var error = e instanceof Error ? (Error) e : Error.Reason.INVALID_PROCEDURE_ARGUMENTS.getError();
+            procedureMetrics.recordError(error.getReason());
+            if (event != null)
+                event.record(error.getCode());
+            ctx.fireExceptionCaught(new Failure(request, error));
+            return;
+        }
+
+        var trace = request.getTrace();
+        var call = processor.process(procedure, argument, request::getArgumentsDigest, request.getPriority(), request.getDeadline(), trace);
+        pendingCalls.add(call);
+        call.whenComplete((result, cause) -> {
+            pendingCalls.remove(call);
+            if (call.isCancelled()) {
+                if (event != null)
+                    event.record(ProcedureExecutionEvent.CANCELLED);
+                return;
+            }
+
+            procedureMetrics.recordLatency(System.nanoTime() - startTime);
+            if (trace != null)
+                trace.mark(Trace.Stage.COMPLETED);
+            if (cause != null) {
+                cause = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+                cause = cause instanceof TimeoutException ? Error.Reason.DEADLINE_EXCEEDED.getError() : cause;
+                procedureMetrics.recordError(cause instanceof Error ? ((Error) cause).getReason() : Error.Reason.UNKNOWN);
+                if (event != null)
+                    event.record(cause instanceof Error ? ((Error) cause).getCode() : Error.Reason.UNKNOWN.getError().getCode());
+                if (cause instanceof Error) {
+                    // Error handler records the trace once the error response is flushed.
+                    ctx.fireExceptionCaught(new Failure(request, (Error) cause));
+                } else {
+                    if (trace != null)
+                        tracer.record(trace);
+                    ctx.fireExceptionCaught(cause);
+                }
+                return;
+            }
+
+            if (event != null)
+                event.record(ProcedureExecutionEvent.SUCCESS);
+            try {
+                write(ctx, request, codec, result);
+            } catch (Exception e) {
+                procedureMetrics.recordError(Error.Reason.UNKNOWN);
+                ctx.fireExceptionCaught(e);
+            }
+        });
+    }
+
+    /**
+     * Packs response message straight into a buffer and writes it to the channel, recording trace of the request once it is flushed.
+     *
+     * @param ctx     The channel handler context.
+     * @param request The request that the response answers.
+     * @param codec   The codec of the procedure that encodes its result.
+     * @param result  The optional result of the procedure.
+     * @param <R>     The type of the result of the procedure.
+     * @throws IOException If packing message failed.
+     */
+    private <R> void write(ChannelHandlerContext ctx, Request request, Codec<?, R> codec, Optional<R> result) throws IOException {
+        try (var writer = new MessageWriter(ctx.alloc(), request.isCompact())) {
+            writer.map(2)
+                    .field(Field.SUCCESS).bool(true)
+                    .field(Field.RESPONSE);
+            if (result.isPresent())
+                codec.encode(result.get(), writer);
+            else
+                writer.nil();
+
+            var future = ctx.writeAndFlush(new Response(request, writer.finish()));
+            var trace = request.getTrace();
+            if (trace != null) {
+                future.addListener(written -> {
+                    trace.mark(Trace.Stage.FLUSHED);
+                    tracer.record(trace);
+                });
+            }
+        }
+    }
+}
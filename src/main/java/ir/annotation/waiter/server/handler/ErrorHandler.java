@@ -2,15 +2,28 @@ package ir.annotation.waiter.server.handler;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import ir.annotation.waiter.metrics.ServerMetrics;
+import ir.annotation.waiter.metrics.event.ErrorEmittedEvent;
 import ir.annotation.waiter.server.Error;
-import org.msgpack.core.MessagePack;
-import org.msgpack.value.Value;
+import ir.annotation.waiter.server.Failure;
+import ir.annotation.waiter.server.Field;
+import ir.annotation.waiter.server.Request;
+import ir.annotation.waiter.server.Response;
+import ir.annotation.waiter.server.util.MessageWriter;
+import ir.annotation.waiter.tracing.Trace;
+import ir.annotation.waiter.tracing.Tracer;
+
+import java.io.IOException;
 
 import static io.netty.channel.ChannelHandler.Sharable;
-import static ir.annotation.waiter.server.util.MessagePackUtil.*;
 
 /**
  * Channel inbound error handler to handle all kind of errors.
+ * <p>
+ * Errors of a {@link Request} arrive as its {@link Failure}, and their responses are written as a {@link Response} of that
+ * request, recording its trace once flushed, and the channel is kept open for the calls that follow; other errors are
+ * connection level, so they are written as bare messages and the channel is closed afterwards.
+ * </p>
  *
  * @author Alireza Pourtaghi
  */
@@ -18,40 +31,75 @@ import static ir.annotation.waiter.server.util.MessagePackUtil.*;
 public class ErrorHandler extends ChannelInboundHandlerAdapter {
 
     /**
-     * Empty constructor.
+     * Server wide metrics.
      */
-    public ErrorHandler() {
+    private final ServerMetrics metrics;
+
+    /**
+     * Tracer that traces of failed requests are recorded on.
+     */
+    private final Tracer tracer;
+
+    /**
+     * Constructor to create an instance of this handler.
+     *
+     * @param metrics Server wide metrics.
+     * @param tracer  Tracer that traces of failed requests are recorded on.
+     */
+    public ErrorHandler(ServerMetrics metrics, Tracer tracer) {
+        this.metrics = metrics;
+        this.tracer = tracer;
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        if (cause instanceof Error) {
-            try (var buffer = MessagePack.newDefaultBufferPacker()) {
-                buffer.packValue(buildErrorMessage((Error) cause));
-                var bytesOut = ctx.alloc().buffer((int) buffer.getTotalWrittenBytes()); // Default to allocate direct buffer.
-                bytesOut.writeBytes(buffer.toByteArray());
-                ctx.writeAndFlush(bytesOut);
-            } finally {
-                ctx.close();
-            }
-        } else {
+        if (cause instanceof Failure)
+            handle(ctx, ((Failure) cause).getError(), ((Failure) cause).getRequest());
+        else if (cause instanceof Error)
+            handle(ctx, (Error) cause, null);
+        else
             ctx.fireExceptionCaught(cause);
+    }
+
+    /**
+     * Records an error and writes back its message, closing the channel if the error does not belong to a request.
+     *
+     * @param ctx     The channel handler context.
+     * @param error   The error.
+     * @param request The request that failed with the error, {@code null} if the error does not belong to a request.
+     * @throws IOException If packing message failed.
+     */
+    private void handle(ChannelHandlerContext ctx, Error error, Request request) throws IOException {
+        metrics.recordError(error.getReason());
+        ErrorEmittedEvent.commit(error.getCode(), null);
+        try (var writer = new MessageWriter(ctx.alloc(), request == null ? MessageDecoder.isCompact(ctx.channel()) : request.isCompact())) {
+            writeErrorMessage(writer, error);
+            var future = ctx.writeAndFlush(request == null ? writer.finish() : new Response(request, writer.finish()));
+            var trace = request == null ? null : request.getTrace();
+            if (trace != null) {
+                future.addListener(written -> {
+                    trace.mark(Trace.Stage.FLUSHED);
+                    tracer.record(trace);
+                });
+            }
+        } finally {
+            if (request == null)
+                ctx.close();
         }
     }
 
     /**
-     * Generates appropriate binary message.
+     * Writes appropriate binary message of an error.
      *
-     * @param error The {@link Error} that should be converted to binary message.
-     * @return Message pack's {@link Value} format.
+     * @param writer The writer that message is packed by.
+     * @param error  The {@link Error} that should be converted to binary message.
+     * @throws IOException If packing message failed.
      */
-    private Value buildErrorMessage(Error error) {
-        return map(
-                string("succ"), bool(false),
-                string("errs"), array(map(
-                        string("code"), string(error.getCode()),
-                        string("mess"), string(error.getMessage())
-                ))
-        );
+    static void writeErrorMessage(MessageWriter writer, Error error) throws IOException {
+        writer.map(2)
+                .field(Field.SUCCESS).bool(false)
+                .field(Field.ERRORS).array(1).map(2)
+                .field(Field.CODE).string(error.getCode())
+                .field(Field.MESSAGE).string(error.getMessage());
     }
 }
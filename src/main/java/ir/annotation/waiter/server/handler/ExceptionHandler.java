@@ -2,19 +2,24 @@ package ir.annotation.waiter.server.handler;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.DecoderException;
+import ir.annotation.waiter.metrics.ServerMetrics;
+import ir.annotation.waiter.metrics.event.ErrorEmittedEvent;
 import ir.annotation.waiter.server.Error;
-import org.msgpack.core.MessagePack;
-import org.msgpack.value.Value;
+import ir.annotation.waiter.server.util.MessageWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLException;
+
 import static io.netty.channel.ChannelHandler.Sharable;
-import static ir.annotation.waiter.server.util.MessagePackUtil.*;
 
 /**
  * Channel inbound exception handler that is inserted as last channel handler in channel pipeline to handle all kinds of {@link Throwable}.
  * <p>
  * This sharable class is a general exception handler that logs the exception, sends back appropriate response and finally closes the channel.
+ * Failed TLS handshakes and records are only logged and recorded as {@link Error.Reason#TLS_FAILED}, as nothing can be sent
+ * back to the client over a broken TLS session.
  * </p>
  *
  * @author Alireza Pourtaghi
@@ -24,33 +29,37 @@ public class ExceptionHandler extends ChannelInboundHandlerAdapter {
     private static final Logger logger = LoggerFactory.getLogger(ExceptionHandler.class);
 
     /**
-     * Appropriate binary message for unknown error.
+     * Server wide metrics.
      */
-    private final Value unknownErrorMessage;
+    private final ServerMetrics metrics;
 
     /**
      * Constructor to instantiate and setup exception handler.
+     *
+     * @param metrics Server wide metrics.
      */
-    public ExceptionHandler() {
-        unknownErrorMessage = map(
-                string("succ"), bool(false),
-                string("errs"), array(map(
-                        string("code"), string(Error.Reason.UNKNOWN.getError().getCode()),
-                        string("mess"), string(Error.Reason.UNKNOWN.getError().getMessage())
-                ))
-        );
+    public ExceptionHandler(ServerMetrics metrics) {
+        this.metrics = metrics;
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (cause instanceof SSLException || cause instanceof DecoderException && cause.getCause() instanceof SSLException) {
+            logger.warn("tls failed on {} with message {}", ctx.channel().remoteAddress(), cause.getMessage());
+            metrics.recordError(Error.Reason.TLS_FAILED);
+            ErrorEmittedEvent.commit(Error.Reason.TLS_FAILED.getError().getCode(), cause.getClass());
+            ctx.close();
+            return;
+        }
+
         try {
             logger.error("exception caught ", cause);
+            metrics.recordError(Error.Reason.UNKNOWN);
+            ErrorEmittedEvent.commit(Error.Reason.UNKNOWN.getError().getCode(), cause.getClass());
 
-            try (var buffer = MessagePack.newDefaultBufferPacker()) {
-                buffer.packValue(unknownErrorMessage);
-                var bytesOut = ctx.alloc().buffer((int) buffer.getTotalWrittenBytes()); // Default to allocate direct buffer.
-                bytesOut.writeBytes(buffer.toByteArray());
-                ctx.writeAndFlush(bytesOut);
+            try (var writer = new MessageWriter(ctx.alloc(), MessageDecoder.isCompact(ctx.channel()))) {
+                ErrorHandler.writeErrorMessage(writer, Error.Reason.UNKNOWN.getError());
+                ctx.writeAndFlush(writer.finish());
             }
         } finally {
             ctx.close();
@@ -0,0 +1,150 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.metrics.event.ErrorEmittedEvent;
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.Request;
+import ir.annotation.waiter.server.Response;
+import ir.annotation.waiter.server.limiter.AdaptiveConcurrencyLimiter;
+import ir.annotation.waiter.server.util.AutoReadUtil;
+import ir.annotation.waiter.server.util.MessageWriter;
+import ir.annotation.waiter.tracing.Trace;
+import ir.annotation.waiter.tracing.Tracer;
+
+import java.io.IOException;
+
+import static ir.annotation.waiter.server.util.AutoReadUtil.Reason.IN_FLIGHT_BUDGET_EXCEEDED;
+
+/**
+ * Channel duplex handler that sheds load when the server is saturated.
+ * <p>
+ * Every admitted {@link Request} holds a permit of its listener's {@link AdaptiveConcurrencyLimiter} until its own
+ * {@link Response} is written, and the latency of the call is measured from its admission. New calls are answered with
+ * {@link Error.Reason#OVERLOADED} once the limiter is saturated, while the channel stays open for further calls, and reading
+ * from the channel is paused while the channel exceeds its own in-flight budget. This handler keeps per channel state, so it
+ * is not sharable.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class LoadSheddingHandler extends ChannelDuplexHandler {
+    /**
+     * Adaptive concurrency limiter of the listener that accepted the channel.
+     */
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * Maximum amount of in-flight calls of this channel before pausing reads.
+     */
+    private final int inFlightBudget;
+
+    /**
+     * Metrics registry, used to record rejected calls of known procedures.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Tracer that traces of rejected requests are recorded on.
+     */
+    private final Tracer tracer;
+
+    /**
+     * Number of admitted calls of this channel whose responses are not written yet. Only accessed from channel's event loop.
+     */
+    private int inFlight;
+
+    /**
+     * Whether the channel became inactive and permits of its calls are released. Only accessed from channel's event loop.
+     */
+    private boolean inactive;
+
+    /**
+     * Constructor to create an instance of this handler.
+     *
+     * @param limiter        Adaptive concurrency limiter of the listener that accepted the channel.
+     * @param inFlightBudget Maximum amount of in-flight calls of this channel before pausing reads.
+     * @param metrics        Metrics registry, used to record rejected calls of known procedures.
+     * @param tracer         Tracer that traces of rejected requests are recorded on.
+     */
+    public LoadSheddingHandler(AdaptiveConcurrencyLimiter limiter, int inFlightBudget, Metrics metrics, Tracer tracer) {
+        this.limiter = limiter;
+        this.inFlightBudget = inFlightBudget;
+        this.metrics = metrics;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof Request)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        var request = (Request) msg;
+        if (!limiter.tryAcquire()) {
+            reject(ctx, request);
+            return;
+        }
+
+        request.admit(System.nanoTime());
+        if (++inFlight >= inFlightBudget)
+            AutoReadUtil.suspend(ctx.channel(), IN_FLIGHT_BUDGET_EXCEEDED);
+
+        ctx.fireChannelRead(request);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof Response) {
+            var request = ((Response) msg).getRequest();
+            if (!inactive && request.release()) {
+                limiter.release(request.getProcedure(), System.nanoTime() - request.getAdmissionTime());
+                if (--inFlight < inFlightBudget)
+                    AutoReadUtil.resume(ctx.channel(), IN_FLIGHT_BUDGET_EXCEEDED);
+            }
+
+            msg = ((Response) msg).getMessage();
+        }
+
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        inactive = true;
+        for (; inFlight > 0; inFlight--)
+            limiter.release();
+
+        ctx.fireChannelInactive();
+    }
+
+    /**
+     * Answers a call that is not admitted with {@link Error.Reason#OVERLOADED} error, keeping the channel open, and records its
+     * trace once flushed.
+     *
+     * @param ctx     The channel handler context.
+     * @param request The rejected request.
+     * @throws IOException If packing message failed.
+     */
+    private void reject(ChannelHandlerContext ctx, Request request) throws IOException {
+        var error = Error.Reason.OVERLOADED.getError();
+        metrics.getProcedure(request.getProcedure()).ifPresent(procedure -> procedure.recordError(error.getReason()));
+        metrics.getServer().recordError(error.getReason());
+        ErrorEmittedEvent.commit(error.getCode(), null);
+
+        try (var writer = new MessageWriter(ctx.alloc(), request.isCompact())) {
+            ErrorHandler.writeErrorMessage(writer, error);
+            var future = ctx.writeAndFlush(writer.finish());
+            var trace = request.getTrace();
+            if (trace != null) {
+                future.addListener(written -> {
+                    trace.mark(Trace.Stage.FLUSHED);
+                    tracer.record(trace);
+                });
+            }
+        }
+    }
+}
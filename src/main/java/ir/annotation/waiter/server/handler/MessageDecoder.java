@@ -1,37 +1,242 @@
 package ir.annotation.waiter.server.handler;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.AttributeKey;
+import ir.annotation.waiter.metrics.ServerMetrics;
+import ir.annotation.waiter.metrics.event.FrameDecodedEvent;
 import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.Field;
+import ir.annotation.waiter.server.Request;
+import ir.annotation.waiter.server.util.StringTable;
+import ir.annotation.waiter.tracing.Trace;
+import ir.annotation.waiter.tracing.Tracer;
 import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.ValueType;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority;
+
 /**
- * Message pack decoder and validator.
+ * Message pack decoder and validator that converts received messages to {@link Request}s.
+ * <p>
+ * Messages are read as a stream: keys are matched on their raw bytes or compact {@link Field} codes, and known procedure
+ * identifiers are resolved to interned strings; procedure arguments are kept packed, for their codecs. Each decoded request
+ * carries its own key format, for its response to use the same format; the format of last request is also kept on the channel
+ * under {@link #COMPACT_FIELDS}, only for errors that do not belong to a request.
+ * </p>
  *
  * @author Alireza Pourtaghi
  */
 public class MessageDecoder extends ByteToMessageDecoder {
+    /**
+     * Channel attribute that tells whether last request of the channel was keyed by compact field codes; responses of requests
+     * use {@link Request#isCompact()} instead, as later requests of a pipelined channel may change it.
+     */
+    public static final AttributeKey<Boolean> COMPACT_FIELDS = AttributeKey.valueOf("compact-fields");
+
+    /**
+     * Request fields, indexed by their codes.
+     */
+    private static final Field[] REQUEST_FIELDS = {Field.PROCEDURE, Field.ARGUMENTS, Field.PRIORITY, Field.DEADLINE, Field.COMPRESSION};
+
+    /**
+     * Packed nil arguments of requests without arguments.
+     */
+    private static final byte[] NIL_ARGUMENTS = {MessagePack.Code.NIL};
+
+    /**
+     * Server wide metrics.
+     */
+    private final ServerMetrics metrics;
+
+    /**
+     * Tracer that samples decoded requests.
+     */
+    private final Tracer tracer;
 
     /**
-     * Empty constructor.
+     * Interned identifiers of available procedures.
      */
-    public MessageDecoder() {
+    private final StringTable procedures;
+
+    /**
+     * Reusable buffer that raw strings up to its size are read into.
+     */
+    private final byte[] scratch = new byte[64];
+
+    /**
+     * Constructor to create an instance of this decoder.
+     *
+     * @param metrics    Server wide metrics.
+     * @param tracer     Tracer that samples decoded requests.
+     * @param procedures Interned identifiers of available procedures.
+     */
+    public MessageDecoder(ServerMetrics metrics, Tracer tracer, StringTable procedures) {
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.procedures = procedures;
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        metrics.recordFrameDecoded();
+        var trace = tracer.trace();
+        var event = new FrameDecodedEvent();
+        event.begin();
         var bytes = new byte[in.readableBytes()];
         in.readBytes(bytes);
 
-        try (var buffer = MessagePack.newDefaultUnpacker(bytes)) {
-            var message = buffer.unpackValue();
-            if (!message.isMapValue())
+        try (var unpacker = MessagePack.newDefaultUnpacker(bytes)) {
+            if (!unpacker.hasNext() || unpacker.getNextFormat().getValueType() != ValueType.MAP) {
+                ctx.fireExceptionCaught(Error.Reason.INVALID_MESSAGE_FORMAT.getError());
+                return;
+            }
+
+            var request = readRequest(ctx, unpacker, bytes, trace);
+            if (request == null)
                 ctx.fireExceptionCaught(Error.Reason.INVALID_MESSAGE_FORMAT.getError());
             else
-                out.add(message);
+                out.add(request);
+        } finally {
+            event.record(bytes.length);
         }
     }
+
+    /**
+     * Checks whether last request of provided channel was keyed by compact field codes.
+     *
+     * @param channel The channel.
+     * @return {@code true} if errors of the channel that do not belong to a request must be keyed by compact field codes.
+     */
+    public static boolean isCompact(Channel channel) {
+        return Boolean.TRUE.equals(channel.attr(COMPACT_FIELDS).get());
+    }
+
+    /**
+     * Reads and validates a request message and converts it to a request; unknown keys are skipped.
+     *
+     * @param ctx      The channel handler context.
+     * @param unpacker Unpacker that is positioned on the message map.
+     * @param bytes    The received message that unpacker reads.
+     * @param trace    Trace of the request, {@code null} if it is not sampled.
+     * @return Newly created request, or {@code null} if message format is not valid.
+     * @throws IOException If message could not be unpacked.
+     */
+    private Request readRequest(ChannelHandlerContext ctx, MessageUnpacker unpacker, byte[] bytes, Trace trace) throws IOException {
+        String procedure = null;
+        var arguments = NIL_ARGUMENTS;
+        var priority = Priority.NORMAL;
+        var deadline = 0L;
+        var compact = false;
+        CompressionHandler.Algorithm compression = null;
+
+        var size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            Field field = null;
+            var keyType = unpacker.getNextFormat().getValueType();
+            if (keyType == ValueType.INTEGER) {
+                var code = unpacker.unpackValue().asIntegerValue();
+                if (code.isInIntRange() && code.toInt() >= 0 && code.toInt() < REQUEST_FIELDS.length)
+                    field = REQUEST_FIELDS[code.toInt()];
+                compact = true;
+            } else if (keyType == ValueType.STRING) {
+                var length = unpacker.unpackRawStringHeader();
+                var name = readPayload(unpacker, length);
+                for (var requestField : REQUEST_FIELDS)
+                    if (requestField.matches(name, length))
+                        field = requestField;
+            } else {
+                unpacker.skipValue();
+            }
+
+            if (field == null) {
+                unpacker.skipValue();
+                continue;
+            }
+
+            var valueType = unpacker.getNextFormat().getValueType();
+            switch (field) {
+                case PROCEDURE:
+                    if (valueType != ValueType.STRING)
+                        return null;
+
+                    var identifierLength = unpacker.unpackRawStringHeader();
+                    var identifier = readPayload(unpacker, identifierLength);
+                    procedure = procedures.get(identifier, identifierLength);
+                    if (procedure == null)
+                        procedure = new String(identifier, 0, identifierLength, StandardCharsets.UTF_8);
+                    break;
+                case ARGUMENTS:
+                    var offset = (int) unpacker.getTotalReadBytes();
+                    unpacker.skipValue();
+                    arguments = Arrays.copyOfRange(bytes, offset, (int) unpacker.getTotalReadBytes());
+                    break;
+                case PRIORITY:
+                    if (valueType != ValueType.INTEGER)
+                        return null;
+
+                    var level = unpacker.unpackValue().asIntegerValue();
+                    if (!level.isInIntRange() || level.toInt() < 0 || level.toInt() >= Priority.values().length)
+                        return null;
+
+                    priority = Priority.values()[level.toInt()];
+                    break;
+                case DEADLINE:
+                    if (valueType != ValueType.INTEGER)
+                        return null;
+
+                    var time = unpacker.unpackValue().asIntegerValue();
+                    if (!time.isInLongRange() || time.toLong() < 0)
+                        return null;
+
+                    deadline = time.toLong();
+                    break;
+                case COMPRESSION:
+                    if (valueType != ValueType.STRING)
+                        return null;
+
+                    var nameLength = unpacker.unpackRawStringHeader();
+                    compression = CompressionHandler.Algorithm.of(readPayload(unpacker, nameLength), nameLength);
+                    break;
+            }
+        }
+
+        if (procedure == null)
+            return null;
+
+        if (compact != isCompact(ctx.channel()))
+            ctx.channel().attr(COMPACT_FIELDS).set(compact);
+        if (compression != null)
+            ctx.channel().attr(CompressionHandler.ALGORITHM).set(compression);
+
+        if (trace != null) {
+            trace.setProcedure(procedure);
+            trace.mark(Trace.Stage.DECODED);
+        }
+
+        return new Request(procedure, arguments, priority, deadline, compact, trace);
+    }
+
+    /**
+     * Reads payload of a raw string into scratch buffer, or into a new array if it does not fit.
+     *
+     * @param unpacker Unpacker that is positioned on payload of a raw string.
+     * @param length   Number of payload bytes.
+     * @return The array that holds payload bytes from its start.
+     * @throws IOException If payload could not be unpacked.
+     */
+    private byte[] readPayload(MessageUnpacker unpacker, int length) throws IOException {
+        var target = length <= scratch.length ? scratch : new byte[length];
+        unpacker.readPayload(target, 0, length);
+
+        return target;
+    }
 }
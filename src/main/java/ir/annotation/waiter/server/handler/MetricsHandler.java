@@ -0,0 +1,67 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import ir.annotation.waiter.metrics.ServerMetrics;
+import ir.annotation.waiter.metrics.event.ConnectionAcceptedEvent;
+import ir.annotation.waiter.metrics.event.ConnectionClosedEvent;
+
+import static io.netty.channel.ChannelHandler.Sharable;
+
+/**
+ * Channel duplex handler, first in channel pipeline, that records active connections and transferred bytes, and commits
+ * flight recorder events of accepted and closed connections.
+ * <p>
+ * This implementation is sharable.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+@Sharable
+public class MetricsHandler extends ChannelDuplexHandler {
+    /**
+     * Server wide metrics.
+     */
+    private final ServerMetrics metrics;
+
+    /**
+     * Constructor to create an instance of this handler.
+     *
+     * @param metrics Server wide metrics.
+     */
+    public MetricsHandler(ServerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        metrics.recordConnectionOpened();
+        ConnectionAcceptedEvent.commit(ctx.channel().remoteAddress());
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        metrics.recordConnectionClosed();
+        ConnectionClosedEvent.commit(ctx.channel().remoteAddress());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf)
+            metrics.recordBytesIn(((ByteBuf) msg).readableBytes());
+
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf)
+            metrics.recordBytesOut(((ByteBuf) msg).readableBytes());
+
+        ctx.write(msg, promise);
+    }
+}
@@ -0,0 +1,305 @@
+package ir.annotation.waiter.server.limiter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adaptive concurrency limiter based on AIMD (additive increase, multiplicative decrease) algorithm.
+ * <p>
+ * The limit grows by one while calls complete within tolerated latency and the limit is actually being used, and shrinks
+ * multiplicatively as soon as measured latency exceeds the tolerated multiple of the baseline latency of the same procedure.
+ * </p>
+ * <p>
+ * Procedures differ in latency by orders of magnitude, so each procedure has its own baseline: the minimum latency observed
+ * over the last one to two baseline windows. A minimum does not follow latency upward while calls are queued behind each
+ * other, so sustained overload keeps being detected; it only rises once latency has been higher for a whole window.
+ * </p>
+ * <p>
+ * Acquiring and releasing permits is lock free. Latency samples are taken without blocking: a sample that arrives while
+ * another one is being applied is dropped, so completing calls never wait for each other.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class AdaptiveConcurrencyLimiter {
+    /**
+     * Length in nanoseconds of windows that minimum latency of procedures is tracked over.
+     */
+    private static final long BASELINE_WINDOW = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * Maximum number of procedures that baselines are tracked for; samples of other procedures are dropped, so calls of
+     * unknown procedure identifiers can not grow the baselines.
+     */
+    private static final int MAX_BASELINES = 256;
+
+    /**
+     * Lower bound of concurrency limit.
+     */
+    private int minLimit;
+
+    /**
+     * Upper bound of concurrency limit.
+     */
+    private int maxLimit;
+
+    /**
+     * Ratio that limit is multiplied by when latency degrades.
+     */
+    private double backoffRatio;
+
+    /**
+     * A call is considered congested when its latency exceeds this multiple of the baseline latency.
+     */
+    private double latencyTolerance;
+
+    /**
+     * Lock that guards tuning, baseline latencies and last decrease time; never waited for on the release path.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Number of calls that are currently in flight.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Current concurrency limit.
+     */
+    private volatile int limit;
+
+    /**
+     * Baseline latencies, keyed by procedure identifiers.
+     */
+    private final Map<String, Baseline> baselines = new HashMap<>();
+
+    /**
+     * The last time in nanoseconds that limit has been decreased.
+     */
+    private long lastDecreaseTime;
+
+    /**
+     * Constructor to create an instance of this limiter.
+     *
+     * @param initialLimit     Initial concurrency limit.
+     * @param minLimit         Lower bound of concurrency limit.
+     * @param maxLimit         Upper bound of concurrency limit.
+     * @param backoffRatio     Ratio that limit is multiplied by when latency degrades, must be between 0 and 1.
+     * @param latencyTolerance A call is considered congested when its latency exceeds this multiple of the baseline latency.
+     * @throws IllegalArgumentException If provided values are not consistent.
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        if (initialLimit < minLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        validate(minLimit, maxLimit, backoffRatio, latencyTolerance);
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Replaces bounds and tuning of this limiter; current limit is clamped into new bounds.
+     *
+     * @param minLimit         Lower bound of concurrency limit.
+     * @param maxLimit         Upper bound of concurrency limit.
+     * @param backoffRatio     Ratio that limit is multiplied by when latency degrades, must be between 0 and 1.
+     * @param latencyTolerance A call is considered congested when its latency exceeds this multiple of the baseline latency.
+     * @throws IllegalArgumentException If provided values are not consistent.
+     */
+    public void reconfigure(int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        validate(minLimit, maxLimit, backoffRatio, latencyTolerance);
+
+        lock.lock();
+        try {
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.backoffRatio = backoffRatio;
+            this.latencyTolerance = latencyTolerance;
+            this.limit = Math.max(minLimit, Math.min(maxLimit, limit));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tries to acquire a permit for a new call.
+     *
+     * @return {@code true} if the call can be accepted, {@code false} if the system is saturated.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            var current = inFlight.get();
+            if (current >= limit)
+                return false;
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Releases a permit of a completed call and adjusts the limit based on measured latency, unless another sample is being
+     * applied concurrently.
+     *
+     * @param procedure Identifier of the called procedure.
+     * @param latency   Measured latency of the call in nanoseconds.
+     */
+    public void release(String procedure, long latency) {
+        release(procedure, latency, System.nanoTime());
+    }
+
+    /**
+     * Releases a permit of a completed call and adjusts the limit based on measured latency, at provided time.
+     *
+     * @param procedure Identifier of the called procedure.
+     * @param latency   Measured latency of the call in nanoseconds.
+     * @param now       Current time in nanoseconds.
+     */
+    void release(String procedure, long latency, long now) {
+        var current = inFlight.getAndDecrement();
+        if (!lock.tryLock())
+            return;
+
+        try {
+            adjust(procedure, latency, current, now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit of a call that has been dropped without a meaningful latency sample, e.g. because of channel close.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adjusts the limit by using a new latency sample; must be called while holding the lock.
+     *
+     * @param procedure Identifier of the called procedure.
+     * @param latency   Measured latency of the call in nanoseconds.
+     * @param inFlight  Number of calls that were in flight when the call completed.
+     * @param now       Current time in nanoseconds.
+     */
+    private void adjust(String procedure, long latency, int inFlight, long now) {
+        var baseline = baselines.get(procedure);
+        if (baseline == null) {
+            if (baselines.size() < MAX_BASELINES)
+                baselines.put(procedure, new Baseline(latency, now));
+
+            return;
+        }
+
+        var baselineLatency = baseline.get(now);
+        baseline.record(latency, now);
+        if (latency > baselineLatency * latencyTolerance) {
+            // Decrease at most once per observed latency window, so a burst of slow completions does not collapse the limit.
+            if (now - lastDecreaseTime > latency) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                lastDecreaseTime = now;
+            }
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    /**
+     * Validates bounds and tuning of limiter.
+     *
+     * @param minLimit         Lower bound of concurrency limit.
+     * @param maxLimit         Upper bound of concurrency limit.
+     * @param backoffRatio     Ratio that limit is multiplied by when latency degrades.
+     * @param latencyTolerance A call is considered congested when its latency exceeds this multiple of the baseline latency.
+     * @throws IllegalArgumentException If provided values are not consistent.
+     */
+    public static void validate(int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit)
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException("backoff ratio must be between 0 and 1");
+        if (latencyTolerance < 1)
+            throw new IllegalArgumentException("latency tolerance must be greater than or equal to 1");
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Baseline latency of a procedure: minimum latency of the current and the previous window.
+     */
+    private static final class Baseline {
+        /**
+         * Start time in nanoseconds of the current window.
+         */
+        private long windowStart;
+
+        /**
+         * Minimum latency in nanoseconds observed in the current window.
+         */
+        private long currentMinimum;
+
+        /**
+         * Minimum latency in nanoseconds observed in the previous window, {@link Long#MAX_VALUE} if there was none.
+         */
+        private long previousMinimum = Long.MAX_VALUE;
+
+        /**
+         * Constructor to create an instance of this baseline from its first sample.
+         *
+         * @param latency Measured latency of the first call in nanoseconds.
+         * @param now     Current time in nanoseconds.
+         */
+        private Baseline(long latency, long now) {
+            this.windowStart = now;
+            this.currentMinimum = latency;
+        }
+
+        /**
+         * Returns back the baseline latency.
+         *
+         * @param now Current time in nanoseconds.
+         * @return Minimum latency in nanoseconds of the current and the previous window.
+         */
+        private long get(long now) {
+            roll(now);
+
+            return Math.min(currentMinimum, previousMinimum);
+        }
+
+        /**
+         * Records a latency sample.
+         *
+         * @param latency Measured latency of the call in nanoseconds.
+         * @param now     Current time in nanoseconds.
+         */
+        private void record(long latency, long now) {
+            roll(now);
+            currentMinimum = Math.min(currentMinimum, latency);
+        }
+
+        /**
+         * Starts a new window once the current one is over; a window without samples leaves no minimum behind.
+         *
+         * @param now Current time in nanoseconds.
+         */
+        private void roll(long now) {
+            if (now - windowStart < BASELINE_WINDOW)
+                return;
+
+            previousMinimum = now - windowStart < 2 * BASELINE_WINDOW ? currentMinimum : Long.MAX_VALUE;
+            currentMinimum = Long.MAX_VALUE;
+            windowStart = now;
+        }
+    }
+}
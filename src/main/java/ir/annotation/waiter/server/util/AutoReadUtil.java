@@ -0,0 +1,79 @@
+package ir.annotation.waiter.server.util;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+/**
+ * Utility class to pause and resume reading from a channel for several independent reasons.
+ * <p>
+ * Reading from a channel is resumed only when all reasons that suspended it are cleared. Methods of this class must be
+ * called from channel's event loop.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public class AutoReadUtil {
+    /**
+     * Channel attribute that holds the bit set of active suspension reasons.
+     */
+    private static final AttributeKey<Integer> SUSPENSIONS = AttributeKey.valueOf("waiter.read.suspensions");
+
+    /**
+     * Suspends reading from provided channel for provided reason.
+     *
+     * @param channel The channel that reading from it must be suspended.
+     * @param reason  The reason of suspension.
+     */
+    public static void suspend(Channel channel, Reason reason) {
+        var suspensions = channel.attr(SUSPENSIONS);
+        var current = suspensions.get() == null ? 0 : suspensions.get();
+
+        suspensions.set(current | reason.getMask());
+        if (channel.config().isAutoRead())
+            channel.config().setAutoRead(false);
+    }
+
+    /**
+     * Clears provided suspension reason and resumes reading from provided channel if no other reason is active.
+     *
+     * @param channel The channel that reading from it must be resumed.
+     * @param reason  The reason of suspension that must be cleared.
+     */
+    public static void resume(Channel channel, Reason reason) {
+        var suspensions = channel.attr(SUSPENSIONS);
+        var current = suspensions.get() == null ? 0 : suspensions.get();
+
+        var remaining = current & ~reason.getMask();
+        suspensions.set(remaining);
+        if (remaining == 0 && !channel.config().isAutoRead())
+            channel.config().setAutoRead(true);
+    }
+
+    /**
+     * Reasons that reading from a channel can be suspended for.
+     *
+     * @author Alireza Pourtaghi
+     */
+    public enum Reason {
+        IN_FLIGHT_BUDGET_EXCEEDED(1),
+        NOT_WRITABLE(1 << 1);
+
+        /**
+         * Bit mask of reason.
+         */
+        private final int mask;
+
+        /**
+         * Enum constructor to create an instance of available constants.
+         *
+         * @param mask Bit mask of reason.
+         */
+        Reason(int mask) {
+            this.mask = mask;
+        }
+
+        public int getMask() {
+            return mask;
+        }
+    }
+}
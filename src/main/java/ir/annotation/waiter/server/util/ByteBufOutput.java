@@ -0,0 +1,82 @@
+package ir.annotation.waiter.server.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.msgpack.core.buffer.MessageBuffer;
+import org.msgpack.core.buffer.MessageBufferOutput;
+
+/**
+ * Message pack's buffer output that writes packed bytes into a {@link ByteBuf}, growing it as needed.
+ * <p>
+ * Message pack can not wrap direct buffers on every platform, and its packer keeps packing into the same message buffer
+ * after a flush; so headers and short values are packed into a thread local scratch buffer and copied into the buffer in
+ * chunks, while large payloads are written straight into the buffer. This output does not own the buffer and never
+ * releases it.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class ByteBufOutput implements MessageBufferOutput {
+    /**
+     * Size of scratch buffers in bytes, enough for any header and for strings that message pack packs through its buffer.
+     */
+    private static final int SCRATCH_SIZE = 2048;
+
+    /**
+     * Scratch buffer of each thread.
+     */
+    private static final FastThreadLocal<MessageBuffer> scratch = new FastThreadLocal<>() {
+        @Override
+        protected MessageBuffer initialValue() {
+            return MessageBuffer.allocate(SCRATCH_SIZE);
+        }
+    };
+
+    /**
+     * The buffer that bytes are written into.
+     */
+    private final ByteBuf buffer;
+
+    /**
+     * Message buffer that is returned by last {@link #next(int)} call.
+     */
+    private MessageBuffer staged;
+
+    /**
+     * Constructor to create an instance of this output.
+     *
+     * @param buffer The buffer that bytes are written into.
+     */
+    public ByteBufOutput(ByteBuf buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public MessageBuffer next(int minimumSize) {
+        staged = minimumSize <= SCRATCH_SIZE ? scratch.get() : MessageBuffer.allocate(minimumSize);
+        return staged;
+    }
+
+    @Override
+    public void writeBuffer(int length) {
+        buffer.writeBytes(staged.array(), staged.arrayOffset(), length);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        buffer.writeBytes(bytes, offset, length);
+    }
+
+    @Override
+    public void add(byte[] bytes, int offset, int length) {
+        buffer.writeBytes(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -50,6 +50,25 @@ public class MessagePackUtil {
         return value ? ImmutableBooleanValueImpl.TRUE : ImmutableBooleanValueImpl.FALSE;
     }
 
+    /**
+     * Generates a message pack's integer format.
+     *
+     * @param value The integer value.
+     * @return Newly created and ready to use {@link ImmutableLongValueImpl}.
+     */
+    public static ImmutableIntegerValue integer(long value) {
+        return new ImmutableLongValueImpl(value);
+    }
+
+    /**
+     * Generates a message pack's nil format.
+     *
+     * @return Shared instance of {@link ImmutableNilValueImpl}.
+     */
+    public static ImmutableNilValue nil() {
+        return ImmutableNilValueImpl.get();
+    }
+
     /**
      * Generates a message pack's binary format.
      *
@@ -0,0 +1,191 @@
+package ir.annotation.waiter.server.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import ir.annotation.waiter.server.Field;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+
+/**
+ * Fluent message pack writer that packs a message straight into a buffer allocated from provided allocator, without
+ * building {@link Value} trees or intermediate byte arrays.
+ * <p>
+ * Maps and arrays are written as a header followed by their elements, e.g. a map of one entry is
+ * {@code writer.map(1).string("key").integer(1)}. The buffer is returned by {@link #finish()}; if the writer is closed
+ * before, e.g. because packing failed, the buffer is released. Envelope keys written by {@link #field(Field)} are field
+ * names or compact field codes, depending on the writer.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class MessageWriter implements AutoCloseable {
+    /**
+     * Initial capacity of allocated buffers in bytes.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The buffer that message is packed into.
+     */
+    private final ByteBuf buffer;
+
+    /**
+     * Packer that writes into the buffer.
+     */
+    private final MessagePacker packer;
+
+    /**
+     * Whether envelope keys are written as compact field codes.
+     */
+    private final boolean compact;
+
+    /**
+     * Whether the buffer is handed over by {@link #finish()}.
+     */
+    private boolean finished;
+
+    /**
+     * Constructor to create an instance of this writer.
+     *
+     * @param allocator Allocator that the buffer is allocated from.
+     */
+    public MessageWriter(ByteBufAllocator allocator) {
+        this(allocator, false);
+    }
+
+    /**
+     * Constructor to create an instance of this writer.
+     *
+     * @param allocator Allocator that the buffer is allocated from.
+     * @param compact   Whether envelope keys are written as compact field codes.
+     */
+    public MessageWriter(ByteBufAllocator allocator, boolean compact) {
+        this.buffer = allocator.buffer(INITIAL_CAPACITY);
+        this.packer = MessagePack.DEFAULT_PACKER_CONFIG.newPacker(new ByteBufOutput(buffer));
+        this.compact = compact;
+    }
+
+    /**
+     * Writes a map header; must be followed by provided number of keys and values.
+     *
+     * @param size Number of map entries.
+     * @return This writer.
+     * @throws IOException If packing failed.
+     */
+    public MessageWriter map(int size) throws IOException {
+        packer.packMapHeader(size);
+        return this;
+    }
+
+    /**
+     * Writes an array header; must be followed by provided number of elements.
+     *
+     * @param size Number of array elements.
+     * @return This writer.
+     * @throws IOException If packing failed.
+     */
+    public MessageWriter array(int size) throws IOException {
+        packer.packArrayHeader(size);
+        return this;
+    }
+
+    /**
+     * Writes an envelope key, as field code if this writer is compact or field name otherwise.
+     *
+     * @param field The envelope field.
+     * @return This writer.
+     * @throws IOException If packing failed.
+     */
+    public MessageWriter field(Field field) throws IOException {
+        if (compact)
+            packer.packInt(field.getCode());
+        else
+            packer.packString(field.getName());
+        return this;
+    }
+
+    /**
+     * Writes a string.
+     *
+     * @param value The string value.
+     * @return This writer.
+     * @throws IOException If packing failed.
+     */
+    public MessageWriter string(String value) throws IOException {
+        packer.packString(value);
+        return this;
+    }
+
+    /**
+     * Writes a boolean.
+     *
+     * @param value The boolean value.
+     * @return This writer.
+     * @throws IOException If packing failed.
+     */
+    public MessageWriter bool(boolean value) throws IOException {
+        packer.packBoolean(value);
+        return this;
+    }
+
+    /**
+     * Writes an integer.
+     *
+     * @param value The integer value.
+     * @return This writer.
+     * @throws IOException If packing failed.
+     */
+    public MessageWriter integer(long value) throws IOException {
+        packer.packLong(value);
+        return this;
+    }
+
+    /**
+     * Writes a binary.
+     *
+     * @param value The binary value.
+     * @return This writer.
+     * @throws IOException If packing failed.
+     */
+    public MessageWriter bytes(byte[] value) throws IOException {
+        packer.packBinaryHeader(value.length);
+        packer.writePayload(value);
+        return this;
+    }
+
+    /**
+     * Writes a nil.
+     *
+     * @return This writer.
+     * @throws IOException If packing failed.
+     */
+    public MessageWriter nil() throws IOException {
+        packer.packNil();
+        return this;
+    }
+
+    /**
+     * Flushes packed bytes and hands over the buffer; the caller owns it afterwards.
+     *
+     * @return The buffer holding packed message.
+     * @throws IOException If flushing failed.
+     */
+    public ByteBuf finish() throws IOException {
+        packer.flush();
+        finished = true;
+
+        return buffer;
+    }
+
+    /**
+     * Releases the buffer if it is not handed over.
+     */
+    @Override
+    public void close() {
+        if (!finished)
+            buffer.release();
+    }
+}
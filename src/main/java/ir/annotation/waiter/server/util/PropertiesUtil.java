@@ -0,0 +1,21 @@
+package ir.annotation.waiter.server.util;
+
+import java.util.Arrays;
+
+/**
+ * Utility class to parse values of application properties.
+ *
+ * @author Alireza Pourtaghi
+ */
+public class PropertiesUtil {
+
+    /**
+     * Splits a comma separated property value.
+     *
+     * @param value The property value.
+     * @return Trimmed, non empty and distinct items, in order of their first occurrence.
+     */
+    public static String[] list(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).distinct().toArray(String[]::new);
+    }
+}
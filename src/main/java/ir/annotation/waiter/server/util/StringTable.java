@@ -0,0 +1,53 @@
+package ir.annotation.waiter.server.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable table of known strings, looked up by their UTF-8 bytes.
+ * <p>
+ * Lookups return the table's own instance without decoding bytes, so received identifiers do not allocate strings and keep
+ * their cached hash codes for later map lookups.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class StringTable {
+    /**
+     * Known strings.
+     */
+    private final String[] strings;
+
+    /**
+     * UTF-8 bytes of known strings, at same indexes as strings.
+     */
+    private final byte[][] bytes;
+
+    /**
+     * Constructor to create a table of provided strings.
+     *
+     * @param strings Known strings.
+     */
+    public StringTable(Collection<String> strings) {
+        this.strings = strings.toArray(new String[0]);
+        this.bytes = new byte[this.strings.length][];
+        for (int i = 0; i < this.strings.length; i++)
+            bytes[i] = this.strings[i].getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns back the known string of provided UTF-8 bytes.
+     *
+     * @param utf8   The array that holds string bytes from its start.
+     * @param length Number of string bytes.
+     * @return Known string, or {@code null} if provided bytes are not a known string.
+     */
+    public String get(byte[] utf8, int length) {
+        for (int i = 0; i < bytes.length; i++)
+            if (Arrays.equals(bytes[i], 0, bytes[i].length, utf8, 0, length))
+                return strings[i];
+
+        return null;
+    }
+}
@@ -0,0 +1,122 @@
+package ir.annotation.waiter.tracing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timestamps of the stages that a sampled request passes through.
+ * <p>
+ * Stages are marked by different threads, not always one after another: a call that exceeds its deadline is completed and
+ * recorded while its worker may still mark its start. So timestamps are atomic, and a stage is not marked once a later stage is.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class Trace {
+    /**
+     * Stages of a request, in the order they are passed.
+     */
+    public enum Stage {
+        /**
+         * A frame is split from received bytes.
+         */
+        FRAMED("frame"),
+
+        /**
+         * The frame is decoded to a request.
+         */
+        DECODED("decode"),
+
+        /**
+         * The request is admitted and reached the dispatcher.
+         */
+        DISPATCHED("admit"),
+
+        /**
+         * The procedure call started running on the processor.
+         */
+        STARTED("queue"),
+
+        /**
+         * The procedure call completed.
+         */
+        COMPLETED("execute"),
+
+        /**
+         * The response is flushed to the socket.
+         */
+        FLUSHED("write");
+
+        /**
+         * Name of the span that ends on this stage.
+         */
+        private final String span;
+
+        Stage(String span) {
+            this.span = span;
+        }
+
+        public String getSpan() {
+            return span;
+        }
+    }
+
+    /**
+     * Sequence number of this trace.
+     */
+    private final long id;
+
+    /**
+     * Identifier of the requested procedure, {@code null} until the request is decoded.
+     */
+    private volatile String procedure;
+
+    /**
+     * Timestamps of stages in nanoseconds, indexed by stage ordinal; zero means the stage is not marked.
+     */
+    private final AtomicLongArray timestamps = new AtomicLongArray(Stage.values().length);
+
+    /**
+     * Constructor to create an instance of this trace.
+     *
+     * @param id Sequence number of this trace.
+     */
+    Trace(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Marks provided stage with current time, if neither it nor a later stage is marked yet.
+     *
+     * @param stage The stage that is passed.
+     */
+    public void mark(Stage stage) {
+        for (var later = stage.ordinal() + 1; later < timestamps.length(); later++) {
+            if (timestamps.get(later) != 0)
+                return;
+        }
+
+        timestamps.compareAndSet(stage.ordinal(), 0, System.nanoTime());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getProcedure() {
+        return procedure;
+    }
+
+    public void setProcedure(String procedure) {
+        this.procedure = procedure;
+    }
+
+    /**
+     * Returns back timestamp of provided stage.
+     *
+     * @param stage The stage.
+     * @return Timestamp in nanoseconds, or zero if stage is not marked.
+     */
+    public long getTimestamp(Stage stage) {
+        return timestamps.get(stage.ordinal());
+    }
+}
@@ -0,0 +1,97 @@
+package ir.annotation.waiter.tracing;
+
+import java.util.List;
+
+/**
+ * Formats traces as JSON in Chrome trace event format.
+ * <p>
+ * Each trace is shown on its own track, named after the procedure and trace sequence, with a complete event for the whole
+ * request and one for each span between two marked stages.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class TraceEventFormat {
+
+    /**
+     * Private constructor, this class only has static methods.
+     */
+    private TraceEventFormat() {
+    }
+
+    /**
+     * Formats provided traces.
+     *
+     * @param traces The traces.
+     * @return JSON object holding trace events.
+     */
+    public static String format(List<Trace> traces) {
+        var out = new StringBuilder(256 + traces.size() * 512);
+        out.append("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+
+        var origin = traces.stream()
+                .mapToLong(trace -> trace.getTimestamp(Trace.Stage.FRAMED))
+                .min()
+                .orElse(0);
+        var first = true;
+        for (var trace : traces) {
+            var name = trace.getProcedure() == null ? "unknown" : trace.getProcedure();
+            if (!first)
+                out.append(',');
+            first = false;
+            out.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(trace.getId())
+                    .append(",\"args\":{\"name\":\"").append(escape(name)).append(" #").append(trace.getId()).append("\"}}");
+
+            var start = trace.getTimestamp(Trace.Stage.FRAMED);
+            var previous = start;
+            var end = start;
+            for (var stage : Trace.Stage.values()) {
+                var timestamp = trace.getTimestamp(stage);
+                if (stage == Trace.Stage.FRAMED || timestamp == 0)
+                    continue;
+
+                event(out, stage.getSpan(), trace.getId(), previous - origin, timestamp - previous);
+                previous = timestamp;
+                end = timestamp;
+            }
+            event(out, name, trace.getId(), start - origin, end - start);
+        }
+
+        return out.append("]}").toString();
+    }
+
+    /**
+     * Appends a complete event.
+     *
+     * @param out      The output.
+     * @param name     The event name.
+     * @param tid      The track identifier.
+     * @param start    Start of event in nanoseconds relative to origin.
+     * @param duration Duration of event in nanoseconds.
+     */
+    private static void event(StringBuilder out, String name, long tid, long start, long duration) {
+        out.append(",{\"name\":\"").append(escape(name)).append("\",\"cat\":\"waiter\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(tid)
+                .append(",\"ts\":").append(start / 1000.0)
+                .append(",\"dur\":").append(duration / 1000.0).append('}');
+    }
+
+    /**
+     * Escapes provided value to be used as a JSON string.
+     *
+     * @param value The value.
+     * @return Escaped value.
+     */
+    private static String escape(String value) {
+        var out = new StringBuilder(value.length());
+        for (var c : value.toCharArray()) {
+            if (c == '"' || c == '\\')
+                out.append('\\').append(c);
+            else if (c < 0x20)
+                out.append(String.format("\\u%04x", (int) c));
+            else
+                out.append(c);
+        }
+
+        return out.toString();
+    }
+}
@@ -0,0 +1,185 @@
+package ir.annotation.waiter.tracing;
+
+import ir.annotation.waiter.core.application.Component;
+import ir.annotation.waiter.core.application.Reconfigurable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Request tracing component that samples requests and keeps their traces in a fixed size ring buffer.
+ * <p>
+ * Unsampled requests cost one random number per frame and no allocation. Recorded traces overwrite the oldest ones and are
+ * dumped in Chrome trace event format on stop, to be opened by {@code chrome://tracing} or Perfetto. Sample rate can be
+ * reconfigured while running.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class Tracer extends Component<Tracer> implements Reconfigurable {
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+
+    /**
+     * Ratio of requests that are traced, zero disables tracing.
+     */
+    private volatile double sampleRate;
+
+    /**
+     * Ring buffer of recorded traces, its length is a power of two.
+     */
+    private AtomicReferenceArray<Trace> traces;
+
+    /**
+     * Path of file that traces are dumped to on stop, empty if traces must not be dumped.
+     */
+    private String dumpPath;
+
+    /**
+     * Sequence of sampled traces.
+     */
+    private final AtomicLong sampled = new AtomicLong();
+
+    /**
+     * Sequence of recorded traces, used to find the next ring buffer slot.
+     */
+    private final AtomicLong recorded = new AtomicLong();
+
+    /**
+     * Public accessible constructor to identify this component, also used to create a tracer that never samples.
+     */
+    public Tracer() {
+        super("tracer");
+    }
+
+    /**
+     * Private constructor to build an instance of this tracer implementation.
+     *
+     * @param sampleRate Ratio of requests that are traced, zero disables tracing.
+     * @param bufferSize Minimum amount of traces kept, rounded up to a power of two.
+     * @param dumpPath   Path of file that traces are dumped to on stop, empty if traces must not be dumped.
+     */
+    private Tracer(double sampleRate, int bufferSize, String dumpPath) {
+        this();
+        this.sampleRate = sampleRate;
+        this.traces = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(1, bufferSize - 1)) << 1);
+        this.dumpPath = dumpPath;
+    }
+
+    @Override
+    public Tracer setup(Properties properties) {
+        var sampleRate = Double.parseDouble(properties.getOrDefault("tracing.sample-rate", "0").toString());
+        var bufferSize = Integer.parseInt(properties.getOrDefault("tracing.buffer-size", "4096").toString());
+        var dumpPath = properties.getOrDefault("tracing.dump-path", "").toString();
+        validate(sampleRate);
+        if (bufferSize < 1 || bufferSize > 1 << 24)
+            throw new IllegalArgumentException("tracing buffer size must be between 1 and 2^24");
+
+        return new Tracer(sampleRate, bufferSize, dumpPath);
+    }
+
+    @Override
+    public void reconfigure(Properties properties) {
+        var sampleRate = Double.parseDouble(properties.getOrDefault("tracing.sample-rate", "0").toString());
+        validate(sampleRate);
+
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void start() {
+        logger.info("starting tracer with sample rate {} ...", getSampleRate());
+    }
+
+    @Override
+    public void stop() throws IOException {
+        logger.info("stopping tracer ...");
+        if (!getDumpPath().isEmpty() && recorded.get() > 0) {
+            var path = Paths.get(getDumpPath());
+            dump(path);
+            logger.info("dumped {} traces to {}", Math.min(recorded.get(), traces.length()), path.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Starts a new trace with its frame stage marked, if this request is sampled.
+     *
+     * @return The new trace, or {@code null} if this request is not sampled.
+     */
+    public Trace trace() {
+        var sampleRate = getSampleRate();
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)
+            return null;
+
+        var trace = new Trace(sampled.incrementAndGet());
+        trace.mark(Trace.Stage.FRAMED);
+
+        return trace;
+    }
+
+    /**
+     * Records a finished trace, overwriting the oldest one if ring buffer is full.
+     *
+     * @param trace The finished trace.
+     */
+    public void record(Trace trace) {
+        traces.set((int) (recorded.getAndIncrement() & (traces.length() - 1)), trace);
+    }
+
+    /**
+     * Returns back recorded traces that are still in ring buffer, ordered by their sequence.
+     *
+     * @return Recorded traces.
+     */
+    public List<Trace> getTraces() {
+        var snapshot = new ArrayList<Trace>(traces == null ? 0 : traces.length());
+        for (var i = 0; traces != null && i < traces.length(); i++) {
+            var trace = traces.get(i);
+            if (trace != null)
+                snapshot.add(trace);
+        }
+        snapshot.sort(Comparator.comparingLong(Trace::getId));
+
+        return snapshot;
+    }
+
+    /**
+     * Writes recorded traces to provided file in Chrome trace event format.
+     *
+     * @param path The file path.
+     * @throws IOException If writing the file failed.
+     */
+    public void dump(Path path) throws IOException {
+        Files.write(path, TraceEventFormat.format(getTraces()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Validates provided sample rate.
+     *
+     * @param sampleRate Ratio of requests that are traced.
+     * @throws IllegalArgumentException If sample rate is not between zero and one.
+     */
+    private static void validate(double sampleRate) {
+        if (!(sampleRate >= 0 && sampleRate <= 1))
+            throw new IllegalArgumentException("tracing sample rate must be between 0 and 1");
+    }
+
+    private double getSampleRate() {
+        return sampleRate;
+    }
+
+    private String getDumpPath() {
+        return dumpPath;
+    }
+}
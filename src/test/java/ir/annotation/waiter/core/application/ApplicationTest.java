@@ -0,0 +1,290 @@
+package ir.annotation.waiter.core.application;
+
+import ir.annotation.waiter.core.application.annotation.DependsOn;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ApplicationTest {
+    private static final List<String> events = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testComponentsStartAfterAndStopBeforeTheirDependencies() {
+        var application = new OrderedApplication();
+        application.getProperties().setProperty("application.startup-parallelism", "4");
+
+        application.startComponents();
+        assertTrue(events.indexOf("start first") < events.indexOf("start second"));
+        assertTrue(events.indexOf("start second") < events.indexOf("start third"));
+        assertTrue(events.indexOf("start first") < events.indexOf("start third"));
+
+        application.stopComponents();
+        assertTrue(events.indexOf("stop third") < events.indexOf("stop second"));
+        assertTrue(events.indexOf("stop second") < events.indexOf("stop first"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDependencyCycleIsDetected() {
+        new CyclicApplication().startComponents();
+    }
+
+    @Test
+    public void testFailedSetupStopsStartup() {
+        try {
+            new MisconfiguredApplication().startComponents();
+            fail("failed setup must stop startup");
+        } catch (IllegalArgumentException e) {
+            assertEquals("misconfigured", e.getMessage());
+        }
+        assertFalse(events.contains("start misconfigured-dependent"));
+    }
+
+    @Test
+    public void testComponentThatDoesNotStopInTimeIsAbandoned() {
+        var application = new StuckApplication();
+        application.getProperties().setProperty("application.component-stop-timeout", "100");
+        application.startComponents();
+
+        var startTime = System.nanoTime();
+        application.stopComponents();
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 5000);
+        assertTrue(events.contains("stop stuck-dependency"));
+        Stuck.released.countDown();
+    }
+
+    private static void record(String event) throws InterruptedException {
+        // Gives dependents a chance to start or stop too early, if they were not waiting.
+        Thread.sleep(20);
+        events.add(event);
+    }
+
+    private static final class OrderedApplication extends Application {
+        @DependsOn(Second.class)
+        private Third third;
+
+        @DependsOn(First.class)
+        private Second second;
+
+        private First first;
+    }
+
+    private static final class CyclicApplication extends Application {
+        @DependsOn(CycleB.class)
+        private CycleA a;
+
+        @DependsOn(CycleA.class)
+        private CycleB b;
+    }
+
+    private static final class StuckApplication extends Application {
+        @DependsOn(StuckDependency.class)
+        private Stuck stuck;
+
+        private StuckDependency dependency;
+    }
+
+    private static final class MisconfiguredApplication extends Application {
+        @DependsOn(Misconfigured.class)
+        private MisconfiguredDependent dependent;
+
+        private Misconfigured misconfigured;
+    }
+
+    public static final class First extends Component<First> {
+
+        public First() {
+            super("first");
+        }
+
+        @Override
+        protected First setup(Properties properties) {
+            return this;
+        }
+
+        @Override
+        protected void start() throws Exception {
+            record("start " + getIdentifier());
+        }
+
+        @Override
+        protected void stop() throws Exception {
+            record("stop " + getIdentifier());
+        }
+    }
+
+    public static final class Second extends Component<Second> {
+
+        public Second() {
+            super("second");
+        }
+
+        @Override
+        protected Second setup(Properties properties) {
+            return this;
+        }
+
+        @Override
+        protected void start() throws Exception {
+            record("start " + getIdentifier());
+        }
+
+        @Override
+        protected void stop() throws Exception {
+            record("stop " + getIdentifier());
+        }
+    }
+
+    public static final class Third extends Component<Third> {
+
+        public Third() {
+            super("third");
+        }
+
+        @Override
+        protected Third setup(Properties properties) {
+            return this;
+        }
+
+        @Override
+        protected void start() throws Exception {
+            record("start " + getIdentifier());
+        }
+
+        @Override
+        protected void stop() throws Exception {
+            record("stop " + getIdentifier());
+        }
+    }
+
+    public static final class CycleA extends Component<CycleA> {
+
+        public CycleA() {
+            super("cycle-a");
+        }
+
+        @Override
+        protected CycleA setup(Properties properties) {
+            return this;
+        }
+
+        @Override
+        protected void start() {
+        }
+
+        @Override
+        protected void stop() {
+        }
+    }
+
+    public static final class CycleB extends Component<CycleB> {
+
+        public CycleB() {
+            super("cycle-b");
+        }
+
+        @Override
+        protected CycleB setup(Properties properties) {
+            return this;
+        }
+
+        @Override
+        protected void start() {
+        }
+
+        @Override
+        protected void stop() {
+        }
+    }
+
+    public static final class Stuck extends Component<Stuck> {
+        private static final CountDownLatch released = new CountDownLatch(1);
+
+        public Stuck() {
+            super("stuck");
+        }
+
+        @Override
+        protected Stuck setup(Properties properties) {
+            return this;
+        }
+
+        @Override
+        protected void start() {
+        }
+
+        @Override
+        protected void stop() throws InterruptedException {
+            released.await();
+        }
+    }
+
+    public static final class StuckDependency extends Component<StuckDependency> {
+
+        public StuckDependency() {
+            super("stuck-dependency");
+        }
+
+        @Override
+        protected StuckDependency setup(Properties properties) {
+            return this;
+        }
+
+        @Override
+        protected void start() {
+        }
+
+        @Override
+        protected void stop() {
+            events.add("stop " + getIdentifier());
+        }
+    }
+
+    public static final class Misconfigured extends Component<Misconfigured> {
+
+        public Misconfigured() {
+            super("misconfigured");
+        }
+
+        @Override
+        protected Misconfigured setup(Properties properties) {
+            throw new IllegalArgumentException("misconfigured");
+        }
+
+        @Override
+        protected void start() throws Exception {
+            record("start " + getIdentifier());
+        }
+
+        @Override
+        protected void stop() {
+        }
+    }
+
+    public static final class MisconfiguredDependent extends Component<MisconfiguredDependent> {
+
+        public MisconfiguredDependent() {
+            super("misconfigured-dependent");
+        }
+
+        @Override
+        protected MisconfiguredDependent setup(Properties properties) {
+            return this;
+        }
+
+        @Override
+        protected void start() throws Exception {
+            record("start " + getIdentifier());
+        }
+
+        @Override
+        protected void stop() {
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ir.annotation.waiter.core.common;
+
+import ir.annotation.waiter.core.procedure.AbstractProcedure;
+import ir.annotation.waiter.core.procedure.AsynchronousProcedure;
+import ir.annotation.waiter.core.procedure.Procedure;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RegistryTest {
+
+    @Test(expected = NullPointerException.class)
+    public void testNullIdentifier() {
+        new Registry<AbstractProcedure>().get(null);
+    }
+
+    @Test
+    public void testLookup() {
+        var registry = new Registry<AbstractProcedure>();
+        var getSettings = new Procedure<String, String>("getSettings");
+        registry.register(getSettings);
+
+        assertSame(getSettings, registry.get("getSettings").orElseThrow());
+        assertTrue(registry.get("updateSettings").isEmpty());
+        assertEquals(1, registry.values().size());
+    }
+
+    @Test
+    public void testTypedLookup() {
+        var registry = new Registry<AbstractProcedure>();
+        registry.register(new Procedure<String, String>("getSettings"));
+
+        assertTrue(registry.get("getSettings", Procedure.class).isPresent());
+        assertTrue(registry.get("getSettings", AsynchronousProcedure.class).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicateIdentifier() {
+        var registry = new Registry<AbstractProcedure>();
+        registry.register(new Procedure<String, String>("getSettings"));
+        registry.register(new AsynchronousProcedure<String, String>("getSettings"));
+    }
+}
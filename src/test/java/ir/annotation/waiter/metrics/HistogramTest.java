@@ -0,0 +1,53 @@
+package ir.annotation.waiter.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testBucketsAreContiguous() {
+        for (long value = 0; value < 1_000_000; value++) {
+            var index = Histogram.indexOf(value);
+            assertTrue(value <= Histogram.highestValueOf(index));
+            assertTrue(index == 0 || value > Histogram.highestValueOf(index - 1));
+        }
+    }
+
+    @Test
+    public void testPercentilesAreWithinRelativeError() {
+        var histogram = new Histogram(Long.MAX_VALUE);
+        for (long value = 1; value <= 100_000; value++)
+            histogram.record(value * 1_000);
+
+        var snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_000, snapshot.getValueAtPercentile(50), 50_000_000 * 0.035);
+        assertEquals(99_000_000, snapshot.getValueAtPercentile(99), 99_000_000 * 0.035);
+        assertEquals(100_000_000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testCountAtOrBelow() {
+        var histogram = new Histogram(1_000);
+        for (long value = 0; value < 64; value++)
+            histogram.record(value);
+
+        assertEquals(11, histogram.snapshot().getCountAtOrBelow(10));
+        assertEquals(64, histogram.snapshot().getCountAtOrBelow(1_000));
+    }
+
+    @Test
+    public void testValuesAreClamped() {
+        var histogram = new Histogram(1_000);
+        histogram.record(-1);
+        histogram.record(5_000);
+
+        var snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(1_000, snapshot.getMax());
+        assertEquals(1_000, snapshot.getSum());
+    }
+}
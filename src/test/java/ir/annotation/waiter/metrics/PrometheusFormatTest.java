@@ -0,0 +1,79 @@
+package ir.annotation.waiter.metrics;
+
+import ir.annotation.waiter.server.Error;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PrometheusFormatTest {
+
+    @Test
+    public void testProcedureSamplesAreFormatted() {
+        var metrics = new Metrics();
+        var procedure = metrics.procedure("proc");
+        procedure.recordRequest();
+        procedure.recordRequest();
+        procedure.recordError(Error.Reason.OVERLOADED);
+        procedure.recordLatency(TimeUnit.MILLISECONDS.toNanos(3));
+        procedure.recordLatency(TimeUnit.SECONDS.toNanos(20));
+
+        var text = PrometheusFormat.format(metrics);
+        assertTrue(text.contains("waiter_procedure_requests_total{procedure=\"proc\"} 2\n"));
+        assertTrue(text.contains("waiter_procedure_errors_total{procedure=\"proc\",reason=\"overloaded\"} 1\n"));
+        assertTrue(text.contains("waiter_procedure_latency_seconds_bucket{procedure=\"proc\",le=\"0.001\"} 0\n"));
+        assertTrue(text.contains("waiter_procedure_latency_seconds_bucket{procedure=\"proc\",le=\"0.005\"} 1\n"));
+        assertTrue(text.contains("waiter_procedure_latency_seconds_bucket{procedure=\"proc\",le=\"10.0\"} 1\n"));
+        assertTrue(text.contains("waiter_procedure_latency_seconds_bucket{procedure=\"proc\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("waiter_procedure_latency_seconds_count{procedure=\"proc\"} 2\n"));
+    }
+
+    @Test
+    public void testResultCacheSamplesAreFormattedOnceRegistered() {
+        var metrics = new Metrics();
+        assertFalse(PrometheusFormat.format(metrics).contains("waiter_result_cache"));
+
+        metrics.setResultCache(new ResultCacheMetric() {
+            @Override
+            public long hitCount() {
+                return 3;
+            }
+
+            @Override
+            public long missCount() {
+                return 2;
+            }
+
+            @Override
+            public long evictionCount() {
+                return 1;
+            }
+
+            @Override
+            public long weightedSize() {
+                return 4096;
+            }
+
+            @Override
+            public long maximumWeight() {
+                return 65536;
+            }
+        });
+
+        var text = PrometheusFormat.format(metrics);
+        assertTrue(text.contains("waiter_result_cache_requests_total{result=\"hit\"} 3\n"));
+        assertTrue(text.contains("waiter_result_cache_requests_total{result=\"miss\"} 2\n"));
+        assertTrue(text.contains("waiter_result_cache_evictions_total 1\n"));
+        assertTrue(text.contains("waiter_result_cache_weight_bytes 4096\n"));
+        assertTrue(text.contains("waiter_result_cache_max_weight_bytes 65536\n"));
+    }
+
+    @Test
+    public void testLabelValuesAreEscaped() {
+        var metrics = new Metrics();
+        metrics.procedure("a\"b\\c").recordRequest();
+
+        assertTrue(PrometheusFormat.format(metrics).contains("{procedure=\"a\\\"b\\\\c\"} 1\n"));
+    }
+}
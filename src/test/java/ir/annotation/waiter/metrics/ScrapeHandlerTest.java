@@ -0,0 +1,48 @@
+package ir.annotation.waiter.metrics;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScrapeHandlerTest {
+
+    @Test
+    public void testHeadResponseCarriesContentLengthOfGetResponse() {
+        var metrics = new Metrics();
+        metrics.procedure("proc").recordRequest();
+        var channel = new EmbeddedChannel(new ScrapeHandler(metrics));
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/metrics"));
+        FullHttpResponse get = channel.readOutbound();
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.HEAD, "/metrics"));
+        FullHttpResponse head = channel.readOutbound();
+
+        assertEquals(HttpResponseStatus.OK, head.status());
+        assertEquals(0, head.content().readableBytes());
+        assertTrue(get.content().readableBytes() > 0);
+        assertEquals(String.valueOf(get.content().readableBytes()), head.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+
+        get.release();
+        head.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testUnknownPathIsNotFound() {
+        var channel = new EmbeddedChannel(new ScrapeHandler(new Metrics()));
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/other"));
+        FullHttpResponse response = channel.readOutbound();
+
+        assertEquals(HttpResponseStatus.NOT_FOUND, response.status());
+        response.release();
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,138 @@
+package ir.annotation.waiter.processor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority.*;
+import static org.junit.Assert.*;
+
+public class PrioritySchedulerTest {
+    private PriorityScheduler scheduler;
+
+    @After
+    public void shutdown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() {
+        new PriorityScheduler(0, 100);
+    }
+
+    @Test
+    public void testHigherPriorityRunsFirst() throws InterruptedException {
+        scheduler = new PriorityScheduler(1, 10_000);
+        scheduler.start();
+
+        var order = new CopyOnWriteArrayList<String>();
+        var done = new CountDownLatch(3);
+        var release = blockWorker();
+        scheduler.executor(LOW).execute(record(order, "low", done));
+        scheduler.executor(NORMAL).execute(record(order, "normal", done));
+        scheduler.executor(HIGH).execute(record(order, "high", done));
+        release.countDown();
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("high", "normal", "low"), order);
+    }
+
+    @Test
+    public void testAgingPreventsStarvation() throws InterruptedException {
+        scheduler = new PriorityScheduler(1, 10);
+        scheduler.start();
+
+        var order = new CopyOnWriteArrayList<String>();
+        var done = new CountDownLatch(2);
+        var release = blockWorker();
+        scheduler.executor(LOW).execute(record(order, "low", done));
+        // Low priority task waits ten aging thresholds longer, far more than the two levels it needs to overtake high priority.
+        Thread.sleep(100);
+        scheduler.executor(HIGH).execute(record(order, "high", done));
+        release.countDown();
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("low", "high"), order);
+    }
+
+    @Test
+    public void testExecutorLifeCycleIsManagedByScheduler() throws InterruptedException {
+        scheduler = new PriorityScheduler(1, 100);
+        scheduler.start();
+
+        scheduler.executor(NORMAL).shutdown();
+        assertTrue(scheduler.executor(NORMAL).shutdownNow().isEmpty());
+        assertFalse(scheduler.executor(NORMAL).isShutdown());
+
+        var done = new CountDownLatch(1);
+        scheduler.executor(NORMAL).execute(done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testParallelismIncreaseAddsWorkers() throws InterruptedException {
+        scheduler = new PriorityScheduler(1, 100);
+        scheduler.start();
+        scheduler.setParallelism(3);
+
+        var running = new CountDownLatch(3);
+        var completed = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            scheduler.executor(NORMAL).execute(() -> {
+                running.countDown();
+                try {
+                    if (running.await(5, TimeUnit.SECONDS))
+                        completed.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testParallelismDecreaseKeepsRunningTasks() throws InterruptedException {
+        scheduler = new PriorityScheduler(3, 100);
+        scheduler.start();
+        scheduler.setParallelism(1);
+
+        var completed = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++)
+            scheduler.executor(NORMAL).execute(completed::countDown);
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+    }
+
+    private CountDownLatch blockWorker() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        scheduler.executor(NORMAL).execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+
+        return release;
+    }
+
+    private static Runnable record(List<String> order, String name, CountDownLatch done) {
+        return () -> {
+            order.add(name);
+            done.countDown();
+        };
+    }
+}
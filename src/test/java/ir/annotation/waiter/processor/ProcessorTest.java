@@ -0,0 +1,192 @@
+package ir.annotation.waiter.processor;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import ir.annotation.waiter.core.procedure.AsynchronousProcedure;
+import ir.annotation.waiter.core.procedure.Procedure;
+import ir.annotation.waiter.core.procedure.annotation.Deterministic;
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority.NORMAL;
+import static org.junit.Assert.*;
+
+public class ProcessorTest {
+    private final Processor processor = processor(0);
+
+    @After
+    public void shutdown() {
+        processor.getScheduler().shutdown();
+    }
+
+    @Test
+    public void testResultOfDeterministicCallIsMemoized() throws InterruptedException, ExecutionException {
+        var procedure = new Echo();
+
+        var first = processor.process(procedure, "a", digest("a"), NORMAL, 0);
+        drain();
+        procedure.calls.get(0).complete(Optional.of("a"));
+        assertEquals("a", first.get().orElseThrow());
+
+        var second = processor.process(procedure, "a", digest("a"), NORMAL, 0);
+        assertEquals("a", second.get().orElseThrow());
+        assertEquals(1, procedure.calls.size());
+    }
+
+    @Test
+    public void testCancellationIsPropagatedToCallOnceAllCallersCancel() throws InterruptedException, ExecutionException {
+        var procedure = new Echo();
+
+        var first = processor.process(procedure, "b", digest("b"), NORMAL, 0);
+        var second = processor.process(procedure, "b", digest("b"), NORMAL, 0);
+        drain();
+        assertEquals(1, procedure.calls.size());
+
+        first.cancel(false);
+        assertFalse(procedure.calls.get(0).isCancelled());
+
+        second.cancel(false);
+        assertTrue(procedure.calls.get(0).isCancelled());
+
+        processor.process(procedure, "b", digest("b"), NORMAL, 0);
+        drain();
+        assertEquals(2, procedure.calls.size());
+    }
+
+    @Test
+    public void testTimeoutIsPropagatedToCall() throws InterruptedException, ExecutionException {
+        var procedure = new Echo();
+
+        var call = processor.process(procedure, "c", digest("c"), NORMAL, 50);
+        drain();
+        try {
+            call.get();
+            fail("call must time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        // Cancellation is propagated by a dependent stage of the timed out future, that may run after the waiter wakes up.
+        for (int i = 0; i < 100 && !procedure.calls.get(0).isCancelled(); i++)
+            Thread.sleep(10);
+        assertTrue(procedure.calls.get(0).isCancelled());
+    }
+
+    @Test
+    public void testArgumentsDigestIsComputedOnScheduler() throws InterruptedException, ExecutionException {
+        var procedure = new Echo();
+        var threads = new CopyOnWriteArrayList<String>();
+
+        processor.process(procedure, "d", () -> {
+            threads.add(Thread.currentThread().getName());
+            return digest("d").get();
+        }, NORMAL, 0);
+        drain();
+
+        assertEquals(1, threads.size());
+        assertTrue(threads.get(0).startsWith("processor-"));
+        assertFalse(threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testDefaultDeadlineIsAppliedToCallWithoutDeadline() throws InterruptedException {
+        var processor = processor(50);
+        try {
+            var call = processor.process(new Echo(), "e", NORMAL, 0);
+            call.get();
+            fail("call must time out by default deadline");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        } finally {
+            processor.getScheduler().shutdown();
+        }
+    }
+
+    @Test
+    public void testCallThatTimesOutWhileQueuedIsNotRun() throws InterruptedException, ExecutionException {
+        var procedure = new Counter();
+        var release = new CountDownLatch(1);
+        processor.getScheduler().executor(NORMAL).execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        var call = processor.process(procedure, "f", NORMAL, 50);
+        try {
+            call.get();
+            fail("call must time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        release.countDown();
+        drain();
+        assertEquals(0, procedure.calls.get());
+    }
+
+    private void drain() throws InterruptedException, ExecutionException {
+        // The only worker runs tasks of the same priority in order, so all tasks queued before this one have run once it completes.
+        CompletableFuture.runAsync(() -> {
+        }, processor.getScheduler().executor(NORMAL)).get();
+    }
+
+    private static Processor processor(long defaultDeadline) {
+        var properties = new Properties();
+        properties.setProperty("processor.parallelism", "1");
+        properties.setProperty("processor.default-deadline", String.valueOf(defaultDeadline));
+        var processor = new Processor().setup(properties);
+        processor.getScheduler().start();
+
+        return processor;
+    }
+
+    private static Supplier<HashCode> digest(String argument) {
+        return () -> Hashing.sha256().hashString(argument, StandardCharsets.UTF_8);
+    }
+
+    @Deterministic
+    private static final class Echo extends AsynchronousProcedure<String, String> {
+        private final List<CompletableFuture<Optional<String>>> calls = new CopyOnWriteArrayList<>();
+
+        private Echo() {
+            super("echo");
+        }
+
+        @Override
+        public CompletableFuture<Optional<String>> apply(ExecutorService executor, String argument) {
+            var call = new CompletableFuture<Optional<String>>();
+            calls.add(call);
+            return call;
+        }
+    }
+
+    private static final class Counter extends Procedure<String, String> {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private Counter() {
+            super("counter");
+        }
+
+        @Override
+        public Optional<String> apply(String argument) {
+            calls.incrementAndGet();
+            return Optional.of(argument);
+        }
+    }
+}
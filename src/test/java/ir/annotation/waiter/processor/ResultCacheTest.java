@@ -0,0 +1,75 @@
+package ir.annotation.waiter.processor;
+
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    @Test
+    public void testResultIsCachedByIdentifierAndArguments() {
+        var cache = new ResultCache(64 * 1024, Runnable::run);
+        var result = Optional.of(new byte[]{1, 2, 3});
+
+        cache.put(key("generate_SHA256_hash", new byte[]{1}), result);
+
+        assertSame(result, cache.get(key("generate_SHA256_hash", new byte[]{1})));
+        assertNull(cache.get(key("generate_SHA256_hash", new byte[]{2})));
+        assertNull(cache.get(key("other", new byte[]{1})));
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    public void testEntriesAreEvictedBeyondMaximumWeight() {
+        var cache = new ResultCache(4 * 1024, Runnable::run);
+
+        for (int i = 0; i < 32; i++)
+            cache.put(key("generate_SHA256_hash", new byte[]{(byte) i}), Optional.of(new byte[1024]));
+
+        assertTrue(cache.stats().evictionCount() >= 28);
+    }
+
+    @Test
+    public void testShrinkingMaximumWeightEvictsEntries() {
+        var cache = new ResultCache(64 * 1024, Runnable::run);
+        for (int i = 0; i < 8; i++)
+            cache.put(key("generate_SHA256_hash", new byte[]{(byte) i}), Optional.of(new byte[1024]));
+        assertEquals(0, cache.stats().evictionCount());
+
+        cache.setMaximumWeight(2 * 1024);
+        assertTrue(cache.stats().evictionCount() >= 6);
+    }
+
+    @Test
+    public void testMetricsReflectLookupsAndWeight() {
+        var cache = new ResultCache(64 * 1024, Runnable::run);
+        cache.put(key("generate_SHA256_hash", new byte[]{1}), Optional.of(new byte[1024]));
+
+        cache.get(key("generate_SHA256_hash", new byte[]{1}));
+        cache.get(key("generate_SHA256_hash", new byte[]{2}));
+
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(0, cache.evictionCount());
+        assertTrue(cache.weightedSize() > 1024);
+        assertEquals(64 * 1024, cache.maximumWeight());
+    }
+
+    @Test
+    public void testClearDiscardsAllEntries() {
+        var cache = new ResultCache(64 * 1024, Runnable::run);
+        cache.put(key("generate_SHA256_hash", new byte[]{1}), Optional.of(new byte[]{1}));
+
+        cache.clear();
+
+        assertNull(cache.get(key("generate_SHA256_hash", new byte[]{1})));
+    }
+
+    private static CallKey key(String identifier, byte[] arguments) {
+        return new CallKey(identifier, Hashing.sha256().hashBytes(arguments));
+    }
+}
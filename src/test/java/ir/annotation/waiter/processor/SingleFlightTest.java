@@ -0,0 +1,94 @@
+package ir.annotation.waiter.processor;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testIdenticalCallsAreCoalesced() throws InterruptedException, ExecutionException {
+        var singleFlight = new SingleFlight<String, String>();
+        var computations = new AtomicInteger();
+        var computation = new CompletableFuture<String>();
+
+        var first = singleFlight.execute("key", () -> {
+            computations.incrementAndGet();
+            return computation;
+        });
+        var second = singleFlight.execute("key", () -> {
+            computations.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        assertEquals(1, singleFlight.size());
+        computation.complete("result");
+
+        assertEquals("result", first.get());
+        assertEquals("result", second.get());
+        assertEquals(1, computations.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void testCancelledWaiterDoesNotAffectOthers() throws InterruptedException, ExecutionException {
+        var singleFlight = new SingleFlight<String, String>();
+        var computation = new CompletableFuture<String>();
+
+        var first = singleFlight.execute("key", () -> computation);
+        var second = singleFlight.execute("key", () -> computation);
+
+        first.cancel(false);
+        computation.complete("result");
+
+        assertTrue(first.isCancelled());
+        assertEquals("result", second.get());
+    }
+
+    @Test
+    public void testCompletedFlightIsNotReused() throws InterruptedException, ExecutionException {
+        var singleFlight = new SingleFlight<String, String>();
+
+        assertEquals("first", singleFlight.execute("key", () -> CompletableFuture.completedFuture("first")).get());
+        assertEquals("second", singleFlight.execute("key", () -> CompletableFuture.completedFuture("second")).get());
+    }
+
+    @Test
+    public void testComputationIsCancelledWhenAllWaitersCancel() {
+        var singleFlight = new SingleFlight<String, String>();
+        var computation = new CompletableFuture<String>();
+
+        var first = singleFlight.execute("key", () -> computation);
+        var second = singleFlight.execute("key", () -> computation);
+
+        first.cancel(false);
+        assertFalse(computation.isCancelled());
+
+        second.cancel(false);
+        assertTrue(computation.isCancelled());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void testFailedStartDoesNotBlockLaterCalls() throws InterruptedException, ExecutionException {
+        var singleFlight = new SingleFlight<String, String>();
+
+        var failed = singleFlight.execute("key", () -> {
+            throw new RejectedExecutionException();
+        });
+        try {
+            failed.get();
+            fail("call must fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(0, singleFlight.size());
+
+        assertEquals("result", singleFlight.execute("key", () -> CompletableFuture.completedFuture("result")).get());
+    }
+}
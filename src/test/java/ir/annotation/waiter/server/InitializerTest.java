@@ -0,0 +1,74 @@
+package ir.annotation.waiter.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.processor.Processor;
+import ir.annotation.waiter.server.codec.CodecRegistry;
+import ir.annotation.waiter.server.handler.Dispatcher;
+import ir.annotation.waiter.server.limiter.AdaptiveConcurrencyLimiter;
+import ir.annotation.waiter.tracing.Tracer;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+import static ir.annotation.waiter.server.Initializer.Framing;
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+import static org.junit.Assert.*;
+
+public class InitializerTest {
+
+    @Test
+    public void testLengthPrefixedFrameCanContainDelimiterBytes() throws IOException {
+        var delimiter = pack(Initializer.DELIMITER_BYTES);
+        var arguments = new byte[delimiter.length + 2];
+        System.arraycopy(delimiter, 0, arguments, 1, delimiter.length);
+        var message = pack(map(string("proc"), string("generate_SHA256_hash"), string("args"), bytes(arguments)));
+
+        var channel = new EmbeddedChannel(initializer(Framing.LENGTH_PREFIXED, new CodecRegistry()));
+        // Requests that pass the dispatcher's place are read back as they were decoded from the frame.
+        channel.pipeline().remove(Dispatcher.class);
+        channel.writeInbound(Unpooled.buffer().writeInt(message.length).writeBytes(message));
+
+        Request request = channel.readInbound();
+        assertEquals("generate_SHA256_hash", request.getProcedure());
+        assertArrayEquals(pack(bytes(arguments)), request.getArguments());
+        assertNull(channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testProcedureThatIsNotAllowedIsNotFound() throws IOException {
+        var message = pack(map(string("proc"), string("generate_random_number"), string("args"), map(string("max"), integer(10))));
+
+        var channel = new EmbeddedChannel(initializer(Framing.DELIMITED, new CodecRegistry().restrict(List.of("generate_SHA256_hash"))));
+        channel.writeInbound(Unpooled.wrappedBuffer(message, pack(Initializer.DELIMITER_BYTES)));
+
+        ByteBuf response = channel.readOutbound();
+        try (var in = MessagePack.newDefaultUnpacker(new ByteBufInputStream(response, true))) {
+            var fields = in.unpackValue().asMapValue().map();
+            assertFalse(fields.get(string("succ")).asBooleanValue().getBoolean());
+            var error = fields.get(string("errs")).asArrayValue().get(0).asMapValue().map();
+            assertEquals(Error.Reason.PROCEDURE_NOT_FOUND.getError().getCode(), error.get(string("code")).asStringValue().asString());
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    private static Initializer initializer(Framing framing, CodecRegistry codecRegistry) {
+        return new Initializer(framing, 1024, false, 0, 0, null, new AdaptiveConcurrencyLimiter(8, 8, 8, 0.5, 2.0), 16, new Processor().setup(new Properties()), codecRegistry,
+                new Metrics(), new Tracer().setup(new Properties()));
+    }
+
+    private static byte[] pack(Value value) throws IOException {
+        try (var buffer = MessagePack.newDefaultBufferPacker()) {
+            buffer.packValue(value);
+            return buffer.toByteArray();
+        }
+    }
+}
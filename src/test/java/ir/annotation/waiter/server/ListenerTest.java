@@ -0,0 +1,231 @@
+package ir.annotation.waiter.server;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.Socket;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.processor.Processor;
+import ir.annotation.waiter.server.codec.CodecRegistry;
+import ir.annotation.waiter.server.limiter.AdaptiveConcurrencyLimiter;
+import ir.annotation.waiter.tracing.Tracer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static ir.annotation.waiter.server.Initializer.Framing;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class ListenerTest {
+
+    @Test
+    public void testDefaultListenerIsConfiguredByServerProperties() {
+        var properties = new Properties();
+        properties.setProperty("server.port", "9010");
+        properties.setProperty("server.event-loop-threads", "1");
+
+        var listeners = Listener.setup(properties);
+        try {
+            assertEquals(1, listeners.size());
+            var listener = listeners.get(0);
+            assertEquals("default", listener.getName());
+            assertEquals("0.0.0.0", listener.getHost());
+            assertEquals(9010, listener.getPort());
+            assertEquals(Framing.DELIMITED, listener.getFraming());
+            assertEquals(1024, listener.getMaxFrameSize());
+            assertTrue(listener.getProcedures().isEmpty());
+        } finally {
+            shutdown(listeners);
+        }
+    }
+
+    @Test
+    public void testNamedListenerIsConfiguredByItsOwnProperties() {
+        var properties = new Properties();
+        properties.setProperty("server.host", "127.0.0.1");
+        properties.setProperty("server.event-loop-threads", "1");
+        properties.setProperty("server.listeners", "bulk");
+        properties.setProperty("server.listener.bulk.port", "9011");
+        properties.setProperty("server.listener.bulk.framing", "length-prefixed");
+        properties.setProperty("server.listener.bulk.max-frame-size", "65536");
+        properties.setProperty("server.listener.bulk.procedures", "generate_SHA256_hash, generate_SHA256_hash");
+        properties.setProperty("server.listener.bulk.event-loop-threads", "1");
+
+        var listeners = Listener.setup(properties);
+        try {
+            assertEquals(2, listeners.size());
+            var listener = listeners.get(1);
+            assertEquals("bulk", listener.getName());
+            assertEquals("127.0.0.1", listener.getHost());
+            assertEquals(9011, listener.getPort());
+            assertEquals(Framing.LENGTH_PREFIXED, listener.getFraming());
+            assertEquals(65536, listener.getMaxFrameSize());
+            assertEquals(Set.of("generate_SHA256_hash"), listener.getProcedures());
+            assertNotSame(listeners.get(0).getEventLoopGroup(), listener.getEventLoopGroup());
+
+            properties.setProperty("server.listener.bulk.max-frame-size", "0");
+            try {
+                listener.readMaxFrameSize(properties);
+                fail("max frame size must be rejected");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        } finally {
+            shutdown(listeners);
+        }
+    }
+
+    @Test
+    public void testEachListenerHasItsOwnLimiter() {
+        var properties = new Properties();
+        properties.setProperty("server.event-loop-threads", "1");
+        properties.setProperty("limiter.initial-limit", "32");
+        properties.setProperty("limiter.max-limit", "512");
+        properties.setProperty("server.listeners", "bulk, batch");
+        properties.setProperty("server.listener.bulk.port", "9012");
+        properties.setProperty("server.listener.bulk.event-loop-threads", "1");
+        properties.setProperty("server.listener.bulk.limiter.min-limit", "2");
+        properties.setProperty("server.listener.bulk.limiter.initial-limit", "4");
+        properties.setProperty("server.listener.batch.port", "9013");
+        properties.setProperty("server.listener.batch.event-loop-threads", "1");
+
+        var listeners = Listener.setup(properties);
+        try {
+            var defaultListener = listeners.get(0);
+            var bulk = listeners.get(1);
+            var batch = listeners.get(2);
+            assertNotSame(defaultListener.getLimiter(), bulk.getLimiter());
+            assertNotSame(defaultListener.getLimiter(), batch.getLimiter());
+            assertEquals(32, defaultListener.getLimiter().getLimit());
+            assertEquals(4, bulk.getLimiter().getLimit());
+            assertEquals(32, batch.getLimiter().getLimit());
+
+            properties.setProperty("server.listener.bulk.limiter.max-limit", "3");
+            bulk.reconfigure(bulk.getMaxFrameSize(), bulk.readLimiterSettings(properties), 16);
+            assertEquals(3, bulk.getLimiter().getLimit());
+            assertEquals(32, defaultListener.getLimiter().getLimit());
+
+            properties.setProperty("server.listener.bulk.limiter.max-limit", "1");
+            try {
+                bulk.readLimiterSettings(properties);
+                fail("limiter settings must be rejected");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        } finally {
+            shutdown(listeners);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNamedListenerWithoutPortIsRejected() {
+        var properties = new Properties();
+        properties.setProperty("server.event-loop-threads", "1");
+        properties.setProperty("server.listeners", "bulk");
+
+        Listener.setup(properties);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFramingIsRejected() {
+        var properties = new Properties();
+        properties.setProperty("server.framing", "chunked");
+
+        Listener.setup(properties);
+    }
+
+    @Test
+    public void testUnixSocketOfRunningListenerIsNotTakenOver() throws IOException, InterruptedException {
+        assumeTrue(Epoll.isAvailable());
+        var path = Files.createTempDirectory("listener").resolve("waiter.sock");
+
+        var running = unixSocketListener(path);
+        var other = unixSocketListener(path);
+        try {
+            bind(running.get(0));
+            assertTrue(connects(running.get(0), path));
+
+            try {
+                bind(other.get(0));
+                fail("socket of running listener must not be taken over");
+            } catch (IllegalStateException e) {
+                // Expected.
+            }
+            assertTrue(connects(running.get(0), path));
+        } finally {
+            shutdown(other);
+            shutdown(running);
+        }
+    }
+
+    @Test
+    public void testStaleUnixSocketIsDeleted() throws IOException, InterruptedException {
+        assumeTrue(Epoll.isAvailable());
+        var path = Files.createTempDirectory("listener").resolve("waiter.sock");
+        // A bound socket that never listens is what a crashed process leaves behind: the file exists and connecting is refused.
+        var stale = Socket.newSocketDomain();
+        stale.bind(new DomainSocketAddress(path.toString()));
+        stale.close();
+
+        var listeners = unixSocketListener(path);
+        try {
+            bind(listeners.get(0));
+            assertTrue(connects(listeners.get(0), path));
+        } finally {
+            shutdown(listeners);
+        }
+    }
+
+    @Test
+    public void testFileThatIsNotSocketIsNotDeleted() throws IOException, InterruptedException {
+        assumeTrue(Epoll.isAvailable());
+        var path = Files.createFile(Files.createTempDirectory("listener").resolve("waiter.sock"));
+
+        var listeners = unixSocketListener(path);
+        try {
+            bind(listeners.get(0));
+            fail("file that is not a socket must not be deleted");
+        } catch (IllegalStateException e) {
+            assertTrue(Files.isRegularFile(path));
+        } finally {
+            shutdown(listeners);
+        }
+    }
+
+    private static List<Listener> unixSocketListener(Path path) {
+        var properties = new Properties();
+        properties.setProperty("server.host", "127.0.0.1");
+        properties.setProperty("server.port", "0");
+        properties.setProperty("server.unix-socket-path", path.toString());
+        properties.setProperty("server.event-loop-threads", "1");
+
+        return Listener.setup(properties);
+    }
+
+    private static void bind(Listener listener) throws InterruptedException {
+        listener.bind(new ServerBootstrap(), new Initializer(listener.getFraming(), listener.getMaxFrameSize(), false, 0, 0, null, new AdaptiveConcurrencyLimiter(1, 1, 1, 0.5, 2.0), 1,
+                new Processor().setup(new Properties()), new CodecRegistry(), new Metrics(), new Tracer().setup(new Properties())));
+    }
+
+    private static boolean connects(Listener listener, Path path) throws InterruptedException {
+        var connect = new Bootstrap().group(listener.getEventLoopGroup()).channel(EpollDomainSocketChannel.class).handler(new ChannelInboundHandlerAdapter())
+                .connect(new DomainSocketAddress(path.toString())).await();
+        if (connect.isSuccess())
+            connect.channel().close().await();
+
+        return connect.isSuccess();
+    }
+
+    private static void shutdown(List<Listener> listeners) {
+        listeners.forEach(listener -> listener.getEventLoopGroup().shutdownGracefully().syncUninterruptibly());
+    }
+}
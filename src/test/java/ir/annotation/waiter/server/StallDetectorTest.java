@@ -0,0 +1,38 @@
+package ir.annotation.waiter.server;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import ir.annotation.waiter.metrics.Metrics;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StallDetectorTest {
+
+    @Test
+    public void testBlockedEventLoopIsRecordedAsStall() throws InterruptedException {
+        var eventLoopGroup = new DefaultEventLoopGroup(1);
+        var metrics = new Metrics().getServer();
+        var stallDetector = new StallDetector(eventLoopGroup, 10, 50, metrics);
+        try {
+            stallDetector.start();
+            Thread.sleep(100);
+            assertTrue(metrics.getEventLoopDelay().snapshot().getCount() > 0);
+            assertEquals(0, metrics.getEventLoopStalls().snapshot().getCount());
+
+            eventLoopGroup.submit(() -> {
+                Thread.sleep(300);
+                return null;
+            }).sync();
+            Thread.sleep(100);
+
+            var stalls = metrics.getEventLoopStalls().snapshot();
+            assertEquals(1, stalls.getCount());
+            assertTrue(stalls.getMax() >= TimeUnit.MILLISECONDS.toNanos(200));
+        } finally {
+            stallDetector.stop();
+            eventLoopGroup.shutdownGracefully().sync();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ir.annotation.waiter.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import org.junit.Test;
+
+import javax.net.ssl.SSLException;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.Properties;
+
+import static io.netty.handler.ssl.ApplicationProtocolConfig.*;
+import static org.junit.Assert.*;
+
+public class TlsContextFactoryTest {
+    @Test
+    public void testTlsIsDisabledByDefault() throws SSLException {
+        assertTrue(TlsContextFactory.create(new Properties()).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTlsRequiresCertificateAndPrivateKey() throws SSLException {
+        var properties = new Properties();
+        properties.setProperty("server.tls.enabled", "true");
+        TlsContextFactory.create(properties);
+    }
+
+    @Test
+    public void testHandshakeNegotiatesAlpnProtocol() throws Exception {
+        var server = TlsContextFactory.create(properties()).orElseThrow();
+        var client = client("waiter/1");
+
+        var serverHandler = handshake(server, client);
+        assertEquals("waiter/1", serverHandler.applicationProtocol());
+        assertEquals("TLSv1.3", serverHandler.engine().getSession().getProtocol());
+    }
+
+    @Test
+    public void testClientWithoutAlpnConnects() throws Exception {
+        var server = TlsContextFactory.create(properties()).orElseThrow();
+
+        var serverHandler = handshake(server, client(null));
+        assertNull(serverHandler.applicationProtocol());
+    }
+
+    private static Properties properties() throws URISyntaxException {
+        var properties = new Properties();
+        properties.setProperty("server.tls.enabled", "true");
+        properties.setProperty("server.tls.certificate", resource("tls/certificate.pem").getPath());
+        properties.setProperty("server.tls.private-key", resource("tls/private-key.pem").getPath());
+        return properties;
+    }
+
+    private static SslContext client(String alpnProtocol) throws Exception {
+        var builder = SslContextBuilder.forClient().sslProvider(SslProvider.JDK).protocols("TLSv1.3", "TLSv1.2").trustManager(resource("tls/certificate.pem"));
+        if (alpnProtocol != null)
+            builder.applicationProtocolConfig(new ApplicationProtocolConfig(Protocol.ALPN, SelectorFailureBehavior.NO_ADVERTISE, SelectedListenerFailureBehavior.ACCEPT, alpnProtocol));
+        return builder.build();
+    }
+
+    private static SslHandler handshake(SslContext server, SslContext client) {
+        var serverChannel = new EmbeddedChannel();
+        var serverHandler = server.newHandler(serverChannel.alloc());
+        serverChannel.pipeline().addLast(serverHandler);
+        var clientChannel = new EmbeddedChannel();
+        var clientHandler = client.newHandler(clientChannel.alloc(), "localhost", 9000);
+        clientChannel.pipeline().addLast(clientHandler);
+
+        for (int i = 0; i < 10 && !(serverHandler.handshakeFuture().isDone() && clientHandler.handshakeFuture().isDone()); i++) {
+            transfer(clientChannel, serverChannel);
+            transfer(serverChannel, clientChannel);
+        }
+
+        assertTrue(clientHandler.handshakeFuture().isSuccess());
+        assertTrue(serverHandler.handshakeFuture().isSuccess());
+        return serverHandler;
+    }
+
+    private static void transfer(EmbeddedChannel from, EmbeddedChannel to) {
+        for (ByteBuf buffer; (buffer = from.readOutbound()) != null; )
+            to.writeInbound(buffer);
+    }
+
+    private static File resource(String name) throws URISyntaxException {
+        return new File(TlsContextFactoryTest.class.getClassLoader().getResource(name).toURI());
+    }
+}
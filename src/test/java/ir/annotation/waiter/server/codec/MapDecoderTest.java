@@ -0,0 +1,116 @@
+package ir.annotation.waiter.server.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.util.MessageWriter;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import static ir.annotation.waiter.procedure.PublicPrivateKeyPairGenerator.GenerateKeyPairRequest;
+import static ir.annotation.waiter.procedure.RandomNumberGenerator.GenerateRandomNumberRequest;
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+import static org.junit.Assert.*;
+
+public class MapDecoderTest {
+    private static final MapDecoder<GenerateRandomNumberRequest> decoder = MapDecoder.builder(GenerateRandomNumberRequest.class)
+            .field("from", FieldReader.INT)
+            .field("to", FieldReader.INT)
+            .build();
+
+    @Test
+    public void testMapIsDecodedByConstructor() throws IOException {
+        var request = decoder.decode(unpacker(map(string("to"), integer(6), string("skip"), map(), integer(1), nil(), string("from"), integer(1))));
+
+        assertEquals(1, request.getFrom());
+        assertEquals(6, request.getTo());
+    }
+
+    @Test
+    public void testMapIsDecodedByFactory() throws IOException {
+        var decoder = MapDecoder.builder(String.class)
+                .field("name", FieldReader.STRING)
+                .field("size", FieldReader.INT)
+                .build(MethodHandles.lookup(), "describe");
+
+        assertEquals("key of 128 bits", decoder.decode(unpacker(map(string("name"), string("key"), string("size"), integer(128)))));
+    }
+
+    @Test
+    public void testEnumerationsAreMatchedByName() throws IOException {
+        var decoder = MapDecoder.builder(GenerateKeyPairRequest.class)
+                .field("algo", FieldReader.enumeration(GenerateKeyPairRequest.Algorithm.class))
+                .field("size", FieldReader.INT.map(GenerateKeyPairRequest.KeySize.class, size -> AbstractCodec.asEnum(GenerateKeyPairRequest.KeySize.class, "_" + size)))
+                .build();
+
+        var request = decoder.decode(unpacker(map(string("algo"), string("RSASSA_PSS"), string("size"), integer(2048))));
+        assertEquals(GenerateKeyPairRequest.Algorithm.RSASSA_PSS, request.getAlgorithm());
+        assertEquals(GenerateKeyPairRequest.KeySize._2048, request.getKeySize());
+        assertInvalid(decoder, map(string("algo"), string("RSA-PSS"), string("size"), integer(2048)));
+    }
+
+    @Test
+    public void testInvalidArgumentsAreRejected() throws IOException {
+        assertInvalid(decoder, nil());
+        assertInvalid(decoder, map(string("from"), integer(1)));
+        assertInvalid(decoder, map(string("from"), integer(1), string("to"), string("6")));
+        assertInvalid(decoder, map(string("from"), integer(1), string("to"), integer(1L << 40)));
+    }
+
+    @Test
+    public void testEncodedMapHasGetterValues() throws Exception {
+        var keyPair = KeyPairGenerator.getInstance("EC").generateKeyPair();
+        var encoder = MapEncoder.builder(KeyPair.class)
+                .field("publ", "getPublic", FieldWriter.KEY)
+                .field("priv", "getPrivate", FieldWriter.KEY)
+                .build();
+
+        ByteBuf buffer;
+        try (var writer = new MessageWriter(UnpooledByteBufAllocator.DEFAULT)) {
+            encoder.encode(keyPair, writer);
+            buffer = writer.finish();
+        }
+
+        var bytes = new byte[buffer.readableBytes()];
+        buffer.readBytes(bytes).release();
+        var expected = map(string("publ"), bytes(keyPair.getPublic().getEncoded()), string("priv"), bytes(keyPair.getPrivate().getEncoded()));
+        assertEquals(expected, MessagePack.newDefaultUnpacker(bytes).unpackValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEncoderRejectsWriterOfOtherTypeThanGetter() {
+        MapEncoder.builder(KeyPair.class).field("publ", "getPublic", FieldWriter.BYTES);
+    }
+
+    @Test
+    public void testEncoderAcceptsWriterOfWrappedPrimitiveGetter() {
+        MapEncoder.builder(String.class).field("len", "length", FieldWriter.INT).build();
+    }
+
+    private static String describe(String name, int size) {
+        return name + " of " + size + " bits";
+    }
+
+    private static void assertInvalid(MapDecoder<?> decoder, Value arguments) throws IOException {
+        try {
+            decoder.decode(unpacker(arguments));
+            fail("arguments must be rejected: " + arguments);
+        } catch (Error e) {
+            assertEquals(Error.Reason.INVALID_PROCEDURE_ARGUMENTS, e.getReason());
+        }
+    }
+
+    private static MessageUnpacker unpacker(Value value) throws IOException {
+        try (var buffer = MessagePack.newDefaultBufferPacker()) {
+            buffer.packValue(value);
+            return MessagePack.newDefaultUnpacker(buffer.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import ir.annotation.waiter.server.util.AutoReadUtil;
+import org.junit.Test;
+
+import static ir.annotation.waiter.server.util.AutoReadUtil.Reason.IN_FLIGHT_BUDGET_EXCEEDED;
+import static org.junit.Assert.*;
+
+public class BackpressureHandlerTest {
+
+    @Test
+    public void testReadingIsSuspendedAboveHighWaterMarkAndResumedBelowLowWaterMark() {
+        var channel = channel();
+
+        channel.write(Unpooled.wrappedBuffer(new byte[512]));
+        channel.runPendingTasks();
+        assertTrue(channel.isWritable());
+        assertTrue(channel.config().isAutoRead());
+
+        channel.write(Unpooled.wrappedBuffer(new byte[2048]));
+        channel.runPendingTasks();
+        assertFalse(channel.isWritable());
+        assertFalse(channel.config().isAutoRead());
+
+        channel.flush();
+        channel.runPendingTasks();
+        assertTrue(channel.isWritable());
+        assertTrue(channel.config().isAutoRead());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testReadingIsResumedWhenBackpressureAndInFlightBudgetAreBothCleared() {
+        var channel = channel();
+
+        channel.write(Unpooled.wrappedBuffer(new byte[4096]));
+        channel.runPendingTasks();
+        AutoReadUtil.suspend(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        assertFalse(channel.config().isAutoRead());
+
+        channel.flush();
+        channel.runPendingTasks();
+        assertTrue(channel.isWritable());
+        assertFalse(channel.config().isAutoRead());
+
+        AutoReadUtil.resume(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        assertTrue(channel.config().isAutoRead());
+
+        AutoReadUtil.suspend(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        channel.write(Unpooled.wrappedBuffer(new byte[4096]));
+        channel.runPendingTasks();
+        AutoReadUtil.resume(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        assertFalse(channel.config().isAutoRead());
+
+        channel.flush();
+        channel.runPendingTasks();
+        assertTrue(channel.config().isAutoRead());
+        channel.finishAndReleaseAll();
+    }
+
+    private static EmbeddedChannel channel() {
+        var channel = new EmbeddedChannel();
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1024, 2048));
+        channel.pipeline().addLast(new BackpressureHandler());
+
+        return channel;
+    }
+}
@@ -0,0 +1,118 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.SnappyFrameDecoder;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.metrics.ServerMetrics;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static ir.annotation.waiter.server.handler.CompressionHandler.Algorithm;
+import static org.junit.Assert.*;
+
+public class CompressionHandlerTest {
+    private static final int THRESHOLD = 1024;
+
+    @Test
+    public void testResponseIsCompressedBySnappy() throws IOException {
+        var metrics = new Metrics().getServer();
+        var message = repetitive(100_000);
+        var data = extension(write(channel(Algorithm.SNAPPY, metrics), message), Algorithm.SNAPPY);
+
+        var decoder = new EmbeddedChannel(new SnappyFrameDecoder());
+        decoder.writeInbound(Unpooled.wrappedBuffer(data));
+        var decompressed = Unpooled.buffer();
+        for (ByteBuf chunk; (chunk = decoder.readInbound()) != null; chunk.release())
+            decompressed.writeBytes(chunk);
+
+        assertArrayEquals(message, ByteBufUtil.getBytes(decompressed));
+        assertEquals(1, metrics.getCompressedResponses());
+        assertEquals(message.length - data.length, metrics.getCompressionSavedBytes());
+    }
+
+    @Test
+    public void testResponseIsCompressedByDeflate() throws IOException, DataFormatException {
+        var metrics = new Metrics().getServer();
+        var message = repetitive(100_000);
+        var data = extension(write(channel(Algorithm.DEFLATE, metrics), message), Algorithm.DEFLATE);
+
+        var inflater = new Inflater();
+        inflater.setInput(data);
+        var decompressed = new byte[message.length];
+        assertEquals(message.length, inflater.inflate(decompressed));
+        assertTrue(inflater.finished());
+        inflater.end();
+
+        assertArrayEquals(message, decompressed);
+        assertEquals(1, metrics.getCompressedResponses());
+    }
+
+    @Test
+    public void testSmallResponseIsNotCompressed() {
+        var metrics = new Metrics().getServer();
+        var message = repetitive(THRESHOLD - 1);
+
+        assertArrayEquals(message, write(channel(Algorithm.DEFLATE, metrics), message));
+        assertEquals(0, metrics.getCompressedResponses());
+    }
+
+    @Test
+    public void testIncompressibleResponseIsNotCompressed() {
+        var metrics = new Metrics().getServer();
+        var message = new byte[THRESHOLD * 4];
+        new Random(42).nextBytes(message);
+
+        assertArrayEquals(message, write(channel(Algorithm.SNAPPY, metrics), message));
+        assertEquals(0, metrics.getCompressedResponses());
+    }
+
+    @Test
+    public void testResponseIsNotCompressedWithoutNegotiation() {
+        var metrics = new Metrics().getServer();
+        var message = repetitive(THRESHOLD * 4);
+
+        assertArrayEquals(message, write(channel(null, metrics), message));
+        assertEquals(0, metrics.getCompressedResponses());
+    }
+
+    private static EmbeddedChannel channel(Algorithm algorithm, ServerMetrics metrics) {
+        var channel = new EmbeddedChannel(new CompressionHandler(THRESHOLD, 6, metrics));
+        channel.attr(CompressionHandler.ALGORITHM).set(algorithm);
+        return channel;
+    }
+
+    private static byte[] write(EmbeddedChannel channel, byte[] message) {
+        channel.writeOutbound(Unpooled.wrappedBuffer(message));
+        ByteBuf written = channel.readOutbound();
+        try {
+            return ByteBufUtil.getBytes(written);
+        } finally {
+            written.release();
+        }
+    }
+
+    private static byte[] extension(byte[] response, Algorithm algorithm) throws IOException {
+        try (var unpacker = MessagePack.newDefaultUnpacker(response)) {
+            var header = unpacker.unpackExtensionTypeHeader();
+            assertEquals(algorithm.getType(), header.getType());
+            var data = unpacker.readPayload(header.getLength());
+            assertFalse(unpacker.hasNext());
+            return data;
+        }
+    }
+
+    private static byte[] repetitive(int length) {
+        var message = new byte[length];
+        for (int i = 0; i < length; i++)
+            message[i] = (byte) "waiter".charAt(i % 6);
+        return message;
+    }
+}
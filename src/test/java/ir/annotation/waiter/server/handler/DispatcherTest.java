@@ -0,0 +1,85 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.embedded.EmbeddedChannel;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.procedure.SHA256HashGenerator;
+import ir.annotation.waiter.processor.Processor;
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.Request;
+import ir.annotation.waiter.server.Response;
+import ir.annotation.waiter.server.codec.CodecRegistry;
+import ir.annotation.waiter.tracing.Tracer;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority;
+import static ir.annotation.waiter.server.util.MessagePackUtil.string;
+import static org.junit.Assert.*;
+
+public class DispatcherTest {
+    private static final String PROCEDURE = "generate_SHA256_hash";
+
+    @Test
+    public void testQueuedCallIsAnsweredWithDeadlineExceededAndChannelStaysOpen() throws IOException, InterruptedException {
+        var metrics = new Metrics();
+        var channel = channel(metrics);
+        var request = request(50);
+
+        channel.writeInbound(request);
+        for (int i = 0; i < 100 && channel.outboundMessages().isEmpty(); i++) {
+            Thread.sleep(10);
+            channel.runPendingTasks();
+        }
+
+        Response response = channel.readOutbound();
+        assertSame(request, response.getRequest());
+        assertEquals("deadline.exceeded", errorCode(response.getMessage()));
+        assertTrue(channel.isOpen());
+        assertEquals(1, metrics.procedure(PROCEDURE).getErrors(Error.Reason.DEADLINE_EXCEEDED));
+    }
+
+    @Test
+    public void testQueuedCallIsCancelledWhenChannelIsClosed() throws IOException, InterruptedException {
+        var metrics = new Metrics();
+        var channel = channel(metrics);
+
+        channel.writeInbound(request(50));
+        channel.close();
+
+        // A call that is not cancelled times out after its deadline, as its scheduler never runs it.
+        Thread.sleep(200);
+        channel.runPendingTasks();
+        assertEquals(1, metrics.procedure(PROCEDURE).getRequests());
+        assertEquals(0, metrics.procedure(PROCEDURE).getErrors(Error.Reason.DEADLINE_EXCEEDED));
+        assertNull(channel.readOutbound());
+    }
+
+    private static EmbeddedChannel channel(Metrics metrics) {
+        // Scheduler of the processor is not started, so calls stay queued.
+        var processor = new Processor().setup(new Properties());
+        if (processor.getProcedureByIdentifier(PROCEDURE).isEmpty())
+            processor.getContext().addProcedure(new SHA256HashGenerator());
+
+        return new EmbeddedChannel(new Dispatcher(processor, new CodecRegistry(), metrics, new Tracer()), new ErrorHandler(metrics.getServer(), new Tracer()));
+    }
+
+    private static Request request(long deadline) throws IOException {
+        var arguments = MessagePack.newDefaultBufferPacker();
+        arguments.packBinaryHeader(3).writePayload(new byte[]{1, 2, 3});
+
+        return new Request(PROCEDURE, arguments.toByteArray(), Priority.NORMAL, deadline);
+    }
+
+    private static String errorCode(ByteBuf message) throws IOException {
+        try (var unpacker = MessagePack.newDefaultUnpacker(new ByteBufInputStream(message, true))) {
+            var response = unpacker.unpackValue().asMapValue().map();
+            assertFalse(response.get(string("succ")).asBooleanValue().getBoolean());
+            return response.get(string("errs")).asArrayValue().get(0).asMapValue().map().get(string("code")).asStringValue().asString();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.Failure;
+import ir.annotation.waiter.server.Request;
+import ir.annotation.waiter.server.Response;
+import ir.annotation.waiter.tracing.Trace;
+import ir.annotation.waiter.tracing.Tracer;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority;
+import static org.junit.Assert.*;
+
+public class ErrorHandlerTest {
+
+    @Test
+    public void testTraceOfFailedRequestIsRecordedOnceFlushed() {
+        var properties = new Properties();
+        properties.setProperty("tracing.sample-rate", "1");
+        var tracer = new Tracer().setup(properties);
+        var trace = tracer.trace();
+        var request = new Request("proc", new byte[0], Priority.NORMAL, 0, trace);
+        var channel = new EmbeddedChannel(new ErrorHandler(new Metrics().getServer(), tracer));
+
+        channel.pipeline().fireExceptionCaught(new Failure(request, Error.Reason.PROCEDURE_NOT_FOUND.getError()));
+
+        Response response = channel.readOutbound();
+        assertSame(request, response.getRequest());
+        assertTrue(channel.isOpen());
+        assertEquals(1, tracer.getTraces().size());
+        assertNotEquals(0, trace.getTimestamp(Trace.Stage.FLUSHED));
+        response.getMessage().release();
+    }
+
+    @Test
+    public void testDeadlineExceededKeepsChannelOpen() {
+        var request = new Request("proc", new byte[0], Priority.NORMAL, 50);
+        var channel = new EmbeddedChannel(new ErrorHandler(new Metrics().getServer(), new Tracer()));
+
+        channel.pipeline().fireExceptionCaught(new Failure(request, Error.Reason.DEADLINE_EXCEEDED.getError()));
+
+        Response response = channel.readOutbound();
+        assertSame(request, response.getRequest());
+        assertTrue(channel.isOpen());
+        response.getMessage().release();
+    }
+
+    @Test
+    public void testConnectionErrorClosesChannel() {
+        var channel = new EmbeddedChannel(new ErrorHandler(new Metrics().getServer(), new Tracer()));
+
+        channel.pipeline().fireExceptionCaught(Error.Reason.INVALID_MESSAGE_FORMAT.getError());
+
+        ByteBuf message = channel.readOutbound();
+        assertNotNull(message);
+        assertFalse(channel.isOpen());
+        message.release();
+    }
+}
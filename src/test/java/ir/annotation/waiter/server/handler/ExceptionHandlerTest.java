@@ -0,0 +1,26 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.server.Error;
+import org.junit.Test;
+
+import javax.net.ssl.SSLHandshakeException;
+
+import static org.junit.Assert.*;
+
+public class ExceptionHandlerTest {
+
+    @Test
+    public void testTlsFailureIsRecordedAndChannelIsClosedWithoutResponse() {
+        var metrics = new Metrics();
+        var channel = new EmbeddedChannel(new ExceptionHandler(metrics.getServer()));
+
+        channel.pipeline().fireExceptionCaught(new SSLHandshakeException("no cipher suites in common"));
+
+        assertFalse(channel.isOpen());
+        assertNull(channel.readOutbound());
+        assertEquals(1, metrics.getServer().getErrors(Error.Reason.TLS_FAILED));
+        assertEquals(0, metrics.getServer().getErrors(Error.Reason.UNKNOWN));
+    }
+}
@@ -0,0 +1,97 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.Field;
+import ir.annotation.waiter.server.Request;
+import ir.annotation.waiter.server.Response;
+import ir.annotation.waiter.server.limiter.AdaptiveConcurrencyLimiter;
+import ir.annotation.waiter.tracing.Tracer;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.value.ValueFactory;
+
+import java.io.IOException;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority;
+import static ir.annotation.waiter.server.util.MessagePackUtil.string;
+import static org.junit.Assert.*;
+
+public class LoadSheddingHandlerTest {
+
+    @Test
+    public void testShedCallIsAnsweredAndChannelStaysOpen() throws IOException {
+        var limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.9, 2.0);
+        var metrics = new Metrics();
+        var channel = new EmbeddedChannel(new LoadSheddingHandler(limiter, 16, metrics, new Tracer()));
+
+        var admitted = request();
+        channel.writeInbound(admitted);
+        channel.writeInbound(request());
+
+        assertSame(admitted, channel.readInbound());
+        assertNull(channel.readInbound());
+        assertTrue(channel.isActive());
+        assertEquals(1, metrics.getServer().getErrors(Error.Reason.OVERLOADED));
+        assertEquals("overloaded", errorCode(channel.readOutbound()));
+        assertEquals(1, limiter.getInFlight());
+
+        channel.writeOutbound(new Response(admitted, Unpooled.EMPTY_BUFFER));
+        assertSame(Unpooled.EMPTY_BUFFER, channel.readOutbound());
+        assertEquals(0, limiter.getInFlight());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPermitIsReleasedOnceByItsOwnResponse() {
+        var limiter = new AdaptiveConcurrencyLimiter(4, 1, 4, 0.9, 2.0);
+        var channel = new EmbeddedChannel(new LoadSheddingHandler(limiter, 2, new Metrics(), new Tracer()));
+
+        var first = request();
+        var second = request();
+        channel.writeInbound(first, second);
+        assertFalse(channel.config().isAutoRead());
+
+        channel.writeOutbound(new Response(second, Unpooled.EMPTY_BUFFER), new Response(second, Unpooled.EMPTY_BUFFER), Unpooled.EMPTY_BUFFER);
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(channel.config().isAutoRead());
+
+        channel.pipeline().fireChannelInactive();
+        assertEquals(0, limiter.getInFlight());
+        channel.writeOutbound(new Response(first, Unpooled.EMPTY_BUFFER));
+        assertEquals(0, limiter.getInFlight());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testShedCallIsAnsweredInKeyFormatOfItsRequest() throws IOException {
+        var limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.9, 2.0);
+        var channel = new EmbeddedChannel(new LoadSheddingHandler(limiter, 16, new Metrics(), new Tracer()));
+
+        channel.writeInbound(request());
+        channel.writeInbound(new Request("generate_random_number", new byte[]{MessagePack.Code.NIL}, Priority.NORMAL, 0, true, null));
+
+        ByteBuf message = channel.readOutbound();
+        try (var unpacker = MessagePack.newDefaultUnpacker(new ByteBufInputStream(message, true))) {
+            var response = unpacker.unpackValue().asMapValue().map();
+            assertFalse(response.get(ValueFactory.newInteger(Field.SUCCESS.getCode())).asBooleanValue().getBoolean());
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    private static Request request() {
+        return new Request("generate_random_number", new byte[]{MessagePack.Code.NIL}, Priority.NORMAL, 0);
+    }
+
+    private static String errorCode(ByteBuf message) throws IOException {
+        try (var unpacker = MessagePack.newDefaultUnpacker(new ByteBufInputStream(message, true))) {
+            var response = unpacker.unpackValue().asMapValue().map();
+            assertFalse(response.get(string("succ")).asBooleanValue().getBoolean());
+            return response.get(string("errs")).asArrayValue().get(0).asMapValue().map().get(string("code")).asStringValue().asString();
+        }
+    }
+}
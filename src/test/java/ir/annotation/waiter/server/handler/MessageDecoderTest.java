@@ -0,0 +1,110 @@
+package ir.annotation.waiter.server.handler;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import ir.annotation.waiter.metrics.Metrics;
+import ir.annotation.waiter.server.Error;
+import ir.annotation.waiter.server.Request;
+import ir.annotation.waiter.server.util.StringTable;
+import ir.annotation.waiter.tracing.Tracer;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.util.List;
+
+import static ir.annotation.waiter.processor.PriorityScheduler.Priority;
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+import static org.junit.Assert.*;
+
+public class MessageDecoderTest {
+    private static final String PROCEDURE = "generate_random_number";
+
+    @Test
+    public void testNamedKeysAreDecodedWithInternedIdentifier() throws IOException {
+        var channel = channel();
+        channel.writeInbound(Unpooled.wrappedBuffer(pack(map(
+                string("proc"), string(new String(PROCEDURE)),
+                string("args"), map(string("max"), integer(10)),
+                string("prio"), integer(0),
+                string("unknown"), string("skipped")
+        ))));
+
+        Request request = channel.readInbound();
+        assertSame(PROCEDURE, request.getProcedure());
+        assertArrayEquals(pack(map(string("max"), integer(10))), request.getArguments());
+        assertEquals(Priority.HIGH, request.getPriority());
+        assertFalse(MessageDecoder.isCompact(channel));
+    }
+
+    @Test
+    public void testCompactKeysAreDecodedAndKeptOnChannel() throws IOException {
+        var channel = channel();
+        channel.writeInbound(Unpooled.wrappedBuffer(pack(map(
+                integer(0), string(PROCEDURE),
+                integer(3), integer(250),
+                integer(9), nil()
+        ))));
+
+        Request request = channel.readInbound();
+        assertSame(PROCEDURE, request.getProcedure());
+        assertArrayEquals(pack(nil()), request.getArguments());
+        assertEquals(Priority.NORMAL, request.getPriority());
+        assertEquals(250, request.getDeadline());
+        assertTrue(MessageDecoder.isCompact(channel));
+    }
+
+    @Test
+    public void testCompressionIsNegotiatedByName() throws IOException {
+        var channel = channel();
+        channel.writeInbound(Unpooled.wrappedBuffer(pack(map(string("proc"), string(PROCEDURE), string("comp"), string("zstd")))));
+        assertNull(channel.attr(CompressionHandler.ALGORITHM).get());
+
+        channel.writeInbound(Unpooled.wrappedBuffer(pack(map(integer(0), string(PROCEDURE), integer(4), string("deflate")))));
+        assertEquals(CompressionHandler.Algorithm.DEFLATE, channel.attr(CompressionHandler.ALGORITHM).get());
+    }
+
+    @Test
+    public void testUnknownProcedureIsDecoded() throws IOException {
+        var channel = channel();
+        channel.writeInbound(Unpooled.wrappedBuffer(pack(map(string("proc"), string("nope")))));
+
+        Request request = channel.readInbound();
+        assertEquals("nope", request.getProcedure());
+    }
+
+    @Test
+    public void testInvalidMessagesAreRejected() throws IOException {
+        var messages = List.of(
+                string("proc"),
+                map(string("args"), nil()),
+                map(integer(0), integer(1)),
+                map(string("proc"), string(PROCEDURE), integer(2), integer(3)),
+                map(string("proc"), string(PROCEDURE), string("dead"), integer(-1))
+        );
+
+        for (var message : messages) {
+            var channel = channel();
+            try {
+                channel.writeInbound(Unpooled.wrappedBuffer(pack(message)));
+                channel.checkException();
+                fail("message must be rejected: " + message);
+            } catch (Error e) {
+                assertEquals(Error.Reason.INVALID_MESSAGE_FORMAT, e.getReason());
+            }
+            assertNull(channel.readInbound());
+        }
+    }
+
+    private static EmbeddedChannel channel() {
+        return new EmbeddedChannel(new MessageDecoder(new Metrics().getServer(), new Tracer(), new StringTable(List.of(PROCEDURE))));
+    }
+
+    private static byte[] pack(Value value) throws IOException {
+        try (var buffer = MessagePack.newDefaultBufferPacker()) {
+            buffer.packValue(value);
+            return buffer.toByteArray();
+        }
+    }
+}
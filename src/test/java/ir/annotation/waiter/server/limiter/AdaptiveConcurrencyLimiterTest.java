@@ -0,0 +1,111 @@
+package ir.annotation.waiter.server.limiter;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimits() {
+        new AdaptiveConcurrencyLimiter(1, 2, 4, 0.9, 2.0);
+    }
+
+    @Test
+    public void testRejectWhenSaturated() {
+        var limiter = new AdaptiveConcurrencyLimiter(2, 1, 4, 0.9, 2.0);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void testIncreaseOnHealthyLatency() {
+        var limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 0.5, 2.0);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release("proc", 1_000_000);
+            limiter.release();
+        }
+
+        assertTrue(limiter.getLimit() > 4);
+    }
+
+    @Test
+    public void testDecreaseOnDegradedLatency() {
+        var limiter = new AdaptiveConcurrencyLimiter(8, 1, 8, 0.5, 2.0);
+
+        limiter.tryAcquire();
+        limiter.release("proc", 1_000_000);
+        limiter.tryAcquire();
+        limiter.release("proc", 10_000_000);
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void testMixedLatencyProceduresAreNotCongested() {
+        var limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 0.5, 2.0);
+        var now = 0L;
+
+        // Random numbers are generated in microseconds while key pairs take hundreds of milliseconds, both without congestion.
+        for (int i = 0; i < 200; i++) {
+            now += TimeUnit.MILLISECONDS.toNanos(10);
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release("generate_random_number", TimeUnit.MICROSECONDS.toNanos(50 + i % 20), now);
+            limiter.release("generate_public_private_key_pair", TimeUnit.MILLISECONDS.toNanos(300 + i % 50), now);
+            limiter.release();
+            limiter.release();
+        }
+
+        assertTrue(limiter.getLimit() > 8);
+    }
+
+    @Test
+    public void testSustainedOverloadKeepsBeingDetected() {
+        var limiter = new AdaptiveConcurrencyLimiter(64, 4, 64, 0.9, 2.0);
+        var now = 0L;
+        for (int i = 0; i < 10; i++) {
+            now += TimeUnit.MILLISECONDS.toNanos(10);
+            limiter.tryAcquire();
+            limiter.release("proc", TimeUnit.MILLISECONDS.toNanos(1), now);
+        }
+
+        // Calls queue behind each other for longer than a smoothed baseline would take to catch up with their latency.
+        for (int i = 0; i < 1000; i++) {
+            now += TimeUnit.MILLISECONDS.toNanos(20);
+            limiter.tryAcquire();
+            limiter.release("proc", TimeUnit.MILLISECONDS.toNanos(10), now);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void testReconfigureClampsLimit() {
+        var limiter = new AdaptiveConcurrencyLimiter(8, 1, 8, 0.5, 2.0);
+
+        limiter.reconfigure(1, 4, 0.5, 2.0);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.reconfigure(6, 16, 0.5, 2.0);
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidReconfigure() {
+        new AdaptiveConcurrencyLimiter(8, 1, 8, 0.5, 2.0).reconfigure(4, 2, 0.5, 2.0);
+    }
+}
@@ -0,0 +1,41 @@
+package ir.annotation.waiter.server.util;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static ir.annotation.waiter.server.util.AutoReadUtil.Reason.IN_FLIGHT_BUDGET_EXCEEDED;
+import static ir.annotation.waiter.server.util.AutoReadUtil.Reason.NOT_WRITABLE;
+import static org.junit.Assert.*;
+
+public class AutoReadUtilTest {
+
+    @Test
+    public void testReadingIsResumedOnlyWhenAllReasonsAreCleared() {
+        var channel = new EmbeddedChannel();
+
+        AutoReadUtil.suspend(channel, NOT_WRITABLE);
+        AutoReadUtil.suspend(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        assertFalse(channel.config().isAutoRead());
+
+        AutoReadUtil.resume(channel, NOT_WRITABLE);
+        assertFalse(channel.config().isAutoRead());
+
+        AutoReadUtil.resume(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    public void testSuspendingForSameReasonTwiceIsClearedOnce() {
+        var channel = new EmbeddedChannel();
+
+        AutoReadUtil.suspend(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        AutoReadUtil.suspend(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        assertFalse(channel.config().isAutoRead());
+
+        AutoReadUtil.resume(channel, NOT_WRITABLE);
+        assertFalse(channel.config().isAutoRead());
+
+        AutoReadUtil.resume(channel, IN_FLIGHT_BUDGET_EXCEEDED);
+        assertTrue(channel.config().isAutoRead());
+    }
+}
@@ -0,0 +1,82 @@
+package ir.annotation.waiter.server.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.value.Value;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+import static org.junit.Assert.*;
+
+public class MessageWriterTest {
+
+    private static final ByteBufAllocator heap = new UnpooledByteBufAllocator(false);
+    private static final ByteBufAllocator direct = new UnpooledByteBufAllocator(true);
+
+    @Test
+    public void testWriterPacksSameMessageAsValueTree() throws IOException {
+        var expected = map(
+                string("succ"), bool(false),
+                string("errs"), array(map(
+                        string("code"), string("E"),
+                        string("mess"), string("message")
+                ))
+        );
+
+        for (var allocator : new ByteBufAllocator[]{heap, direct}) {
+            try (var writer = new MessageWriter(allocator)) {
+                var buffer = writer.map(2)
+                        .string("succ").bool(false)
+                        .string("errs").array(1).map(2)
+                        .string("code").string("E")
+                        .string("mess").string("message")
+                        .finish();
+
+                assertEquals(expected, unpack(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void testPayloadsLargerThanScratchBufferArePackedInOrder() throws IOException {
+        var payload = new byte[100_000];
+        Arrays.fill(payload, (byte) 7);
+
+        for (var allocator : new ByteBufAllocator[]{heap, direct}) {
+            try (var writer = new MessageWriter(allocator)) {
+                var buffer = writer.map(2)
+                        .string("resp").bytes(payload)
+                        .string("next").integer(42)
+                        .finish();
+
+                assertEquals(map(string("resp"), bytes(payload), string("next"), integer(42)), unpack(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void testFinishedBufferIsHandedOver() throws IOException {
+        ByteBuf buffer;
+        try (var writer = new MessageWriter(direct)) {
+            buffer = writer.map(1).string("succ").bool(true).finish();
+        }
+        assertEquals(1, buffer.refCnt());
+        assertEquals(map(string("succ"), bool(true)), unpack(buffer));
+        assertEquals(0, buffer.refCnt());
+    }
+
+    private static Value unpack(ByteBuf buffer) throws IOException {
+        var bytes = new byte[buffer.readableBytes()];
+        buffer.readBytes(bytes);
+        buffer.release();
+
+        try (var unpacker = MessagePack.newDefaultUnpacker(bytes)) {
+            return unpacker.unpackValue();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ir.annotation.waiter.tracing;
+
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class TracerTest {
+
+    @Test
+    public void testUnsampledRequestsAreNotTraced() {
+        assertNull(new Tracer().trace());
+        assertNull(tracer("0", "4").trace());
+    }
+
+    @Test
+    public void testRingBufferKeepsMostRecentTraces() {
+        var tracer = tracer("1", "3");
+        for (var i = 0; i < 10; i++) {
+            var trace = tracer.trace();
+            assertNotNull(trace);
+            trace.mark(Trace.Stage.COMPLETED);
+            tracer.record(trace);
+        }
+
+        var traces = tracer.getTraces();
+        assertEquals(4, traces.size());
+        assertEquals(7, traces.get(0).getId());
+        assertEquals(10, traces.get(3).getId());
+    }
+
+    @Test
+    public void testStageIsMarkedOnce() {
+        var trace = tracer("1", "1").trace();
+        var started = trace.getTimestamp(Trace.Stage.FRAMED);
+        trace.mark(Trace.Stage.FRAMED);
+
+        assertNotEquals(0, started);
+        assertEquals(started, trace.getTimestamp(Trace.Stage.FRAMED));
+        assertEquals(0, trace.getTimestamp(Trace.Stage.STARTED));
+    }
+
+    @Test
+    public void testStageIsNotMarkedAfterLaterStage() {
+        var trace = tracer("1", "1").trace();
+        trace.mark(Trace.Stage.COMPLETED);
+        trace.mark(Trace.Stage.STARTED);
+
+        assertNotEquals(0, trace.getTimestamp(Trace.Stage.COMPLETED));
+        assertEquals(0, trace.getTimestamp(Trace.Stage.STARTED));
+    }
+
+    private Tracer tracer(String sampleRate, String bufferSize) {
+        var properties = new Properties();
+        properties.setProperty("tracing.sample-rate", sampleRate);
+        properties.setProperty("tracing.buffer-size", bufferSize);
+
+        return new Tracer().setup(properties);
+    }
+}
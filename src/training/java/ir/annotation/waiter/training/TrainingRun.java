@@ -0,0 +1,102 @@
+package ir.annotation.waiter.training;
+
+import ir.annotation.waiter.Main;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Properties;
+
+import static ir.annotation.waiter.server.util.MessagePackUtil.*;
+
+/**
+ * Training run of the application that boots the server and calls each procedure once, then exits.
+ * <p>
+ * Used by the build to record the classes loaded on startup and on first requests into a class data sharing archive.
+ * </p>
+ *
+ * @author Alireza Pourtaghi
+ */
+public final class TrainingRun {
+    private static final Logger logger = LoggerFactory.getLogger(TrainingRun.class);
+
+    /**
+     * Packed form of message delimiter.
+     */
+    private static final Value DELIMITER = bytes(new byte[]{'\r', '\n', '\r', '\n'});
+
+    /**
+     * Private constructor, this class only has a main method.
+     */
+    private TrainingRun() {
+    }
+
+    /**
+     * Starts the application, calls each procedure once over a socket and exits.
+     *
+     * @param args Arguments passed to the application on startup, including options and flags.
+     * @throws Exception If application did not start or a call failed.
+     */
+    public static void main(String[] args) throws Exception {
+        var startTime = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+        Main.main(args);
+
+        var properties = new Properties();
+        try (var resourceReader = ClassLoader.getSystemClassLoader().getResourceAsStream("application.properties")) {
+            if (resourceReader != null)
+                properties.load(resourceReader);
+        }
+
+        var port = Integer.parseInt(properties.getOrDefault("server.port", "9000").toString());
+        try (var socket = new Socket("127.0.0.1", port); var in = MessagePack.newDefaultUnpacker(socket.getInputStream())) {
+            var out = socket.getOutputStream();
+
+            call(out, in, "generate_SHA256_hash", bytes(new byte[]{1, 2, 3}));
+            logger.info("first response received {} ms after JVM start", Duration.between(startTime, Instant.now()).toMillis());
+            call(out, in, "generate_random_number", map(string("from"), integer(1), string("to"), integer(6)));
+            call(out, in, "generate_secret_key", map(string("algo"), string("AES"), string("size"), integer(256)));
+            var keyPair = call(out, in, "generate_public_private_key_pair", map(string("algo"), string("DiffieHellman"), string("size"), integer(2048)));
+            call(out, in, "exchange_key", map(
+                    string("algo"), string("DiffieHellman"),
+                    string("size"), integer(2048),
+                    string("okey"), keyPair.asMapValue().map().get(string("publ"))
+            ));
+        }
+
+        logger.info("training run completed {} ms after JVM start", Duration.between(startTime, Instant.now()).toMillis());
+        System.exit(0);
+    }
+
+    /**
+     * Calls a procedure and waits for its response.
+     *
+     * @param out       The socket output stream.
+     * @param in        The socket input unpacker.
+     * @param procedure The procedure identifier.
+     * @param arguments The procedure arguments.
+     * @return The procedure response.
+     * @throws IOException           If writing request or reading response failed.
+     * @throws IllegalStateException If the call was not successful.
+     */
+    private static Value call(OutputStream out, MessageUnpacker in, String procedure, Value arguments) throws IOException {
+        try (var packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packValue(map(string("proc"), string(procedure), string("args"), arguments));
+            packer.packValue(DELIMITER);
+            out.write(packer.toByteArray());
+            out.flush();
+        }
+
+        var message = in.unpackValue().asMapValue().map();
+        if (!message.get(string("succ")).asBooleanValue().getBoolean())
+            throw new IllegalStateException(procedure + " call failed with " + message.get(string("errs")));
+
+        return message.get(string("resp"));
+    }
+}